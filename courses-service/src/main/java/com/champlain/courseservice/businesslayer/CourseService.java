@@ -2,6 +2,8 @@ package com.champlain.courseservice.businesslayer;
 
 import com.champlain.courseservice.presentationlayer.CourseRequestDTO;
 import com.champlain.courseservice.presentationlayer.CourseResponseDTO;
+import com.champlain.courseservice.presentationlayer.PrerequisiteCheckRequestDTO;
+import com.champlain.courseservice.presentationlayer.PrerequisiteCheckResponseDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -12,4 +14,7 @@ public interface CourseService {
     Mono<CourseResponseDTO> addCourse(Mono<CourseRequestDTO> courseRequestDTO);
     Mono<CourseResponseDTO> updateCourseById(Mono<CourseRequestDTO> courseRequestDTO, String courseId);
     Mono<Void> deleteCourseById(String courseId);
+    Mono<CourseResponseDTO> reserveSeats(String courseId, int count);
+    Mono<CourseResponseDTO> releaseSeats(String courseId, int count);
+    Mono<PrerequisiteCheckResponseDTO> checkPrerequisites(Mono<PrerequisiteCheckRequestDTO> prerequisiteCheckRequestDTO, String courseId);
 }
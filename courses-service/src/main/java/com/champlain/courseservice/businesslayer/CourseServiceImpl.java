@@ -1,9 +1,14 @@
 package com.champlain.courseservice.businesslayer;
 
+import com.champlain.courseservice.dataaccesslayer.Course;
 import com.champlain.courseservice.dataaccesslayer.CourseRepository;
+import com.champlain.courseservice.dataaccesslayer.MeetingSlot;
 import com.champlain.courseservice.presentationlayer.CourseRequestDTO;
 import com.champlain.courseservice.presentationlayer.CourseResponseDTO;
+import com.champlain.courseservice.presentationlayer.PrerequisiteCheckRequestDTO;
+import com.champlain.courseservice.presentationlayer.PrerequisiteCheckResponseDTO;
 import com.champlain.courseservice.utils.EntityDTOUtils;
+import com.champlain.courseservice.utils.exceptions.ConflictException;
 import com.champlain.courseservice.utils.exceptions.InvalidInputException;
 import com.champlain.courseservice.utils.exceptions.NotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -12,12 +17,16 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CourseServiceImpl implements CourseService{
 
     private final CourseRepository courseRepository;
+    private final PrerequisiteGraph prerequisiteGraph;
 
     @Override
     public Flux<CourseResponseDTO> getAllCourses() {
@@ -39,8 +48,14 @@ public class CourseServiceImpl implements CourseService{
     public Mono<CourseResponseDTO> addCourse(Mono<CourseRequestDTO> courseRequestDTO) {
         return courseRequestDTO
                 .map(EntityDTOUtils::toCourseEntity)
-                .doOnNext(e -> e.setCourseId(EntityDTOUtils.generateUUIDString()))
+                .flatMap(CourseServiceImpl::validateMeetingSlots)
+                .doOnNext(e -> {
+                    e.setCourseId(EntityDTOUtils.generateUUIDString());
+                    e.setSeatsTaken(0);
+                })
+                .flatMap(this::validatePrerequisites)
                 .flatMap(courseRepository::insert)
+                .doOnNext(course -> prerequisiteGraph.setPrerequisites(course.getCourseId(), course.getPrerequisiteCourseIds()))
                 .map(EntityDTOUtils::toCourseResponseDTO);
     }
 
@@ -49,16 +64,11 @@ public class CourseServiceImpl implements CourseService{
         if(courseId.length() != 36){
             return Mono.error(new InvalidInputException("Invalid courseId, length must be 36 characters"));
         }
-        return courseRepository.findCourseByCourseId(courseId).flatMap(course ->
-            courseRequestDTO
-                    .switchIfEmpty(Mono.error(new NotFoundException("No course with this courseId was found: " + courseId)))
-                    .map(EntityDTOUtils::toCourseEntity)
-                    .doOnNext(e -> {
-                        e.setCourseId(course.getCourseId());
-                        e.setId(course.getId());
-
-        }))
-                .flatMap(courseRepository::save)
+        return courseRequestDTO
+                .map(EntityDTOUtils::toCourseEntity)
+                .flatMap(CourseServiceImpl::validateMeetingSlots)
+                .flatMap(this::validatePrerequisites)
+                .flatMap(course -> updateWithPrerequisites(courseId, course))
                 .map(EntityDTOUtils::toCourseResponseDTO);
     }
 
@@ -67,10 +77,118 @@ public class CourseServiceImpl implements CourseService{
         if(courseId.length() != 36){
             return Mono.error(new InvalidInputException("Invalid courseId, length must be 36 characters"));
         }
-        return courseRepository.findCourseByCourseId(courseId)
+        return courseRepository.deleteCourseByCourseId(courseId)
+                .filter(deletedCount -> deletedCount > 0)
                 .switchIfEmpty(Mono.error(new NotFoundException("No course with this courseId was found: " + courseId)))
-                .flatMap(courseRepository::delete);
+                .doOnNext(deletedCount -> prerequisiteGraph.remove(courseId))
+                .then();
     }
 
-}
+    @Override
+    public Mono<CourseResponseDTO> reserveSeats(String courseId, int count) {
+        if(courseId.length() != 36){
+            return Mono.error(new InvalidInputException("Invalid courseId, length must be 36 characters"));
+        }
+        if(count < 1){
+            return Mono.error(new InvalidInputException("Invalid count, at least one seat must be reserved"));
+        }
+        return courseRepository.reserveSeats(courseId, count)
+                .switchIfEmpty(Mono.defer(() -> courseRepository.findCourseByCourseId(courseId)
+                        .switchIfEmpty(Mono.error(new NotFoundException("No course with this courseId was found: " + courseId)))
+                        .flatMap(course -> Mono.error(new ConflictException("Not enough seats left in course: " + courseId)))))
+                .map(EntityDTOUtils::toCourseResponseDTO);
+    }
+
+    @Override
+    public Mono<CourseResponseDTO> releaseSeats(String courseId, int count) {
+        if(courseId.length() != 36){
+            return Mono.error(new InvalidInputException("Invalid courseId, length must be 36 characters"));
+        }
+        if(count < 1){
+            return Mono.error(new InvalidInputException("Invalid count, at least one seat must be released"));
+        }
+        return courseRepository.releaseSeats(courseId, count)
+                .switchIfEmpty(Mono.defer(() -> courseRepository.findCourseByCourseId(courseId)
+                        .switchIfEmpty(Mono.error(new NotFoundException("No course with this courseId was found: " + courseId)))
+                        .flatMap(course -> Mono.error(new ConflictException("Cannot release more seats than are taken in course: " + courseId)))))
+                .map(EntityDTOUtils::toCourseResponseDTO);
+    }
 
+    // Answered from the in-memory graph; the database is only read for the course and the courses it requires
+    // whose prerequisites the graph has not loaded yet.
+    @Override
+    public Mono<PrerequisiteCheckResponseDTO> checkPrerequisites(Mono<PrerequisiteCheckRequestDTO> prerequisiteCheckRequestDTO, String courseId) {
+        if(courseId.length() != 36){
+            return Mono.error(new InvalidInputException("Invalid courseId, length must be 36 characters"));
+        }
+        return prerequisiteCheckRequestDTO
+                .defaultIfEmpty(new PrerequisiteCheckRequestDTO())
+                .flatMap(request -> missingPrerequisites(courseId, request.getCompletedCourseIds()))
+                .map(missingCourseIds -> PrerequisiteCheckResponseDTO.builder()
+                        .courseId(courseId)
+                        .satisfied(missingCourseIds.isEmpty())
+                        .missingCourseIds(missingCourseIds)
+                        .build());
+    }
+
+    // every round loads all courses the graph is missing, so it ends after at most one round per prerequisite level
+    private Mono<List<String>> missingPrerequisites(String courseId, Collection<String> completedCourseIds) {
+        return Mono.justOrEmpty(prerequisiteGraph.missingPrerequisites(courseId, completedCourseIds))
+                .switchIfEmpty(Mono.defer(() -> loadPrerequisites(courseId)
+                        .then(Mono.defer(() -> missingPrerequisites(courseId, completedCourseIds)))));
+    }
+
+    // a prerequisite that no longer exists is loaded without prerequisites of its own
+    private Mono<Void> loadPrerequisites(String courseId) {
+        List<String> unloadedCourseIds = prerequisiteGraph.unloadedCourses(courseId);
+        return courseRepository.findAllByCourseIdIn(unloadedCourseIds)
+                .collectMap(Course::getCourseId)
+                .filter(found -> found.containsKey(courseId) || !unloadedCourseIds.contains(courseId))
+                .switchIfEmpty(Mono.error(new NotFoundException("No course with this courseId was found: " + courseId)))
+                .doOnNext(found -> unloadedCourseIds.forEach(unloadedCourseId -> prerequisiteGraph.loadPrerequisites(unloadedCourseId,
+                        found.containsKey(unloadedCourseId) ? found.get(unloadedCourseId).getPrerequisiteCourseIds() : List.of())))
+                .then();
+    }
+
+    private static Mono<Course> validateMeetingSlots(Course course) {
+        if (course.getMeetingSlots() != null) {
+            for (MeetingSlot meetingSlot : course.getMeetingSlots()) {
+                if (meetingSlot.getDay() == null || meetingSlot.getStartTime() == null || meetingSlot.getEndTime() == null
+                        || !meetingSlot.getStartTime().isBefore(meetingSlot.getEndTime())) {
+                    return Mono.error(new InvalidInputException("Invalid meeting slot, a day and a start time before the end time are required: " + meetingSlot));
+                }
+            }
+        }
+        return Mono.just(course);
+    }
+
+    private Mono<Course> validatePrerequisites(Course course) {
+        List<String> prerequisiteCourseIds = course.getPrerequisiteCourseIds() == null
+                ? List.of() : course.getPrerequisiteCourseIds().stream().distinct().toList();
+        course.setPrerequisiteCourseIds(prerequisiteCourseIds);
+        if (prerequisiteCourseIds.isEmpty()) {
+            return Mono.just(course);
+        }
+        return courseRepository.countByCourseIdIn(prerequisiteCourseIds)
+                .filter(found -> found == prerequisiteCourseIds.size())
+                .switchIfEmpty(Mono.error(new InvalidInputException("Unknown prerequisite course in: " + prerequisiteCourseIds)))
+                .thenReturn(course);
+    }
+
+    // The new edges are checked for a cycle before anything is written, and the graph only takes them once the
+    // course was found and updated. A concurrent update that closed a cycle in the meantime leaves the course as
+    // a placeholder, so it is read from the database again on its next check.
+    private Mono<Course> updateWithPrerequisites(String courseId, Course course) {
+        return Mono.fromRunnable(() -> prerequisiteGraph.validatePrerequisites(courseId, course.getPrerequisiteCourseIds()))
+                .then(Mono.defer(() -> courseRepository.updateCourseByCourseId(courseId, course)))
+                .doOnNext(updated -> {
+                    try {
+                        prerequisiteGraph.setPrerequisites(courseId, course.getPrerequisiteCourseIds());
+                    } catch (InvalidInputException cycle) {
+                        log.warn("Could not apply the prerequisites of course {}: {}", courseId, cycle.getMessage());
+                        prerequisiteGraph.remove(courseId);
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.champlain.courseservice.businesslayer;
+
+import com.champlain.courseservice.dataaccesslayer.CourseRepository;
+import com.champlain.courseservice.utils.exceptions.InvalidInputException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory prerequisite graph of the catalog. Every course gets a dense index, and each course keeps the
+// transitive closure of its prerequisites as a bitset over those indexes, so checking a set of completed
+// courses is one bitset difference instead of a walk of the graph. A prerequisite is only a placeholder until its
+// own prerequisites are set, so a course is only answered once it and every course it requires have been set;
+// until then, e.g. while the catalog is loading or after a failed load, callers read the courses from the database.
+@Slf4j
+@Component
+public class PrerequisiteGraph {
+
+    private static final int[] NO_PREREQUISITES = new int[0];
+
+    private final CourseRepository courseRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> courseIds = new ArrayList<>();
+    private final List<int[]> prerequisites = new ArrayList<>();
+    private final List<BitSet> dependents = new ArrayList<>();
+    private final List<BitSet> closures = new ArrayList<>();
+    // courses whose own prerequisites have not been set
+    private final BitSet placeholders = new BitSet();
+
+    public PrerequisiteGraph(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        Flux.defer(courseRepository::findAll)
+                .doOnNext(course -> loadPrerequisites(course.getCourseId(), course.getPrerequisiteCourseIds()))
+                .count()
+                .subscribe(count -> log.info("Loaded prerequisites of {} courses", count),
+                        error -> log.warn("Could not load the prerequisite graph: {}", error.getMessage()));
+    }
+
+    // Replaces the direct prerequisites of a course and returns the previous ones. Only the closures of the
+    // course and of the courses that depend on it are recomputed.
+    public List<String> setPrerequisites(String courseId, Collection<String> prerequisiteCourseIds) {
+        lock.writeLock().lock();
+        try {
+            int course = indexOf(courseId);
+            int[] updated = (prerequisiteCourseIds == null ? List.<String>of() : prerequisiteCourseIds).stream()
+                    .distinct()
+                    .mapToInt(this::indexOf)
+                    .toArray();
+
+            // course -> p closes a cycle exactly when p already (transitively) requires course
+            for (int prerequisite : updated) {
+                if (prerequisite == course || closures.get(prerequisite).get(course)) {
+                    throw new InvalidInputException("Prerequisite " + courseIds.get(prerequisite)
+                            + " would create a cycle with course: " + courseId);
+                }
+            }
+
+            int[] previous = prerequisites.get(course);
+            for (int prerequisite : previous) {
+                dependents.get(prerequisite).clear(course);
+            }
+            for (int prerequisite : updated) {
+                dependents.get(prerequisite).set(course);
+            }
+            prerequisites.set(course, updated);
+            placeholders.clear(course);
+            recomputeClosures(course);
+
+            List<String> previousCourseIds = new ArrayList<>(previous.length);
+            for (int prerequisite : previous) {
+                previousCourseIds.add(courseIds.get(prerequisite));
+            }
+            return previousCourseIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rejects prerequisites that would create a cycle without changing the graph, so a write can be checked
+    // before it reaches the database and applied once it has. Courses the graph does not know yet require
+    // nothing, so they cannot close a cycle.
+    public void validatePrerequisites(String courseId, Collection<String> prerequisiteCourseIds) {
+        lock.readLock().lock();
+        try {
+            Integer course = indexes.get(courseId);
+            for (String prerequisiteCourseId : prerequisiteCourseIds == null ? List.<String>of() : prerequisiteCourseIds) {
+                Integer prerequisite = indexes.get(prerequisiteCourseId);
+                if (prerequisiteCourseId.equals(courseId)
+                        || (course != null && prerequisite != null && closures.get(prerequisite).get(course))) {
+                    throw new InvalidInputException("Prerequisite " + prerequisiteCourseId
+                            + " would create a cycle with course: " + courseId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sets the prerequisites read from the database, unless a write has set them since.
+    public void loadPrerequisites(String courseId, Collection<String> prerequisiteCourseIds) {
+        lock.writeLock().lock();
+        try {
+            Integer course = indexes.get(courseId);
+            if (course == null || placeholders.get(course)) {
+                setPrerequisites(courseId, prerequisiteCourseIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the course is left as a placeholder, so courses that still require it read it from the database again
+    public void remove(String courseId) {
+        lock.writeLock().lock();
+        try {
+            setPrerequisites(courseId, List.of());
+            placeholders.set(indexes.get(courseId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The course and the courses it requires whose prerequisites have not been set yet.
+    public List<String> unloadedCourses(String courseId) {
+        lock.readLock().lock();
+        try {
+            Integer course = indexes.get(courseId);
+            if (course == null || placeholders.get(course)) {
+                return List.of(courseId);
+            }
+            BitSet unloaded = (BitSet) closures.get(course).clone();
+            unloaded.and(placeholders);
+            List<String> unloadedCourseIds = new ArrayList<>(unloaded.cardinality());
+            unloaded.stream().forEach(prerequisite -> unloadedCourseIds.add(courseIds.get(prerequisite)));
+            return unloadedCourseIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The prerequisites of the course, direct and transitive, that are not in completedCourseIds, in index
+    // order. Empty when the course or one of the courses it requires is not loaded yet.
+    public Optional<List<String>> missingPrerequisites(String courseId, Collection<String> completedCourseIds) {
+        lock.readLock().lock();
+        try {
+            Integer course = indexes.get(courseId);
+            if (course == null || placeholders.get(course) || closures.get(course).intersects(placeholders)) {
+                return Optional.empty();
+            }
+            BitSet missing = (BitSet) closures.get(course).clone();
+            if (completedCourseIds != null) {
+                for (String completedCourseId : completedCourseIds) {
+                    Integer completed = indexes.get(completedCourseId);
+                    if (completed != null) {
+                        missing.clear(completed);
+                    }
+                }
+            }
+            List<String> missingCourseIds = new ArrayList<>(missing.cardinality());
+            missing.stream().forEach(prerequisite -> missingCourseIds.add(courseIds.get(prerequisite)));
+            return Optional.of(missingCourseIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock.
+    private int indexOf(String courseId) {
+        return indexes.computeIfAbsent(courseId, id -> {
+            courseIds.add(id);
+            prerequisites.add(NO_PREREQUISITES);
+            dependents.add(new BitSet());
+            closures.add(new BitSet());
+            placeholders.set(courseIds.size() - 1);
+            return courseIds.size() - 1;
+        });
+    }
+
+    // The course and everything that depends on it are recomputed in topological order, so each closure is
+    // built from closures that are already up to date.
+    private void recomputeClosures(int course) {
+        BitSet affected = new BitSet();
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        toVisit.push(course);
+        affected.set(course);
+        while (!toVisit.isEmpty()) {
+            dependents.get(toVisit.pop()).stream()
+                    .filter(dependent -> !affected.get(dependent))
+                    .forEach(dependent -> {
+                        affected.set(dependent);
+                        toVisit.push(dependent);
+                    });
+        }
+
+        Map<Integer, Integer> pendingPrerequisites = new HashMap<>();
+        Deque<Integer> ready = new ArrayDeque<>();
+        affected.stream().forEach(node -> {
+            int pending = (int) Arrays.stream(prerequisites.get(node)).filter(affected::get).count();
+            pendingPrerequisites.put(node, pending);
+            if (pending == 0) {
+                ready.add(node);
+            }
+        });
+
+        int recomputed = 0;
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            BitSet closure = new BitSet();
+            for (int prerequisite : prerequisites.get(node)) {
+                closure.set(prerequisite);
+                closure.or(closures.get(prerequisite));
+            }
+            closures.set(node, closure);
+            recomputed++;
+            dependents.get(node).stream()
+                    .filter(affected::get)
+                    .forEach(dependent -> {
+                        if (pendingPrerequisites.merge(dependent, -1, Integer::sum) == 0) {
+                            ready.add(dependent);
+                        }
+                    });
+        }
+        log.debug("Recomputed prerequisite closures of {} courses after a change to {}", recomputed, courseIds.get(course));
+    }
+
+}
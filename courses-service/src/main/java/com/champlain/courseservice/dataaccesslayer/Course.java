@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 
+import java.util.List;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -21,6 +23,10 @@ public class Course {
     private Integer numHours;
     private Double numCredits;
     private String department;
+    private Integer capacity;
+    private Integer seatsTaken;
+    private List<String> prerequisiteCourseIds;
+    private List<MeetingSlot> meetingSlots;
 
 
 }
@@ -1,10 +1,19 @@
 package com.champlain.courseservice.dataaccesslayer;
 
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface CourseRepository extends ReactiveMongoRepository<Course, String> {
+import java.util.Collection;
+
+public interface CourseRepository extends ReactiveMongoRepository<Course, String>, CourseUpdateRepository {
 
     Mono<Course> findCourseByCourseId(String courseId);
 
+    Mono<Long> deleteCourseByCourseId(String courseId);
+
+    Mono<Long> countByCourseIdIn(Collection<String> courseIds);
+
+    Flux<Course> findAllByCourseIdIn(Collection<String> courseIds);
+
 }
@@ -0,0 +1,13 @@
+package com.champlain.courseservice.dataaccesslayer;
+
+import reactor.core.publisher.Mono;
+
+public interface CourseUpdateRepository {
+
+    Mono<Course> updateCourseByCourseId(String courseId, Course course);
+
+    Mono<Course> reserveSeats(String courseId, int count);
+
+    Mono<Course> releaseSeats(String courseId, int count);
+
+}
@@ -0,0 +1,67 @@
+package com.champlain.courseservice.dataaccesslayer;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CourseUpdateRepositoryImpl implements CourseUpdateRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // one findAndModify on the business id, returns the updated document or empty when no course matched
+    @Override
+    public Mono<Course> updateCourseByCourseId(String courseId, Course course) {
+        Update update = new Update()
+                .set("courseNumber", course.getCourseNumber())
+                .set("courseName", course.getCourseName())
+                .set("numHours", course.getNumHours())
+                .set("numCredits", course.getNumCredits())
+                .set("department", course.getDepartment())
+                .set("capacity", course.getCapacity())
+                .set("prerequisiteCourseIds", course.getPrerequisiteCourseIds())
+                .set("meetingSlots", course.getMeetingSlots());
+
+        return reactiveMongoTemplate.findAndModify(
+                Query.query(Criteria.where("courseId").is(courseId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Course.class);
+    }
+
+    // The capacity check and the $inc are one document update, so concurrent reservations can never
+    // overbook a course. Empty when the course is unknown or does not have count seats left.
+    @Override
+    public Mono<Course> reserveSeats(String courseId, int count) {
+        Document seatsLeft = new Document("$expr", new Document("$lte", List.of(
+                new Document("$add", List.of(new Document("$ifNull", List.of("$seatsTaken", 0)), count)),
+                "$capacity")));
+        Document uncapped = new Document("capacity", null);
+        BasicQuery query = new BasicQuery(new Document("courseId", courseId)
+                .append("$or", List.of(uncapped, seatsLeft)));
+
+        return reactiveMongoTemplate.findAndModify(
+                query,
+                new Update().inc("seatsTaken", count),
+                FindAndModifyOptions.options().returnNew(true),
+                Course.class);
+    }
+
+    @Override
+    public Mono<Course> releaseSeats(String courseId, int count) {
+        return reactiveMongoTemplate.findAndModify(
+                Query.query(Criteria.where("courseId").is(courseId).and("seatsTaken").gte(count)),
+                new Update().inc("seatsTaken", -count),
+                FindAndModifyOptions.options().returnNew(true),
+                Course.class);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.champlain.courseservice.dataaccesslayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MeetingSlot {
+
+    private DayOfWeek day;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+}
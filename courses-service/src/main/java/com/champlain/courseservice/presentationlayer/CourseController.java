@@ -52,4 +52,23 @@ public class CourseController {
                 .then(Mono.just(ResponseEntity.noContent().<Void>build()))
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
+
+    @PostMapping("/{courseId}/seats")
+    public Mono<ResponseEntity<CourseResponseDTO>> reserveSeats(@PathVariable String courseId, @RequestParam(defaultValue = "1") int count){
+        return courseService.reserveSeats(courseId, count)
+                .map(course -> ResponseEntity.ok().body(course));
+    }
+
+    @DeleteMapping("/{courseId}/seats")
+    public Mono<ResponseEntity<CourseResponseDTO>> releaseSeats(@PathVariable String courseId, @RequestParam(defaultValue = "1") int count){
+        return courseService.releaseSeats(courseId, count)
+                .map(course -> ResponseEntity.ok().body(course));
+    }
+
+    @PostMapping("/{courseId}/prerequisites/check")
+    public Mono<ResponseEntity<PrerequisiteCheckResponseDTO>> checkPrerequisites(@PathVariable String courseId,
+                                                                                @RequestBody Mono<PrerequisiteCheckRequestDTO> prerequisiteCheckRequestBody){
+        return courseService.checkPrerequisites(prerequisiteCheckRequestBody, courseId)
+                .map(check -> ResponseEntity.ok().body(check));
+    }
 }
@@ -1,10 +1,13 @@
 package com.champlain.courseservice.presentationlayer;
 
+import com.champlain.courseservice.dataaccesslayer.MeetingSlot;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -16,6 +19,9 @@ public class CourseRequestDTO {
     private Integer numHours;
     private Double numCredits;
     private String department;
+    private Integer capacity;
+    private List<String> prerequisiteCourseIds;
+    private List<MeetingSlot> meetingSlots;
 
 
 }
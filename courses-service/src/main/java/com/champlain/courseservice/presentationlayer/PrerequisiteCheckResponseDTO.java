@@ -0,0 +1,20 @@
+package com.champlain.courseservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrerequisiteCheckResponseDTO {
+
+    private String courseId;
+    private boolean satisfied;
+    private List<String> missingCourseIds;
+
+}
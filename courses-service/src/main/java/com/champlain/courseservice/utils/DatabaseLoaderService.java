@@ -3,12 +3,16 @@ package com.champlain.courseservice.utils;
 
 import com.champlain.courseservice.dataaccesslayer.Course;
 import com.champlain.courseservice.dataaccesslayer.CourseRepository;
+import com.champlain.courseservice.dataaccesslayer.MeetingSlot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -27,6 +31,11 @@ public class DatabaseLoaderService implements CommandLineRunner {
                 .department("Department")
                 .numHours(70)
                 .numCredits(5.00)
+                .capacity(30)
+                .seatsTaken(0)
+                .meetingSlots(List.of(
+                        new MeetingSlot(DayOfWeek.MONDAY, LocalTime.of(8, 30), LocalTime.of(11, 30)),
+                        new MeetingSlot(DayOfWeek.WEDNESDAY, LocalTime.of(8, 30), LocalTime.of(11, 30))))
                 .build();
 
         Course course2 = Course
@@ -37,6 +46,10 @@ public class DatabaseLoaderService implements CommandLineRunner {
                 .department("Department")
                 .numHours(40)
                 .numCredits(3.00)
+                .capacity(40)
+                .seatsTaken(0)
+                .meetingSlots(List.of(
+                        new MeetingSlot(DayOfWeek.TUESDAY, LocalTime.of(13, 0), LocalTime.of(15, 0))))
                 .build();
 
 
@@ -1,6 +1,7 @@
 package com.champlain.courseservice.utils;
 
 
+import com.champlain.courseservice.utils.exceptions.ConflictException;
 import com.champlain.courseservice.utils.exceptions.InvalidInputException;
 import com.champlain.courseservice.utils.exceptions.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
@@ -29,6 +31,12 @@ public class GlobalControllerExceptionHandler {
         return createHttpErrorInfo(UNPROCESSABLE_ENTITY, request, ex);
     }
 
+    @ResponseStatus(CONFLICT)
+    @ExceptionHandler(ConflictException.class)
+    public HttpErrorInfo handleConflictException(ServerHttpRequest request, Exception ex) {
+        return createHttpErrorInfo(CONFLICT, request, ex);
+    }
+
     private HttpErrorInfo createHttpErrorInfo(HttpStatus httpStatus, ServerHttpRequest request, Exception ex) {
        //final String path = request.getDescription(false);
 
@@ -2,9 +2,13 @@ package com.champlain.courseservice.businesslayer;
 
 import com.champlain.courseservice.dataaccesslayer.Course;
 import com.champlain.courseservice.dataaccesslayer.CourseRepository;
+import com.champlain.courseservice.dataaccesslayer.MeetingSlot;
 import com.champlain.courseservice.presentationlayer.CourseRequestDTO;
 import com.champlain.courseservice.presentationlayer.CourseResponseDTO;
+import com.champlain.courseservice.presentationlayer.PrerequisiteCheckRequestDTO;
+import com.champlain.courseservice.utils.exceptions.ConflictException;
 import com.champlain.courseservice.utils.exceptions.InvalidInputException;
+import com.champlain.courseservice.utils.exceptions.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -13,11 +17,17 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +37,9 @@ class CourseServiceUnitTest {
     @Autowired
     CourseService courseService;
 
+    @Autowired
+    PrerequisiteGraph prerequisiteGraph;
+
     @MockBean
     private CourseRepository courseRepository;
 
@@ -143,16 +156,10 @@ class CourseServiceUnitTest {
         CourseRequestDTO courseRequestDTO = CourseRequestDTO.builder()
                 .build();
 
-        Course existingCourse = Course.builder()
-                .courseId(validCourseId)
-                .id("123")
-                .build();
-
         Course updatedCourseEntity = Course.builder()
                 .build();
 
-        when(courseRepository.findCourseByCourseId(validCourseId)).thenReturn(Mono.just(existingCourse));
-        when(courseRepository.save(any(Course.class))).thenReturn(Mono.just(updatedCourseEntity));
+        when(courseRepository.updateCourseByCourseId(eq(validCourseId), any(Course.class))).thenReturn(Mono.just(updatedCourseEntity));
 
         //act and assert
         StepVerifier
@@ -181,14 +188,8 @@ class CourseServiceUnitTest {
         //arrange
         String courseIdToDelete = uuid1;
 
-        when(courseRepository.delete(any(Course.class)))
-                .thenReturn(Mono.empty());
-
-        when(courseRepository.findCourseByCourseId(courseIdToDelete))
-                .thenReturn(Mono.just(new Course()));
-
-        when(courseRepository.deleteById(anyString()))
-                .thenReturn(Mono.empty());
+        when(courseRepository.deleteCourseByCourseId(courseIdToDelete))
+                .thenReturn(Mono.just(1L));
 
         //act
         Mono<Void> courseDelete = courseService.deleteCourseById(courseIdToDelete);
@@ -199,5 +200,193 @@ class CourseServiceUnitTest {
                 .verifyComplete();
     }
 
+    @Test
+    void deleteCourse_unknownId_shouldThrowNotFoundException() {
+        //arrange
+        String unknownCourseId = UUID.randomUUID().toString();
+
+        when(courseRepository.deleteCourseByCourseId(unknownCourseId))
+                .thenReturn(Mono.just(0L));
+
+        //act and assert
+        StepVerifier
+                .create(courseService.deleteCourseById(unknownCourseId))
+                .expectErrorMatches(exception -> exception instanceof NotFoundException &&
+                        exception.getMessage().equals("No course with this courseId was found: " + unknownCourseId))
+                .verify();
+    }
+
+    @Test
+    void reserveSeats_seatsLeft_shouldReturnCourseWithSeatsTaken() {
+        //arrange
+        Course reservedCourse = Course.builder()
+                .courseId(uuid1)
+                .capacity(30)
+                .seatsTaken(3)
+                .build();
+
+        when(courseRepository.reserveSeats(uuid1, 3))
+                .thenReturn(Mono.just(reservedCourse));
+
+        //act and assert
+        StepVerifier
+                .create(courseService.reserveSeats(uuid1, 3))
+                .consumeNextWith(foundCourse -> {
+                    assertEquals(30, foundCourse.getCapacity());
+                    assertEquals(3, foundCourse.getSeatsTaken());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void reserveSeats_courseFull_shouldThrowConflictException() {
+        //arrange
+        when(courseRepository.reserveSeats(uuid1, 1))
+                .thenReturn(Mono.empty());
+        when(courseRepository.findCourseByCourseId(uuid1))
+                .thenReturn(Mono.just(course));
+
+        //act and assert
+        StepVerifier
+                .create(courseService.reserveSeats(uuid1, 1))
+                .expectErrorMatches(exception -> exception instanceof ConflictException &&
+                        exception.getMessage().equals("Not enough seats left in course: " + uuid1))
+                .verify();
+    }
+
+    @Test
+    void reserveSeats_unknownCourse_shouldThrowNotFoundException() {
+        //arrange
+        when(courseRepository.reserveSeats(uuid1, 1))
+                .thenReturn(Mono.empty());
+        when(courseRepository.findCourseByCourseId(uuid1))
+                .thenReturn(Mono.empty());
+
+        //act and assert
+        StepVerifier
+                .create(courseService.reserveSeats(uuid1, 1))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void updateCourseById_cyclicPrerequisites_shouldThrowInvalidInputException() {
+        //arrange
+        String prerequisiteCourseId = UUID.randomUUID().toString();
+        prerequisiteGraph.setPrerequisites(prerequisiteCourseId, List.of(uuid1));
+
+        when(courseRepository.countByCourseIdIn(List.of(prerequisiteCourseId)))
+                .thenReturn(Mono.just(1L));
+
+        CourseRequestDTO courseRequestDTO = CourseRequestDTO.builder()
+                .prerequisiteCourseIds(List.of(prerequisiteCourseId))
+                .build();
+
+        //act and assert
+        StepVerifier
+                .create(courseService.updateCourseById(Mono.just(courseRequestDTO), uuid1))
+                .expectErrorMatches(exception -> exception instanceof InvalidInputException &&
+                        exception.getMessage().equals("Prerequisite " + prerequisiteCourseId + " would create a cycle with course: " + uuid1))
+                .verify();
+        verify(courseRepository, never()).updateCourseByCourseId(anyString(), any(Course.class));
+    }
+
+    @Test
+    void updateCourseById_unknownCourse_shouldLeaveItUnknownToTheGraph() {
+        //arrange
+        String unknownCourseId = UUID.randomUUID().toString();
+        String prerequisiteCourseId = UUID.randomUUID().toString();
+
+        when(courseRepository.countByCourseIdIn(List.of(prerequisiteCourseId)))
+                .thenReturn(Mono.just(1L));
+        when(courseRepository.updateCourseByCourseId(eq(unknownCourseId), any(Course.class)))
+                .thenReturn(Mono.empty());
+
+        CourseRequestDTO courseRequestDTO = CourseRequestDTO.builder()
+                .prerequisiteCourseIds(List.of(prerequisiteCourseId))
+                .build();
+
+        //act and assert
+        StepVerifier
+                .create(courseService.updateCourseById(Mono.just(courseRequestDTO), unknownCourseId))
+                .verifyComplete();
+        assertTrue(prerequisiteGraph.missingPrerequisites(unknownCourseId, List.of()).isEmpty());
+    }
+
+    @Test
+    void checkPrerequisites_missingTransitivePrerequisite_shouldReportIt() {
+        //arrange
+        String firstCourseId = UUID.randomUUID().toString();
+        String secondCourseId = UUID.randomUUID().toString();
+        prerequisiteGraph.setPrerequisites(firstCourseId, List.of());
+        prerequisiteGraph.setPrerequisites(secondCourseId, List.of(firstCourseId));
+        prerequisiteGraph.setPrerequisites(uuid1, List.of(secondCourseId));
+
+        //act and assert
+        StepVerifier
+                .create(courseService.checkPrerequisites(Mono.just(PrerequisiteCheckRequestDTO.builder()
+                        .completedCourseIds(List.of(secondCourseId))
+                        .build()), uuid1))
+                .consumeNextWith(check -> {
+                    assertEquals(uuid1, check.getCourseId());
+                    assertFalse(check.isSatisfied());
+                    assertEquals(List.of(firstCourseId), check.getMissingCourseIds());
+                })
+                .verifyComplete();
+        verify(courseRepository, never()).findAllByCourseIdIn(any());
+    }
+
+    @Test
+    void checkPrerequisites_prerequisiteNotLoadedYet_shouldReadItFromTheDatabase() {
+        //arrange
+        String firstCourseId = UUID.randomUUID().toString();
+        String secondCourseId = UUID.randomUUID().toString();
+        prerequisiteGraph.setPrerequisites(uuid1, List.of(secondCourseId));
+
+        when(courseRepository.findAllByCourseIdIn(List.of(secondCourseId)))
+                .thenReturn(Flux.just(Course.builder().courseId(secondCourseId).prerequisiteCourseIds(List.of(firstCourseId)).build()));
+        when(courseRepository.findAllByCourseIdIn(List.of(firstCourseId)))
+                .thenReturn(Flux.just(Course.builder().courseId(firstCourseId).build()));
+
+        //act and assert
+        StepVerifier
+                .create(courseService.checkPrerequisites(Mono.just(PrerequisiteCheckRequestDTO.builder()
+                        .completedCourseIds(List.of(firstCourseId))
+                        .build()), uuid1))
+                .consumeNextWith(check -> {
+                    assertFalse(check.isSatisfied());
+                    assertEquals(List.of(secondCourseId), check.getMissingCourseIds());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void checkPrerequisites_unknownCourse_shouldThrowNotFoundException() {
+        //arrange
+        when(courseRepository.findAllByCourseIdIn(List.of(uuid1)))
+                .thenReturn(Flux.empty());
+
+        //act and assert
+        StepVerifier
+                .create(courseService.checkPrerequisites(Mono.just(new PrerequisiteCheckRequestDTO()), uuid1))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void addCourse_meetingSlotEndingBeforeItStarts_shouldThrowInvalidInputException() {
+        //arrange
+        CourseRequestDTO courseRequestDTO = CourseRequestDTO.builder()
+                .courseName("Final Project 1")
+                .meetingSlots(List.of(new MeetingSlot(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(9, 0))))
+                .build();
+
+        //act and assert
+        StepVerifier
+                .create(courseService.addCourse(Mono.just(courseRequestDTO)))
+                .expectError(InvalidInputException.class)
+                .verify();
+        verify(courseRepository, never()).insert(any(Course.class));
+    }
 
-}
\ No newline at end of file
+}
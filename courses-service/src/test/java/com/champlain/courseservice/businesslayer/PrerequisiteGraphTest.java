@@ -0,0 +1,160 @@
+package com.champlain.courseservice.businesslayer;
+
+import com.champlain.courseservice.utils.exceptions.InvalidInputException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class PrerequisiteGraphTest {
+
+    PrerequisiteGraph prerequisiteGraph = new PrerequisiteGraph(null);
+
+    @Test
+    void missingPrerequisites_chain_shouldIncludeTransitivePrerequisites() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("programming1", List.of());
+        prerequisiteGraph.setPrerequisites("databases", List.of());
+        prerequisiteGraph.setPrerequisites("programming2", List.of("programming1"));
+        prerequisiteGraph.setPrerequisites("webServices", List.of("programming2", "databases"));
+
+        //act and assert
+        assertEquals(Set.of("programming1", "programming2", "databases"),
+                Set.copyOf(prerequisiteGraph.missingPrerequisites("webServices", List.of()).orElseThrow()));
+        assertEquals(List.of("programming1"),
+                prerequisiteGraph.missingPrerequisites("webServices", List.of("programming2", "databases")).orElseThrow());
+        assertEquals(List.of(),
+                prerequisiteGraph.missingPrerequisites("webServices", List.of("programming1", "programming2", "databases")).orElseThrow());
+        assertTrue(prerequisiteGraph.missingPrerequisites("unknownCourse", List.of()).isEmpty());
+    }
+
+    @Test
+    void setPrerequisites_changedEdge_shouldUpdateDependentClosures() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("introduction", List.of());
+        prerequisiteGraph.setPrerequisites("programming1", List.of());
+        prerequisiteGraph.setPrerequisites("programming2", List.of("programming1"));
+        prerequisiteGraph.setPrerequisites("webServices", List.of("programming2"));
+
+        //act
+        List<String> previous = prerequisiteGraph.setPrerequisites("programming2", List.of("introduction"));
+
+        //assert
+        assertEquals(List.of("programming1"), previous);
+        assertEquals(Set.of("introduction", "programming2"),
+                Set.copyOf(prerequisiteGraph.missingPrerequisites("webServices", List.of()).orElseThrow()));
+    }
+
+    @Test
+    void setPrerequisites_cycle_shouldThrowInvalidInputExceptionAndKeepGraph() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("programming1", List.of());
+        prerequisiteGraph.setPrerequisites("programming2", List.of("programming1"));
+        prerequisiteGraph.setPrerequisites("programming3", List.of("programming2"));
+
+        //act and assert
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> prerequisiteGraph.setPrerequisites("programming1", List.of("programming3")));
+        assertEquals("Prerequisite programming3 would create a cycle with course: programming1", exception.getMessage());
+        assertThrows(InvalidInputException.class,
+                () -> prerequisiteGraph.setPrerequisites("programming1", List.of("programming1")));
+        assertEquals(List.of(), prerequisiteGraph.missingPrerequisites("programming1", List.of()).orElseThrow());
+        assertEquals(Set.of("programming1", "programming2"),
+                Set.copyOf(prerequisiteGraph.missingPrerequisites("programming3", List.of()).orElseThrow()));
+    }
+
+    @Test
+    void validatePrerequisites_cycle_shouldThrowWithoutAddingTheCourse() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("programming2", List.of("programming1"));
+
+        //act and assert
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> prerequisiteGraph.validatePrerequisites("programming1", List.of("programming2")));
+        assertEquals("Prerequisite programming2 would create a cycle with course: programming1", exception.getMessage());
+        prerequisiteGraph.validatePrerequisites("webServices", List.of("programming2"));
+        assertEquals(List.of("webServices"), prerequisiteGraph.unloadedCourses("webServices"));
+        assertTrue(prerequisiteGraph.missingPrerequisites("webServices", List.of()).isEmpty());
+    }
+
+    @Test
+    void missingPrerequisites_prerequisiteNotLoadedYet_shouldBeUnknown() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("webServices", List.of("programming2"));
+
+        //act and assert
+        assertTrue(prerequisiteGraph.missingPrerequisites("programming2", List.of()).isEmpty());
+        assertTrue(prerequisiteGraph.missingPrerequisites("webServices", List.of()).isEmpty());
+        assertEquals(List.of("programming2"), prerequisiteGraph.unloadedCourses("webServices"));
+
+        prerequisiteGraph.loadPrerequisites("programming2", List.of());
+        assertEquals(List.of("programming2"), prerequisiteGraph.missingPrerequisites("webServices", List.of()).orElseThrow());
+        assertEquals(List.of(), prerequisiteGraph.unloadedCourses("webServices"));
+    }
+
+    @Test
+    void loadPrerequisites_afterAWrite_shouldKeepTheWrittenPrerequisites() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("programming1", List.of());
+        prerequisiteGraph.setPrerequisites("webServices", List.of("programming1"));
+
+        //act
+        prerequisiteGraph.loadPrerequisites("webServices", List.of());
+
+        //assert
+        assertEquals(List.of("programming1"), prerequisiteGraph.missingPrerequisites("webServices", List.of()).orElseThrow());
+    }
+
+    @Test
+    void remove_requiredCourse_shouldMakeItsDependentsUnknown() {
+        //arrange
+        prerequisiteGraph.setPrerequisites("programming1", List.of());
+        prerequisiteGraph.setPrerequisites("programming2", List.of("programming1"));
+
+        //act
+        prerequisiteGraph.remove("programming1");
+
+        //assert
+        assertTrue(prerequisiteGraph.missingPrerequisites("programming1", List.of()).isEmpty());
+        assertTrue(prerequisiteGraph.missingPrerequisites("programming2", List.of()).isEmpty());
+    }
+
+    @Test
+    void missingPrerequisites_eightThousandCourseCatalog_shouldAnswerInMicroseconds() {
+        //arrange
+        int courses = 8_000;
+        Random random = new Random(42);
+        for (int course = 0; course < courses; course++) {
+            List<String> prerequisites = new ArrayList<>();
+            for (int i = 0; i < Math.min(course, 3); i++) {
+                prerequisites.add("course" + random.nextInt(course));
+            }
+            prerequisiteGraph.setPrerequisites("course" + course, prerequisites);
+        }
+        List<String> completed = new ArrayList<>();
+        for (int course = 0; course < 40; course++) {
+            completed.add("course" + random.nextInt(courses));
+        }
+
+        //act
+        int checks = 100_000;
+        long missing = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            missing += prerequisiteGraph.missingPrerequisites("course" + (i % courses), completed).orElseThrow().size();
+        }
+        double microsPerCheck = (System.nanoTime() - start) / 1_000.0 / checks;
+        log.info("{} prerequisite checks over {} courses: {} µs per check ({} missing prerequisites in total)",
+                checks, courses, String.format("%.2f", microsPerCheck), missing);
+
+        //assert
+        assertTrue(microsPerCheck < 500, "prerequisite check took " + microsPerCheck + " µs");
+    }
+
+}
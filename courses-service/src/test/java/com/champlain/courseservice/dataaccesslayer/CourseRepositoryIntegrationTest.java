@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -86,6 +87,80 @@ class CourseRepositoryIntegrationTest {
         StepVerifier.create(courseRepository.findCourseByCourseId("fakeId")).expectNextCount(0).verifyComplete();
     }
 
+    @Test
+    public void updateCourseByCourseId_validId_shouldReturnUpdatedCourse(){
+        //arrange
+        Course update = buildCourse("updatedCourseName", null);
+
+        //act and assert
+        StepVerifier.create(courseRepository.updateCourseByCourseId(course1.getCourseId(), update))
+                .assertNext(course -> {
+                    assertThat(course.getId()).isEqualTo(course1.getId());
+                    assertThat(course.getCourseId()).isEqualTo(course1.getCourseId());
+                    assertThat(course.getCourseName()).isEqualTo("updatedCourseName");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void updateCourseByCourseId_invalidId_shouldReturnNone(){
+        //act and assert
+        StepVerifier.create(courseRepository.updateCourseByCourseId("fakeId", buildCourse("updatedCourseName", null)))
+                .expectNextCount(0)
+                .verifyComplete();
+    }
+
+    @Test
+    public void deleteCourseByCourseId_shouldReturnDeletedCount(){
+        //act and assert
+        StepVerifier.create(courseRepository.deleteCourseByCourseId(course1.getCourseId()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(courseRepository.deleteCourseByCourseId(course1.getCourseId()))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void reserveSeats_concurrentRequests_shouldNeverExceedCapacity(){
+        //arrange
+        Course course = buildCourse("courseName04", "courseId04");
+        course.setCapacity(10);
+        course.setSeatsTaken(0);
+        StepVerifier.create(courseRepository.save(course)).expectNextCount(1).verifyComplete();
+
+        //act
+        Flux<Course> reservations = Flux.range(0, 200)
+                .flatMap(i -> courseRepository.reserveSeats("courseId04", 1), 200);
+
+        //assert
+        StepVerifier.create(reservations)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        StepVerifier.create(courseRepository.findCourseByCourseId("courseId04"))
+                .assertNext(found -> assertThat(found.getSeatsTaken()).isEqualTo(10))
+                .verifyComplete();
+    }
+
+    @Test
+    public void releaseSeats_moreThanTaken_shouldReturnNone(){
+        //arrange
+        Course course = buildCourse("courseName05", "courseId05");
+        course.setCapacity(10);
+        course.setSeatsTaken(1);
+        StepVerifier.create(courseRepository.save(course)).expectNextCount(1).verifyComplete();
+
+        //act and assert
+        StepVerifier.create(courseRepository.releaseSeats("courseId05", 2))
+                .expectNextCount(0)
+                .verifyComplete();
+        StepVerifier.create(courseRepository.releaseSeats("courseId05", 1))
+                .assertNext(found -> assertThat(found.getSeatsTaken()).isEqualTo(0))
+                .verifyComplete();
+    }
+
     private Course buildCourse(String courseName, String courseId){
         return Course.builder()
                 .courseName(courseName)
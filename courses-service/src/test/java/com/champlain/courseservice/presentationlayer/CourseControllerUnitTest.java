@@ -1,6 +1,7 @@
 package com.champlain.courseservice.presentationlayer;
 
 import com.champlain.courseservice.businesslayer.CourseService;
+import com.champlain.courseservice.utils.exceptions.ConflictException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
@@ -105,4 +106,24 @@ class CourseControllerUnitTest {
                 .getCourseById(notFoundId);
     }
 
-}
\ No newline at end of file
+    @Test
+    void reserveSeats_courseFull_shouldReturnConflict() {
+        //arrange
+        when(courseService.reserveSeats(uuid1, 1))
+                .thenReturn(Mono.error(new ConflictException("Not enough seats left in course: " + uuid1)));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/courses/{courseId}/seats", uuid1)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Not enough seats left in course: " + uuid1);
+
+        verify(courseService, times(1))
+                .reserveSeats(uuid1, 1);
+    }
+
+}
@@ -1,12 +1,12 @@
 package com.champlain.enrollmentsservice;
 
+import com.champlain.enrollmentsservice.dataaccesslayer.SchemaMigrations;
 import io.r2dbc.spi.ConnectionFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
-import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
 import org.springframework.web.reactive.config.EnableWebFlux;
 
 @EnableWebFlux
@@ -18,7 +18,7 @@ public class EnrollmentsServiceApplication {
 
 		ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
 		initializer.setConnectionFactory(connectionFactory);
-		initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")));
+		initializer.setDatabasePopulator(new SchemaMigrations(new PathMatchingResourcePatternResolver()));
 
 		return initializer;
 	}
@@ -0,0 +1,81 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.CourseTermCountRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps course_term_counts in step with the enrollments table. Like StudentTermLoadTracker, every method must
+// run inside the transaction that writes the enrollment rows, so the counts and the rows commit or roll back
+// together. Rows without a course or a term are not counted.
+@Component
+@RequiredArgsConstructor
+public class CourseTermCounter {
+
+    private final CourseTermCountRepository courseTermCountRepository;
+
+    public Mono<Void> increment(Enrollment enrollment) {
+        return incrementAll(List.of(enrollment));
+    }
+
+    // the enrollments of each course and term in the list are added with one UPDATE
+    public Mono<Void> incrementAll(List<Enrollment> enrollments) {
+        Map<CourseTerm, Integer> enrollmentsByCourseTerm = new LinkedHashMap<>();
+        enrollments.stream()
+                .map(CourseTerm::of)
+                .filter(CourseTerm::isComplete)
+                .forEach(courseTerm -> enrollmentsByCourseTerm.merge(courseTerm, 1, Integer::sum));
+        return Flux.fromIterable(enrollmentsByCourseTerm.entrySet())
+                .concatMap(count -> add(count.getKey(), count.getValue()))
+                .then();
+    }
+
+    public Mono<Void> decrement(Enrollment enrollment) {
+        CourseTerm courseTerm = CourseTerm.of(enrollment);
+        return courseTerm.isComplete() ? add(courseTerm, -1) : Mono.empty();
+    }
+
+    // an update that keeps the course and term leaves the counts alone
+    public Mono<Void> move(Enrollment previous, Enrollment updated) {
+        if (CourseTerm.of(previous).equals(CourseTerm.of(updated))) {
+            return Mono.empty();
+        }
+        return decrement(previous).then(Mono.defer(() -> increment(updated)));
+    }
+
+    // The first enrollment of a course and term inserts the row; every later change is a single UPDATE on the
+    // (courseId, enrollmentYear, semester) index. Two first enrollments racing on the insert fail the loser's
+    // transaction rather than losing a count.
+    private Mono<Void> add(CourseTerm courseTerm, int delta) {
+        String semester = courseTerm.semester().name();
+        return courseTermCountRepository.addToCount(courseTerm.courseId(), courseTerm.enrollmentYear(), semester, delta)
+                .flatMap(updatedCount -> updatedCount > 0 || delta < 0
+                        ? Mono.just(updatedCount)
+                        : courseTermCountRepository.insertCourseTermCount(courseTerm.courseId(), courseTerm.enrollmentYear(), semester, delta))
+                .onErrorMap(DataIntegrityViolationException.class, violation -> new ConflictException(
+                        "Enrollment count of course " + courseTerm.courseId() + " is being updated concurrently, try again", violation))
+                .then();
+    }
+
+    private record CourseTerm(String courseId, Integer enrollmentYear, Semester semester) {
+
+        static CourseTerm of(Enrollment enrollment) {
+            return new CourseTerm(enrollment.getCourseId(), enrollment.getEnrollmentYear(), enrollment.getSemester());
+        }
+
+        boolean isComplete() {
+            return courseId != null && enrollmentYear != null && semester != null;
+        }
+
+    }
+
+}
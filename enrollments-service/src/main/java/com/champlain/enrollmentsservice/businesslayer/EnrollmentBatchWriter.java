@@ -0,0 +1,61 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrollmentBatchWriter {
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentTermLoadTracker studentTermLoadTracker;
+    private final CourseTermCounter courseTermCounter;
+    private final TransactionalOperator transactionalOperator;
+
+    // the student's credit load and the course's count are updated in the same transaction as the row
+    public Mono<Enrollment> save(Enrollment enrollment) {
+        return studentTermLoadTracker.charge(enrollment)
+                .then(Mono.defer(() -> courseTermCounter.increment(enrollment)))
+                .then(Mono.defer(() -> enrollmentRepository.save(enrollment)))
+                .as(transactionalOperator::transactional);
+    }
+
+    // The whole batch goes out as one multi-row INSERT in one transaction, together with one credit load
+    // update per student and term and one count update per course and term. If that is rolled back, the
+    // rows are retried one per transaction so a single bad row only fails itself.
+    public Flux<EnrollmentWriteResult> write(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return Flux.empty();
+        }
+        return studentTermLoadTracker.chargeAll(enrollments)
+                .then(Mono.defer(() -> courseTermCounter.incrementAll(enrollments)))
+                .thenMany(Flux.defer(() -> enrollmentRepository.insertAll(enrollments)))
+                .as(transactionalOperator::transactional)
+                .map(EnrollmentWriteResult::success)
+                .onErrorResume(error -> {
+                    log.debug("Batch of {} enrollments rolled back, retrying row by row: {}", enrollments.size(), error.getMessage());
+                    enrollments.forEach(enrollment -> enrollment.setId(null));
+                    return Flux.fromIterable(enrollments).concatMap(this::writeOne);
+                });
+    }
+
+    private Mono<EnrollmentWriteResult> writeOne(Enrollment enrollment) {
+        return studentTermLoadTracker.charge(enrollment)
+                .then(Mono.defer(() -> courseTermCounter.increment(enrollment)))
+                .thenMany(Flux.defer(() -> enrollmentRepository.insertAll(List.of(enrollment))))
+                .as(transactionalOperator::transactional)
+                .next()
+                .map(EnrollmentWriteResult::success)
+                .onErrorResume(error -> Mono.just(EnrollmentWriteResult.failure(enrollment, error)));
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+
+// Told about every enrollment row written through this instance, once the write is committed. previous is null
+// for a created row and current is null for a deleted one.
+public interface EnrollmentChangeListener {
+
+    void enrollmentChanged(Enrollment previous, Enrollment current);
+
+}
@@ -0,0 +1,33 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// The write paths report their committed rows here and every EnrollmentChangeListener bean hears about them
+// synchronously, before the write is answered.
+@Component
+@RequiredArgsConstructor
+public class EnrollmentChanges {
+
+    private final List<EnrollmentChangeListener> enrollmentChangeListeners;
+
+    public void created(Enrollment enrollment) {
+        changed(null, enrollment);
+    }
+
+    public void updated(Enrollment previous, Enrollment current) {
+        changed(previous, current);
+    }
+
+    public void deleted(Enrollment enrollment) {
+        changed(enrollment, null);
+    }
+
+    private void changed(Enrollment previous, Enrollment current) {
+        enrollmentChangeListeners.forEach(listener -> listener.enrollmentChanged(previous, current));
+    }
+
+}
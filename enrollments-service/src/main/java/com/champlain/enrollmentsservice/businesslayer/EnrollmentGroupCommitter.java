@@ -0,0 +1,189 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Saves arriving within the window share one multi-row INSERT and one commit. Callers wait in a bounded queue
+// in front of a single flusher; a full queue answers 503 instead of growing, a caller still queued after
+// save-timeout gets a 503 and its row is never written, and a flusher that dies is restarted instead of leaving
+// every later save hanging. Once a row is handed to the database its caller waits for the outcome of the batch,
+// so a caller is never told its row failed while the row may still commit.
+@Slf4j
+@Component
+public class EnrollmentGroupCommitter {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final EnrollmentBatchWriter enrollmentBatchWriter;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatch;
+    private final int maxPending;
+    private final Duration flushTimeout;
+    private final Duration saveTimeout;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Counter restarts;
+
+    // guarded by this
+    private Sinks.Many<PendingEnrollment> pendingEnrollments;
+    private Disposable flusher;
+
+    public EnrollmentGroupCommitter(EnrollmentBatchWriter enrollmentBatchWriter,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.enrollments.group-commit.enabled:false}") boolean enabled,
+                                    @Value("${app.enrollments.group-commit.window:5ms}") Duration window,
+                                    @Value("${app.enrollments.group-commit.max-batch:100}") int maxBatch,
+                                    @Value("${app.enrollments.group-commit.max-pending:10000}") int maxPending,
+                                    @Value("${app.enrollments.group-commit.flush-timeout:2s}") Duration flushTimeout,
+                                    @Value("${app.enrollments.group-commit.save-timeout:10s}") Duration saveTimeout) {
+        this.enrollmentBatchWriter = enrollmentBatchWriter;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.maxPending = maxPending;
+        this.flushTimeout = flushTimeout;
+        this.saveTimeout = saveTimeout;
+        this.batchSizes = DistributionSummary.builder("enrollments.group-commit.batch.size")
+                .description("Number of enrollments written per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("enrollments.group-commit.flush")
+                .description("Time spent writing one group commit")
+                .register(meterRegistry);
+        this.restarts = Counter.builder("enrollments.group-commit.restarts")
+                .description("Times the group commit flusher failed and was restarted")
+                .register(meterRegistry);
+
+        if (enabled) {
+            startFlusher();
+        }
+    }
+
+    // Without group commit every caller gets its own INSERT; with it, each caller still gets its own row back.
+    public Mono<Enrollment> save(Enrollment enrollment) {
+        if (!enabled) {
+            return enrollmentBatchWriter.save(enrollment);
+        }
+        return Mono.create(sink -> {
+            PendingEnrollment pending = new PendingEnrollment(enrollment, sink, new AtomicBoolean());
+            sink.onCancel(pending::claim);
+            Sinks.EmitResult result = enqueue(pending);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                sink.error(new ServiceUnavailableException("Too many enrollments are waiting to be written, try again later",
+                        RETRY_AFTER_SECONDS));
+            } else if (result.isFailure()) {
+                sink.error(new ServiceUnavailableException("Enrollments cannot be written right now, try again later",
+                        RETRY_AFTER_SECONDS));
+            } else {
+                sink.onDispose(Mono.delay(saveTimeout)
+                        .filter(tick -> pending.claim())
+                        .subscribe(tick -> sink.error(new ServiceUnavailableException(
+                                "Enrollment was not written within " + saveTimeout.toMillis() + " ms, try again later", RETRY_AFTER_SECONDS))));
+            }
+        });
+    }
+
+    private synchronized Sinks.EmitResult enqueue(PendingEnrollment pending) {
+        return pendingEnrollments.tryEmitNext(pending);
+    }
+
+    // Fair bufferTimeout only closes a batch when concatMap asks for one, so a slow flush makes batches queue up
+    // in the bounded sink instead of overflowing the operator.
+    private synchronized void startFlusher() {
+        Sinks.Many<PendingEnrollment> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingEnrollment>get(maxPending).get());
+        pendingEnrollments = sink;
+        flusher = sink.asFlux()
+                .bufferTimeout(maxBatch, window, true)
+                .concatMap(this::flush)
+                .subscribe(null, error -> restartFlusher(sink, error));
+    }
+
+    // Saves still queued in the failed sink cannot be read back out of it, they are answered by save-timeout.
+    private synchronized void restartFlusher(Sinks.Many<PendingEnrollment> failed, Throwable error) {
+        log.error("Group commit flusher failed, restarting it: {}", error.getMessage(), error);
+        restarts.increment();
+        if (pendingEnrollments == failed) {
+            startFlusher();
+        }
+    }
+
+    // Only rows claimed here are written; a caller that timed out or went away first has claimed its own row. A
+    // write slower than flush-timeout keeps running and still answers its callers, the flusher just stops waiting
+    // for it so later batches are not held up behind it.
+    private Mono<Void> flush(List<PendingEnrollment> batch) {
+        List<PendingEnrollment> waiting = batch.stream()
+                .filter(PendingEnrollment::claim)
+                .toList();
+        if (waiting.isEmpty()) {
+            return Mono.empty();
+        }
+        batchSizes.record(waiting.size());
+        Map<String, MonoSink<Enrollment>> callers = new HashMap<>();
+        waiting.forEach(pending -> callers.put(pending.enrollment().getEnrollmentId(), pending.sink()));
+
+        Timer.Sample sample = Timer.start();
+        Mono<Void> written = enrollmentBatchWriter.write(waiting.stream().map(PendingEnrollment::enrollment).toList())
+                .doOnNext(result -> {
+                    MonoSink<Enrollment> caller = callers.remove(result.getEnrollment().getEnrollmentId());
+                    if (caller == null) {
+                        return;
+                    }
+                    if (result.isSuccess()) {
+                        caller.success(result.getEnrollment());
+                    } else {
+                        caller.error(result.getError());
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Group commit of {} enrollments failed: {}", waiting.size(), error.getMessage());
+                    callers.values().forEach(caller -> caller.error(error));
+                    callers.clear();
+                    return Mono.empty();
+                })
+                .doFinally(signal -> sample.stop(flushTimer))
+                .cache();
+        written.subscribe();
+        return written.timeout(flushTimeout, Mono.fromRunnable(() ->
+                log.warn("Group commit of {} enrollments is taking longer than {} ms, flushing the next batch", waiting.size(),
+                        flushTimeout.toMillis())));
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (flusher != null) {
+            pendingEnrollments.tryEmitComplete();
+            flusher.dispose();
+        }
+    }
+
+    private record PendingEnrollment(Enrollment enrollment, MonoSink<Enrollment> sink, AtomicBoolean claimed) {
+
+        // true for whoever gets the row first: the flusher handing it over, or its caller giving up on it
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+    }
+
+}
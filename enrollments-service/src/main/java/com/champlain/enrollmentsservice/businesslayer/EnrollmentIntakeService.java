@@ -0,0 +1,11 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentTicketResponseDTO;
+import reactor.core.publisher.Mono;
+
+public interface EnrollmentIntakeService {
+
+    Mono<EnrollmentTicketResponseDTO> submitEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO);
+    Mono<EnrollmentTicketResponseDTO> getTicketById(String ticketId);
+}
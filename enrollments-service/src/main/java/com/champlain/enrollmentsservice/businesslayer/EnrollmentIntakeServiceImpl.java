@@ -0,0 +1,116 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentTicketResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentTicketStatus;
+import com.champlain.enrollmentsservice.utils.BoundedLruMap;
+import com.champlain.enrollmentsservice.utils.EnrollmentRequestValidator;
+import com.champlain.enrollmentsservice.utils.EntityDTOUtils;
+import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+import com.champlain.enrollmentsservice.utils.exceptions.NotFoundException;
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class EnrollmentIntakeServiceImpl implements EnrollmentIntakeService {
+
+    private final EnrollmentService enrollmentService;
+    private final int capacity;
+    private final Duration retryAfter;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<String, EnrollmentTicketResponseDTO> tickets;
+
+    private FluxSink<EnrollmentTicket> intakeQueue;
+    private final Disposable workers;
+
+    public EnrollmentIntakeServiceImpl(EnrollmentService enrollmentService,
+                                       @Value("${app.enrollments.intake.capacity:10000}") int capacity,
+                                       @Value("${app.enrollments.intake.concurrency:16}") int concurrency,
+                                       @Value("${app.enrollments.intake.retry-after:5s}") Duration retryAfter,
+                                       @Value("${app.enrollments.intake.ticket-retention:100000}") int ticketRetention) {
+        this.enrollmentService = enrollmentService;
+        this.capacity = capacity;
+        this.retryAfter = retryAfter;
+        this.tickets = Collections.synchronizedMap(new BoundedLruMap<>(ticketRetention));
+
+        // flatMap only requests as many tickets as there are free workers, the rest wait in the sink's buffer
+        this.workers = Flux.<EnrollmentTicket>create(sink -> this.intakeQueue = sink)
+                .flatMap(this::process, concurrency)
+                .subscribe();
+    }
+
+    @Override
+    public Mono<EnrollmentTicketResponseDTO> submitEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO) {
+        return enrollmentRequestDTO
+                .filter(EnrollmentRequestValidator::isComplete)
+                .switchIfEmpty(Mono.error(new InvalidInputException(EnrollmentRequestValidator.MISSING_FIELDS_MESSAGE)))
+                .map(request -> {
+                    if (queued.incrementAndGet() > capacity) {
+                        queued.decrementAndGet();
+                        throw new ServiceUnavailableException("Enrollment intake queue is full, try again later",
+                                retryAfter.toSeconds());
+                    }
+                    EnrollmentTicketResponseDTO ticket = EnrollmentTicketResponseDTO.builder()
+                            .ticketId(EntityDTOUtils.generateUUIDString())
+                            .status(EnrollmentTicketStatus.QUEUED)
+                            .build();
+                    tickets.put(ticket.getTicketId(), ticket);
+                    intakeQueue.next(new EnrollmentTicket(ticket.getTicketId(), request));
+                    return ticket;
+                });
+    }
+
+    @Override
+    public Mono<EnrollmentTicketResponseDTO> getTicketById(String ticketId) {
+        return Mono.justOrEmpty(tickets.get(ticketId))
+                .switchIfEmpty(Mono.error(new NotFoundException("No ticket with this ticketId was found: " + ticketId)));
+    }
+
+    private Mono<Void> process(EnrollmentTicket ticket) {
+        queued.decrementAndGet();
+        updateTicket(ticket.ticketId(), EnrollmentTicketStatus.PROCESSING, null, null);
+        return enrollmentService.addEnrollment(Mono.just(ticket.enrollmentRequestDTO()))
+                .doOnNext(enrollment -> updateTicket(ticket.ticketId(), EnrollmentTicketStatus.COMPLETED,
+                        enrollment.getEnrollmentId(), null))
+                .switchIfEmpty(Mono.fromRunnable(() -> updateTicket(ticket.ticketId(), EnrollmentTicketStatus.FAILED,
+                        null, "Enrollment could not be created")))
+                .onErrorResume(error -> {
+                    updateTicket(ticket.ticketId(), EnrollmentTicketStatus.FAILED, null,
+                            error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void updateTicket(String ticketId, EnrollmentTicketStatus status, String enrollmentId, String error) {
+        tickets.put(ticketId, EnrollmentTicketResponseDTO.builder()
+                .ticketId(ticketId)
+                .status(status)
+                .enrollmentId(enrollmentId)
+                .error(error)
+                .build());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        intakeQueue.complete();
+        workers.dispose();
+    }
+
+    private record EnrollmentTicket(String ticketId, EnrollmentRequestDTO enrollmentRequestDTO) {
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentResponseDTO;
+import com.champlain.enrollmentsservice.utils.BoundedLruMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Results of recent GET /enrollments listings, keyed by the parsed filter and page so the order of the query
+// parameters does not matter. Only listings scoped to a student or bounded by a limit are kept; unbounded scans
+// keep streaming from the database. Every write that goes through this instance drops exactly the entries whose
+// filter matches the written row. Each entry is indexed under the most selective filter it sets (studentId, then
+// courseId, enrollmentYear and semester), so a write only looks at the entries of its own student, course, year
+// and semester and at the unfiltered pages, never at the whole cache.
+@Component
+public class EnrollmentListingCache implements EnrollmentChangeListener {
+
+    private final Duration timeToLive;
+    private final Map<ListingKey, CachedListing> listings;
+    private final Map<Scope, Set<ListingKey>> keysByScope = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidations;
+
+    public EnrollmentListingCache(MeterRegistry meterRegistry,
+                                  @Value("${app.enrollments.listing-cache.max-size:10000}") int maxSize,
+                                  @Value("${app.enrollments.listing-cache.ttl:30s}") Duration timeToLive) {
+        this.timeToLive = timeToLive;
+        this.listings = new BoundedLruMap<>(maxSize) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ListingKey, CachedListing> eldest) {
+                boolean evict = super.removeEldestEntry(eldest);
+                if (evict) {
+                    unindex(eldest.getKey());
+                    sizeEvictions.increment();
+                }
+                return evict;
+            }
+        };
+        this.hits = Counter.builder("enrollments.listing.cache.gets")
+                .description("Listings answered from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("enrollments.listing.cache.gets")
+                .description("Listings read from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.sizeEvictions = Counter.builder("enrollments.listing.cache.evictions")
+                .description("Listings evicted to stay within the maximum size")
+                .tag("cause", "size")
+                .register(meterRegistry);
+        this.expiredEvictions = Counter.builder("enrollments.listing.cache.evictions")
+                .description("Listings evicted because they were older than the time to live")
+                .tag("cause", "expired")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("enrollments.listing.cache.invalidations")
+                .description("Listings dropped because a write changed one of their rows")
+                .register(meterRegistry);
+        Gauge.builder("enrollments.listing.cache.size", this, EnrollmentListingCache::size)
+                .description("Listings currently cached")
+                .register(meterRegistry);
+        Gauge.builder("enrollments.listing.cache.hit.ratio", this, EnrollmentListingCache::hitRatio)
+                .description("Share of listings answered from the cache")
+                .register(meterRegistry);
+    }
+
+    // concurrent requests for a listing that is not cached yet share one query
+    public Flux<EnrollmentResponseDTO> listing(EnrollmentFilter enrollmentFilter, EnrollmentPage enrollmentPage,
+                                               Supplier<Flux<EnrollmentResponseDTO>> query) {
+        if (enrollmentFilter.getStudentId() == null && enrollmentPage.getLimit() == null) {
+            return query.get();
+        }
+        ListingKey key = new ListingKey(enrollmentFilter, enrollmentPage);
+        return Flux.defer(() -> {
+            CachedListing cached;
+            synchronized (this) {
+                cached = listings.get(key);
+                if (cached != null && cached.expiresAt() - System.nanoTime() <= 0) {
+                    remove(key);
+                    expiredEvictions.increment();
+                    cached = null;
+                }
+                if (cached == null) {
+                    misses.increment();
+                    cached = new CachedListing(query.get()
+                            .collectList()
+                            .doOnError(error -> invalidate(key))
+                            .cache(), System.nanoTime() + timeToLive.toNanos());
+                    listings.put(key, cached);
+                    index(key);
+                } else {
+                    hits.increment();
+                }
+            }
+            return cached.enrollments().flatMapIterable(enrollments -> enrollments);
+        });
+    }
+
+    @Override
+    public void enrollmentChanged(Enrollment previous, Enrollment current) {
+        invalidate(previous, current);
+    }
+
+    // the rows as they were before and as they are after the write
+    public void invalidate(Enrollment... enrollments) {
+        synchronized (this) {
+            for (Enrollment enrollment : enrollments) {
+                if (enrollment == null) {
+                    continue;
+                }
+                List<ListingKey> matching = new ArrayList<>();
+                for (Scope scope : Scope.of(enrollment)) {
+                    collectMatching(keysByScope.get(scope), enrollment, matching);
+                }
+                matching.forEach(this::remove);
+                invalidations.increment(matching.size());
+            }
+        }
+    }
+
+    // for tests whose repository answers change underneath the cache
+    synchronized void clear() {
+        listings.clear();
+        keysByScope.clear();
+    }
+
+    private synchronized void invalidate(ListingKey key) {
+        remove(key);
+    }
+
+    private static void collectMatching(Set<ListingKey> keys, Enrollment enrollment, List<ListingKey> matching) {
+        if (keys != null) {
+            keys.stream().filter(key -> key.matches(enrollment)).forEach(matching::add);
+        }
+    }
+
+    private void remove(ListingKey key) {
+        if (listings.remove(key) != null) {
+            unindex(key);
+        }
+    }
+
+    private void index(ListingKey key) {
+        keysByScope.computeIfAbsent(Scope.of(key.enrollmentFilter()), scope -> new HashSet<>()).add(key);
+    }
+
+    private void unindex(ListingKey key) {
+        Scope scope = Scope.of(key.enrollmentFilter());
+        Set<ListingKey> keys = keysByScope.get(scope);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByScope.remove(scope);
+        }
+    }
+
+    private synchronized int size() {
+        return listings.size();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    record ListingKey(EnrollmentFilter enrollmentFilter, EnrollmentPage enrollmentPage) {
+
+        // a listing can contain the row when every filter it sets has the row's value
+        boolean matches(Enrollment enrollment) {
+            return (enrollmentFilter.getStudentId() == null || enrollmentFilter.getStudentId().equals(enrollment.getStudentId()))
+                    && (enrollmentFilter.getCourseId() == null || enrollmentFilter.getCourseId().equals(enrollment.getCourseId()))
+                    && (enrollmentFilter.getEnrollmentYear() == null || enrollmentFilter.getEnrollmentYear().equals(enrollment.getEnrollmentYear()))
+                    && (enrollmentFilter.getSemester() == null || enrollmentFilter.getSemester() == enrollment.getSemester());
+        }
+    }
+
+    // the filter a listing is indexed under; UNFILTERED holds the pages that set no filter at all
+    record Scope(String filter, Object value) {
+
+        static final Scope UNFILTERED = new Scope(null, null);
+
+        static Scope of(EnrollmentFilter enrollmentFilter) {
+            if (enrollmentFilter.getStudentId() != null) {
+                return new Scope("studentId", enrollmentFilter.getStudentId());
+            }
+            if (enrollmentFilter.getCourseId() != null) {
+                return new Scope("courseId", enrollmentFilter.getCourseId());
+            }
+            if (enrollmentFilter.getEnrollmentYear() != null) {
+                return new Scope("enrollmentYear", enrollmentFilter.getEnrollmentYear());
+            }
+            if (enrollmentFilter.getSemester() != null) {
+                return new Scope("semester", enrollmentFilter.getSemester());
+            }
+            return UNFILTERED;
+        }
+
+        // every scope a listing containing the row can be indexed under
+        static List<Scope> of(Enrollment enrollment) {
+            return List.of(new Scope("studentId", enrollment.getStudentId()), new Scope("courseId", enrollment.getCourseId()),
+                    new Scope("enrollmentYear", enrollment.getEnrollmentYear()), new Scope("semester", enrollment.getSemester()),
+                    UNFILTERED);
+        }
+    }
+
+    record CachedListing(Mono<List<EnrollmentResponseDTO>> enrollments, long expiresAt) {
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentChangeResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentChangeType;
+import com.champlain.enrollmentsservice.utils.EntityDTOUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+// Committed enrollment changes, pushed to every subscriber of GET /enrollments/live as they happen. A single
+// multicast sink fans each change out on the writing thread; a subscriber holds no thread and no timer, only
+// its own buffer of at most app.enrollments.live.buffer-size changes for when its connection cannot keep up.
+// A subscriber that falls further behind has its stream completed, so it re-lists and tails again rather than
+// silently missing changes. Only changes written through this instance are seen.
+@Slf4j
+@Component
+public class EnrollmentLiveFeed implements EnrollmentChangeListener {
+
+    private final Sinks.Many<Change> changes = Sinks.many().multicast().directBestEffort();
+    private final int bufferSize;
+    private final Counter overflows;
+
+    public EnrollmentLiveFeed(MeterRegistry meterRegistry, @Value("${app.enrollments.live.buffer-size:256}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        Gauge.builder("enrollments.live.subscribers", changes, Sinks.Many::currentSubscriberCount)
+                .description("Open GET /enrollments/live streams")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("enrollments.live.overflows")
+                .description("Live streams completed because their subscriber fell more than a buffer behind")
+                .register(meterRegistry);
+    }
+
+    // nothing is built while nobody listens; emitting is serialized because writes commit on many threads
+    @Override
+    public void enrollmentChanged(Enrollment previous, Enrollment current) {
+        if (changes.currentSubscriberCount() == 0) {
+            return;
+        }
+        Change change = new Change(previous, current, EnrollmentChangeResponseDTO.builder()
+                .type(previous == null ? EnrollmentChangeType.CREATED
+                        : current == null ? EnrollmentChangeType.DELETED : EnrollmentChangeType.UPDATED)
+                .enrollment(EntityDTOUtils.toEnrollmentResponseDTO(current == null ? previous : current))
+                .previous(previous == null || current == null ? null : EntityDTOUtils.toEnrollmentResponseDTO(previous))
+                .build());
+        synchronized (changes) {
+            changes.tryEmitNext(change);
+        }
+    }
+
+    // A row moved out of the course or away from the student is still reported to them, through its previous state.
+    public Flux<EnrollmentChangeResponseDTO> tail(String courseId, String studentId) {
+        return changes.asFlux()
+                .filter(change -> change.concerns(courseId, studentId))
+                .map(Change::event)
+                .onBackpressureBuffer(bufferSize)
+                .onErrorResume(Exceptions::isOverflow, overflow -> {
+                    overflows.increment();
+                    log.debug("A live enrollment stream fell more than {} changes behind and was completed", bufferSize);
+                    return Flux.empty();
+                });
+    }
+
+    private record Change(Enrollment previous, Enrollment current, EnrollmentChangeResponseDTO event) {
+
+        boolean concerns(String courseId, String studentId) {
+            return matches(previous, courseId, studentId) || matches(current, courseId, studentId);
+        }
+
+        private static boolean matches(Enrollment enrollment, String courseId, String studentId) {
+            return enrollment != null
+                    && (courseId == null || courseId.equals(enrollment.getCourseId()))
+                    && (studentId == null || studentId.equals(enrollment.getStudentId()));
+        }
+
+    }
+
+}
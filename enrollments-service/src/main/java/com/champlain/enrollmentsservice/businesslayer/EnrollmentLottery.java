@@ -0,0 +1,292 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreference;
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreferenceRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoad;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoadRepository;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.MeetingSlot;
+import com.champlain.enrollmentsservice.presentationlayer.LotteryResultResponseDTO;
+import com.champlain.enrollmentsservice.utils.EntityDTOUtils;
+import com.champlain.enrollmentsservice.utils.MeetingSlots;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Turns the ranked preferences collected for a term into enrollments in one batch. The term is loaded once,
+// the seats are drawn by the LotteryAllocator, every course then reserves its winners' seats with one call
+// and the rows are booked on the students' schedules and go through the EnrollmentBatchWriter in chunks,
+// charging the credit loads as they are written.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrollmentLottery {
+
+    private static final int COURSE_LOOKUP_CONCURRENCY = 32;
+
+    private final CoursePreferenceRepository coursePreferenceRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentTermLoadRepository studentTermLoadRepository;
+    private final CourseClient courseClient;
+    private final LotteryAllocator lotteryAllocator;
+    private final EnrollmentBatchWriter enrollmentBatchWriter;
+    private final StudentSchedules studentSchedules;
+    private final EnrollmentChanges enrollmentChanges;
+
+    @Value("${app.enrollments.lookup-timeout:5s}")
+    private Duration lookupTimeout;
+
+    @Value("${app.enrollments.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.enrollments.max-credits-per-term:30}")
+    private BigDecimal maxCreditsPerTerm;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public Mono<LotteryResultResponseDTO> run(Integer enrollmentYear, Semester semester) {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Mono.error(new ConflictException("A lottery allocation is already running"));
+            }
+            return loadTerm(enrollmentYear, semester)
+                    .flatMap(term -> Mono.fromCallable(() -> draw(term)).subscribeOn(Schedulers.boundedElastic()))
+                    .flatMap(draw -> reserveSeats(draw.winners())
+                            .flatMap(this::write)
+                            .map(created -> result(enrollmentYear, semester, draw, created)))
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    private Mono<Term> loadTerm(Integer enrollmentYear, Semester semester) {
+        return Mono.zip(
+                        coursePreferenceRepository.findAllByEnrollmentYearAndSemester(enrollmentYear, semester)
+                                .collectMultimap(CoursePreference::getStudentId),
+                        enrollmentRepository.findAllEnrollmentsByEnrollmentYearAndSemester(enrollmentYear, semester)
+                                .collectMultimap(Enrollment::getStudentId),
+                        studentTermLoadRepository.findAllByEnrollmentYearAndSemester(enrollmentYear, semester)
+                                .collectMap(StudentTermLoad::getStudentId, StudentTermLoad::getTotalCredits))
+                .flatMap(loaded -> Flux.fromIterable(loaded.getT1().values())
+                        .flatMapIterable(Function.identity())
+                        .map(CoursePreference::getCourseId)
+                        .distinct()
+                        .flatMap(this::lookupCourse, COURSE_LOOKUP_CONCURRENCY)
+                        .collectMap(CourseResponseDTO::getCourseId)
+                        .map(courses -> new Term(loaded.getT1(), loaded.getT2(), loaded.getT3(), courses)));
+    }
+
+    // a course that cannot be looked up is left out of the draw instead of failing the whole term
+    private Mono<CourseResponseDTO> lookupCourse(String courseId) {
+        return courseClient.getCourseByCourseId(courseId)
+                .timeout(lookupTimeout)
+                .onErrorResume(error -> {
+                    log.warn("Course {} is left out of the lottery: {}", courseId, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Draw draw(Term term) {
+        List<CourseResponseDTO> courses = new ArrayList<>(term.courses().values());
+        Map<String, Integer> courseIndexes = new HashMap<>();
+        List<LotteryAllocator.Course> lotteryCourses = new ArrayList<>(courses.size());
+        for (CourseResponseDTO course : courses) {
+            courseIndexes.put(course.getCourseId(), lotteryCourses.size());
+            lotteryCourses.add(new LotteryAllocator.Course(course.getCourseId(), freeSeats(course),
+                    course.getNumCredits() == null ? 0 : course.getNumCredits(), meetingMinutes(course.getMeetingSlots())));
+        }
+
+        List<CoursePreference> firstPreferences = new ArrayList<>(term.preferences().size());
+        List<LotteryAllocator.Student> lotteryStudents = new ArrayList<>(term.preferences().size());
+        int preferenceCount = 0;
+        for (Map.Entry<String, Collection<CoursePreference>> preferences : term.preferences().entrySet()) {
+            Collection<Enrollment> enrolled = term.enrolled().getOrDefault(preferences.getKey(), List.of());
+            Set<String> enrolledCourseIds = enrolled.stream().map(Enrollment::getCourseId).collect(Collectors.toSet());
+            List<CoursePreference> ranked = preferences.getValue().stream()
+                    .sorted(Comparator.comparing(CoursePreference::getPreferenceRank))
+                    .toList();
+            preferenceCount += ranked.size();
+            int[] rankedCourses = ranked.stream()
+                    .map(CoursePreference::getCourseId)
+                    .filter(courseId -> !enrolledCourseIds.contains(courseId))
+                    .map(courseIndexes::get)
+                    .filter(index -> index != null)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            BigDecimal load = term.loads().getOrDefault(preferences.getKey(), BigDecimal.ZERO);
+            int[] bookedMinutes = meetingMinutes(enrolled.stream()
+                    .flatMap(enrollment -> MeetingSlots.parse(enrollment.getMeetingSlots()).stream())
+                    .toList());
+            firstPreferences.add(ranked.get(0));
+            lotteryStudents.add(new LotteryAllocator.Student(preferences.getKey(), rankedCourses,
+                    maxCreditsPerTerm.subtract(load).doubleValue(), enrolled.size(), bookedMinutes));
+        }
+
+        long seed = ThreadLocalRandom.current().nextLong();
+        long start = System.nanoTime();
+        int[][] admitted = lotteryAllocator.allocate(lotteryStudents, lotteryCourses, seed);
+        log.info("Drew {} students over {} courses in {} ms with seed {}", lotteryStudents.size(), courses.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), seed);
+
+        Map<String, List<Enrollment>> winners = new LinkedHashMap<>();
+        for (int student = 0; student < admitted.length; student++) {
+            for (int course : admitted[student]) {
+                CourseResponseDTO courseResponseDTO = courses.get(course);
+                winners.computeIfAbsent(courseResponseDTO.getCourseId(), courseId -> new ArrayList<>())
+                        .add(EntityDTOUtils.toEnrollmentEntity(firstPreferences.get(student), courseResponseDTO));
+            }
+        }
+        return new Draw(lotteryStudents.size(), preferenceCount, winners);
+    }
+
+    // One reservation per course for all of its winners. If the course filled up since it was loaded, the
+    // winners are retried one seat at a time, so as many as still fit keep their seat.
+    private Mono<List<Enrollment>> reserveSeats(Map<String, List<Enrollment>> winners) {
+        return Flux.fromIterable(winners.entrySet())
+                .flatMap(course -> courseClient.reserveSeats(course.getKey(), course.getValue().size())
+                        .thenReturn(course.getValue())
+                        .onErrorResume(ConflictException.class, full -> Flux.fromIterable(course.getValue())
+                                .concatMap(winner -> courseClient.reserveSeats(course.getKey(), 1)
+                                        .thenReturn(winner)
+                                        .onErrorResume(error -> Mono.empty()))
+                                .collectList())
+                        .onErrorResume(error -> {
+                            log.warn("Could not reserve {} seat(s) in course {}: {}", course.getValue().size(), course.getKey(), error.getMessage());
+                            return Mono.just(List.of());
+                        }), COURSE_LOOKUP_CONCURRENCY)
+                .flatMapIterable(Function.identity())
+                .collectList();
+    }
+
+    // The draw only saw the schedules of the snapshot, so every row is booked on the student's live schedule
+    // before it is written, and a row that now clashes with an enrollment made since is not written. Chunks
+    // hold whole students, so each chunk charges a student's credit load once. Seats and bookings of rows that
+    // could not be written are given back.
+    private Mono<List<Enrollment>> write(List<Enrollment> enrollments) {
+        List<Enrollment> failed = new ArrayList<>();
+        return Flux.fromIterable(chunksByStudent(enrollments))
+                .concatMap(chunk -> Flux.fromIterable(chunk)
+                        .flatMap(this::bookSchedule, COURSE_LOOKUP_CONCURRENCY)
+                        .collect(Collectors.partitioningBy(EnrollmentWriteResult::isSuccess))
+                        .flatMapMany(booked -> Flux.fromIterable(booked.get(false))
+                                .concatWith(enrollmentBatchWriter.write(booked.get(true).stream()
+                                        .map(EnrollmentWriteResult::getEnrollment)
+                                        .toList()))))
+                .filter(result -> {
+                    if (!result.isSuccess()) {
+                        studentSchedules.release(result.getEnrollment());
+                        failed.add(result.getEnrollment());
+                    }
+                    return result.isSuccess();
+                })
+                .map(EnrollmentWriteResult::getEnrollment)
+                .doOnNext(enrollmentChanges::created)
+                .collectList()
+                .flatMap(created -> releaseSeats(failed).thenReturn(created));
+    }
+
+    private Mono<EnrollmentWriteResult> bookSchedule(Enrollment enrollment) {
+        return studentSchedules.book(enrollment)
+                .thenReturn(EnrollmentWriteResult.success(enrollment))
+                .onErrorResume(error -> {
+                    log.debug("Lottery enrollment of student {} in course {} is not written: {}", enrollment.getStudentId(),
+                            enrollment.getCourseId(), error.getMessage());
+                    return Mono.just(EnrollmentWriteResult.failure(enrollment, error));
+                });
+    }
+
+    // a student with more rows than the chunk size gets a chunk of their own
+    private List<List<Enrollment>> chunksByStudent(List<Enrollment> enrollments) {
+        Map<String, List<Enrollment>> byStudent = enrollments.stream()
+                .collect(Collectors.groupingBy(Enrollment::getStudentId, LinkedHashMap::new, Collectors.toList()));
+        List<List<Enrollment>> chunks = new ArrayList<>();
+        List<Enrollment> chunk = new ArrayList<>();
+        for (List<Enrollment> rows : byStudent.values()) {
+            if (!chunk.isEmpty() && chunk.size() + rows.size() > chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+            chunk.addAll(rows);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private Mono<Void> releaseSeats(List<Enrollment> failed) {
+        Map<String, Long> seatsByCourse = failed.stream()
+                .collect(Collectors.groupingBy(Enrollment::getCourseId, Collectors.counting()));
+        return Flux.fromIterable(seatsByCourse.entrySet())
+                .flatMap(course -> courseClient.releaseSeats(course.getKey(), course.getValue().intValue())
+                        .doOnError(error -> log.warn("Could not release {} seat(s) in course {}: {}", course.getValue(), course.getKey(), error.getMessage()))
+                        .onErrorResume(error -> Mono.empty()))
+                .then();
+    }
+
+    private static LotteryResultResponseDTO result(Integer enrollmentYear, Semester semester, Draw draw, List<Enrollment> created) {
+        int drawn = draw.winners().values().stream().mapToInt(List::size).sum();
+        Set<String> studentsWithCourse = new HashSet<>();
+        created.forEach(enrollment -> studentsWithCourse.add(enrollment.getStudentId()));
+        return LotteryResultResponseDTO.builder()
+                .enrollmentYear(enrollmentYear)
+                .semester(semester)
+                .students(draw.students())
+                .preferences(draw.preferences())
+                .enrollmentsCreated(created.size())
+                .enrollmentsFailed(drawn - created.size())
+                .studentsWithoutCourse(draw.students() - studentsWithCourse.size())
+                .build();
+    }
+
+    private static int freeSeats(CourseResponseDTO course) {
+        if (course.getCapacity() == null) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, course.getCapacity() - (course.getSeatsTaken() == null ? 0 : course.getSeatsTaken()));
+    }
+
+    private static int[] meetingMinutes(List<MeetingSlot> meetingSlots) {
+        if (meetingSlots == null) {
+            return new int[0];
+        }
+        int[] minutes = new int[meetingSlots.size() * 2];
+        for (int i = 0; i < meetingSlots.size(); i++) {
+            minutes[2 * i] = MeetingSlots.startMinuteOfWeek(meetingSlots.get(i));
+            minutes[2 * i + 1] = MeetingSlots.endMinuteOfWeek(meetingSlots.get(i));
+        }
+        return minutes;
+    }
+
+    private record Term(Map<String, Collection<CoursePreference>> preferences, Map<String, Collection<Enrollment>> enrolled,
+                        Map<String, BigDecimal> loads, Map<String, CourseResponseDTO> courses) {
+    }
+
+    private record Draw(int students, int preferences, Map<String, List<Enrollment>> winners) {
+    }
+
+}
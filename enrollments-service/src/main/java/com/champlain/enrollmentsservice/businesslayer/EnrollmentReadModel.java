@@ -0,0 +1,264 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.presentationlayer.ReadModelConsistencyResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Every enrollment held in memory, so listings, counts and lookups by enrollmentId are answered without a
+// database round trip. The model is loaded from the table at startup and then kept in step by the write paths
+// through EnrollmentChanges; changes reported while it loads are replayed on top of the loaded rows. Until it
+// has loaded, when app.enrollments.read-model.enabled is off, and after a consistency check found it out of
+// step with the table, reads fall back to the repository.
+@Slf4j
+@Component
+public class EnrollmentReadModel implements EnrollmentChangeListener {
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter driftedRows;
+
+    // guarded by lock
+    private EnrollmentRows rows = new EnrollmentRows();
+    private boolean serving;
+    private List<Enrollment[]> changesWhileLoading;
+
+    public EnrollmentReadModel(EnrollmentRepository enrollmentRepository, MeterRegistry meterRegistry,
+                               @Value("${app.enrollments.read-model.enabled:false}") boolean enabled) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.enabled = enabled;
+        Gauge.builder("enrollments.read-model.rows", this, model -> model.read(() -> model.rows.size()))
+                .description("Enrollments held by the read model")
+                .register(meterRegistry);
+        Gauge.builder("enrollments.read-model.serving", this, model -> model.isServing() ? 1 : 0)
+                .description("1 when reads are answered from the read model, 0 when they fall back to the repository")
+                .register(meterRegistry);
+        this.driftedRows = Counter.builder("enrollments.read-model.drift")
+                .description("Rows a consistency check found missing, stale or extra in the read model")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            load().subscribe(null, error -> log.warn("Could not load the enrollment read model, reads stay on the repository: {}",
+                    error.getMessage()));
+        }
+    }
+
+    public boolean isServing() {
+        return enabled && read(() -> serving);
+    }
+
+    // Loads a fresh copy of the table beside the current one and swaps it in once complete. Emits nothing when
+    // a load is already running.
+    public Mono<Void> load() {
+        return Mono.defer(() -> {
+            boolean started = write(() -> {
+                if (changesWhileLoading != null) {
+                    return false;
+                }
+                changesWhileLoading = new ArrayList<>();
+                return true;
+            });
+            if (!started) {
+                return Mono.empty();
+            }
+            EnrollmentRows loading = new EnrollmentRows();
+            long start = System.nanoTime();
+            return enrollmentRepository.findAllEnrollmentsByFilter(new EnrollmentFilter(), new EnrollmentPage())
+                    .doOnNext(loading::upsert)
+                    .then(Mono.fromRunnable(() -> write(() -> {
+                        changesWhileLoading.forEach(change -> apply(loading, change[0], change[1]));
+                        changesWhileLoading = null;
+                        rows = loading;
+                        serving = true;
+                        log.info("Loaded {} enrollments into the read model in {} ms", loading.size(),
+                                (System.nanoTime() - start) / 1_000_000);
+                        return null;
+                    })))
+                    .doOnError(error -> write(() -> changesWhileLoading = null))
+                    .then();
+        });
+    }
+
+    @Override
+    public void enrollmentChanged(Enrollment previous, Enrollment current) {
+        if (!enabled) {
+            return;
+        }
+        write(() -> {
+            if (changesWhileLoading != null) {
+                changesWhileLoading.add(new Enrollment[]{previous, current});
+            }
+            if (serving && !apply(rows, previous, current)) {
+                serving = false;
+                log.warn("Enrollment {} has no id, reads fall back to the repository until the read model is reloaded",
+                        current.getEnrollmentId());
+            }
+            return null;
+        });
+    }
+
+    public Flux<Enrollment> findAllEnrollmentsByFilter(EnrollmentFilter enrollmentFilter, EnrollmentPage enrollmentPage) {
+        return Flux.defer(() -> {
+            EnrollmentRows[] snapshot = new EnrollmentRows[1];
+            int[] ids = read(() -> {
+                if (!serving) {
+                    return null;
+                }
+                snapshot[0] = rows;
+                return rows.select(enrollmentFilter, enrollmentPage);
+            });
+            if (ids == null || !enabled) {
+                return enrollmentRepository.findAllEnrollmentsByFilter(enrollmentFilter, enrollmentPage);
+            }
+            // rows are built one at a time as they are requested; a row deleted meanwhile is skipped
+            return Flux.<Enrollment, Integer>generate(() -> 0, (index, sink) -> {
+                int next = index;
+                Enrollment enrollment = null;
+                while (enrollment == null && next < ids.length) {
+                    int id = ids[next++];
+                    enrollment = read(() -> snapshot[0].get(id));
+                }
+                if (enrollment == null) {
+                    sink.complete();
+                } else {
+                    sink.next(enrollment);
+                }
+                return next;
+            });
+        });
+    }
+
+    public Mono<Long> countEnrollmentsByFilter(EnrollmentFilter enrollmentFilter) {
+        return Mono.defer(() -> {
+            Long count = read(() -> serving ? rows.count(enrollmentFilter) : null);
+            return count == null || !enabled
+                    ? enrollmentRepository.countEnrollmentsByFilter(enrollmentFilter)
+                    : Mono.just(count);
+        });
+    }
+
+    public Mono<Enrollment> findEnrollmentByEnrollmentId(String enrollmentId) {
+        return Mono.defer(() -> {
+            if (!isServing()) {
+                return enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId);
+            }
+            return Mono.justOrEmpty(read(() -> rows.getByEnrollmentId(enrollmentId)));
+        });
+    }
+
+    // Compares every row of the table with the model in one pass in id order. A row written while the check runs
+    // can be reported as drift; the reload that drift triggers is harmless either way.
+    public Mono<ReadModelConsistencyResponseDTO> check() {
+        if (!isServing()) {
+            return Mono.just(ReadModelConsistencyResponseDTO.builder()
+                    .serving(false)
+                    .consistent(false)
+                    .build());
+        }
+        ConsistencyCheck consistencyCheck = new ConsistencyCheck(read(() -> rows));
+        return enrollmentRepository.findAllEnrollmentsByFilter(new EnrollmentFilter(), new EnrollmentPage())
+                .doOnNext(consistencyCheck::compare)
+                .then(Mono.fromCallable(consistencyCheck::result))
+                .doOnNext(result -> {
+                    if (!result.isConsistent()) {
+                        long drift = result.getMissingRows() + result.getStaleRows() + result.getExtraRows();
+                        driftedRows.increment(drift);
+                        log.warn("The enrollment read model drifted from the table by {} rows, reloading it", drift);
+                        write(() -> serving = false);
+                        load().subscribe(null, error -> log.warn("Could not reload the enrollment read model: {}", error.getMessage()));
+                    }
+                });
+    }
+
+    private final class ConsistencyCheck {
+
+        private final EnrollmentRows checked;
+        private int[] tableIds = new int[1024];
+        private int tableRows;
+        private long missingRows;
+        private long staleRows;
+
+        ConsistencyCheck(EnrollmentRows checked) {
+            this.checked = checked;
+        }
+
+        void compare(Enrollment enrollment) {
+            if (tableRows == tableIds.length) {
+                tableIds = Arrays.copyOf(tableIds, tableRows * 2);
+            }
+            tableIds[tableRows++] = enrollment.getId();
+            Enrollment held = read(() -> checked.get(enrollment.getId()));
+            if (held == null) {
+                missingRows++;
+            } else if (!Objects.equals(held, enrollment)) {
+                staleRows++;
+            }
+        }
+
+        // the table was read in id order, so the ids seen are sorted and each model id is one binary search
+        ReadModelConsistencyResponseDTO result() {
+            int[] modelIds = read(checked::ids);
+            long extraRows = Arrays.stream(modelIds)
+                    .filter(id -> Arrays.binarySearch(tableIds, 0, tableRows, id) < 0)
+                    .count();
+            return ReadModelConsistencyResponseDTO.builder()
+                    .serving(true)
+                    .tableRows(tableRows)
+                    .modelRows(modelIds.length)
+                    .missingRows(missingRows)
+                    .staleRows(staleRows)
+                    .extraRows(extraRows)
+                    .consistent(missingRows == 0 && staleRows == 0 && extraRows == 0)
+                    .build();
+        }
+    }
+
+    // false when the current row could not be placed, which leaves the model out of step with the table
+    private static boolean apply(EnrollmentRows target, Enrollment previous, Enrollment current) {
+        if (previous != null && previous.getId() != null) {
+            target.remove(previous.getId());
+        }
+        return current == null || target.upsert(current);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        lock.writeLock().lock();
+        try {
+            return writer.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
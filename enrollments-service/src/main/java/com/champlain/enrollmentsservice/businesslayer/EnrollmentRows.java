@@ -0,0 +1,654 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Enrollment rows held column by column in primitive arrays. Student ids, course ids and the repeated texts
+// (names, course numbers, meeting slots) are stored once in dictionaries and referenced by int, enrollmentIds
+// as the two longs of their UUID, so a row costs about a hundred bytes with its indexes. The indexes keep the
+// row ids of each student, course and year sorted, which gives listings in id order without sorting.
+// Not thread-safe; EnrollmentReadModel guards it with a read-write lock.
+final class EnrollmentRows {
+
+    private static final int NONE = -1;
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final Semester[] SEMESTERS = Semester.values();
+
+    private final StringDictionary studentIds = new StringDictionary();
+    private final StringDictionary courseIds = new StringDictionary();
+    private final StringDictionary texts = new StringDictionary();
+    private final IntIntMap yearKeys = new IntIntMap();
+
+    private final IntIntMap slotsById = new IntIntMap();
+    private final UuidIntMap slotsByEnrollmentId = new UuidIntMap();
+    // enrollmentIds that are not canonical UUIDs, which the service never generates but the table allows
+    private final Map<String, Integer> slotsByOtherEnrollmentId = new HashMap<>();
+    private final Map<Integer, String> otherEnrollmentIdsBySlot = new HashMap<>();
+
+    private SortedInts[] idsByStudent = new SortedInts[0];
+    private SortedInts[] idsByCourse = new SortedInts[0];
+    private SortedInts[] idsByYear = new SortedInts[0];
+    private final SortedInts allIds = new SortedInts();
+
+    private int[] ids = new int[0];
+    private long[] enrollmentIdHigh = new long[0];
+    private long[] enrollmentIdLow = new long[0];
+    private int[] years = new int[0];
+    private byte[] semesters = new byte[0];
+    private int[] students = new int[0];
+    private int[] firstNames = new int[0];
+    private int[] lastNames = new int[0];
+    private int[] courses = new int[0];
+    private int[] courseNumbers = new int[0];
+    private int[] courseNames = new int[0];
+    private double[] numCredits = new double[0];
+    private int[] meetingSlots = new int[0];
+
+    private int slotCount;
+    private int[] freeSlots = new int[0];
+    private int freeSlotCount;
+
+    int size() {
+        return allIds.size();
+    }
+
+    // rows without an id cannot be placed in id order and are left out
+    boolean upsert(Enrollment enrollment) {
+        if (enrollment.getId() == null) {
+            return false;
+        }
+        remove(enrollment.getId());
+        int slot = allocateSlot();
+        int id = enrollment.getId();
+        ids[slot] = id;
+        years[slot] = enrollment.getEnrollmentYear() == null ? NO_YEAR : enrollment.getEnrollmentYear();
+        semesters[slot] = enrollment.getSemester() == null ? NONE : (byte) enrollment.getSemester().ordinal();
+        students[slot] = studentIds.intern(enrollment.getStudentId());
+        firstNames[slot] = texts.intern(enrollment.getStudentFirstName());
+        lastNames[slot] = texts.intern(enrollment.getStudentLastName());
+        courses[slot] = courseIds.intern(enrollment.getCourseId());
+        courseNumbers[slot] = texts.intern(enrollment.getCourseNumber());
+        courseNames[slot] = texts.intern(enrollment.getCourseName());
+        numCredits[slot] = enrollment.getNumCredits() == null ? Double.NaN : enrollment.getNumCredits();
+        meetingSlots[slot] = texts.intern(enrollment.getMeetingSlots());
+        putEnrollmentId(slot, enrollment.getEnrollmentId());
+
+        slotsById.put(id, slot);
+        allIds.add(id);
+        if (students[slot] != NONE) {
+            idsByStudent = grow(idsByStudent, students[slot]);
+            indexed(idsByStudent, students[slot]).add(id);
+        }
+        if (courses[slot] != NONE) {
+            idsByCourse = grow(idsByCourse, courses[slot]);
+            indexed(idsByCourse, courses[slot]).add(id);
+        }
+        if (years[slot] != NO_YEAR) {
+            int yearKey = yearKey(years[slot]);
+            idsByYear = grow(idsByYear, yearKey);
+            indexed(idsByYear, yearKey).add(id);
+        }
+        return true;
+    }
+
+    boolean remove(int id) {
+        int slot = slotsById.get(id);
+        if (slot == NONE) {
+            return false;
+        }
+        slotsById.remove(id);
+        allIds.remove(id);
+        if (students[slot] != NONE) {
+            idsByStudent[students[slot]].remove(id);
+        }
+        if (courses[slot] != NONE) {
+            idsByCourse[courses[slot]].remove(id);
+        }
+        if (years[slot] != NO_YEAR) {
+            idsByYear[yearKeys.get(years[slot])].remove(id);
+        }
+        String otherEnrollmentId = otherEnrollmentIdsBySlot.remove(slot);
+        if (otherEnrollmentId != null) {
+            slotsByOtherEnrollmentId.remove(otherEnrollmentId);
+        } else {
+            slotsByEnrollmentId.remove(enrollmentIdHigh[slot], enrollmentIdLow[slot]);
+        }
+        ids[slot] = 0;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlots.length * 2));
+        }
+        freeSlots[freeSlotCount++] = slot;
+        return true;
+    }
+
+    Enrollment get(int id) {
+        int slot = slotsById.get(id);
+        return slot == NONE ? null : toEnrollment(slot);
+    }
+
+    Enrollment getByEnrollmentId(String enrollmentId) {
+        if (enrollmentId == null) {
+            return null;
+        }
+        UUID uuid = canonicalUuid(enrollmentId);
+        int slot = uuid != null
+                ? slotsByEnrollmentId.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())
+                : slotsByOtherEnrollmentId.getOrDefault(enrollmentId, NONE);
+        return slot == NONE ? null : toEnrollment(slot);
+    }
+
+    int[] ids() {
+        return allIds.toArray();
+    }
+
+    // The smallest index that applies is walked from the cursor in the page's direction and the other filters
+    // are checked on the row's columns, so a listing only visits the ids of one student, course or year.
+    int[] select(EnrollmentFilter enrollmentFilter, EnrollmentPage enrollmentPage) {
+        Selection selection = selection(enrollmentFilter);
+        if (selection == null) {
+            return new int[0];
+        }
+        int limit = enrollmentPage.getLimit() == null ? Integer.MAX_VALUE : enrollmentPage.getLimit();
+        int[] selected = new int[Math.min(limit, selection.candidates.size())];
+        int count = 0;
+        SortedInts candidates = selection.candidates;
+        if (enrollmentPage.isDescending()) {
+            int start = enrollmentPage.getAfter() == null ? candidates.size() - 1 : candidates.lowerBound(enrollmentPage.getAfter()) - 1;
+            for (int i = start; i >= 0 && count < limit; i--) {
+                int id = candidates.get(i);
+                if (selection.matches(slotsById.get(id))) {
+                    selected[count++] = id;
+                }
+            }
+        } else {
+            int start = enrollmentPage.getAfter() == null ? 0 : candidates.upperBound(enrollmentPage.getAfter());
+            for (int i = start; i < candidates.size() && count < limit; i++) {
+                int id = candidates.get(i);
+                if (selection.matches(slotsById.get(id))) {
+                    selected[count++] = id;
+                }
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    long count(EnrollmentFilter enrollmentFilter) {
+        Selection selection = selection(enrollmentFilter);
+        if (selection == null) {
+            return 0;
+        }
+        if (selection.checksNothing()) {
+            return selection.candidates.size();
+        }
+        long count = 0;
+        for (int i = 0; i < selection.candidates.size(); i++) {
+            if (selection.matches(slotsById.get(selection.candidates.get(i)))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // null when a filter names a student, course or year the model has never seen, i.e. nothing can match
+    private Selection selection(EnrollmentFilter enrollmentFilter) {
+        int student = NONE;
+        int course = NONE;
+        int yearKey = NONE;
+        SortedInts candidates = allIds;
+        if (enrollmentFilter.getStudentId() != null) {
+            student = studentIds.find(enrollmentFilter.getStudentId());
+            if (student == NONE || idsByStudent[student] == null) {
+                return null;
+            }
+            candidates = smaller(candidates, idsByStudent[student]);
+        }
+        if (enrollmentFilter.getCourseId() != null) {
+            course = courseIds.find(enrollmentFilter.getCourseId());
+            if (course == NONE || idsByCourse[course] == null) {
+                return null;
+            }
+            candidates = smaller(candidates, idsByCourse[course]);
+        }
+        if (enrollmentFilter.getEnrollmentYear() != null) {
+            yearKey = yearKeys.get(enrollmentFilter.getEnrollmentYear());
+            if (yearKey == NONE) {
+                return null;
+            }
+            candidates = smaller(candidates, idsByYear[yearKey]);
+        }
+        int semester = enrollmentFilter.getSemester() == null ? NONE : enrollmentFilter.getSemester().ordinal();
+        int year = enrollmentFilter.getEnrollmentYear() == null ? NO_YEAR : enrollmentFilter.getEnrollmentYear();
+        return new Selection(candidates, student, course, year, semester);
+    }
+
+    private static SortedInts smaller(SortedInts a, SortedInts b) {
+        return b.size() < a.size() ? b : a;
+    }
+
+    private final class Selection {
+
+        private final SortedInts candidates;
+        private final int student;
+        private final int course;
+        private final int year;
+        private final int semester;
+
+        Selection(SortedInts candidates, int student, int course, int year, int semester) {
+            this.candidates = candidates;
+            this.student = student;
+            this.course = course;
+            this.year = year;
+            this.semester = semester;
+        }
+
+        boolean checksNothing() {
+            return student == NONE && course == NONE && year == NO_YEAR && semester == NONE;
+        }
+
+        boolean matches(int slot) {
+            return (student == NONE || students[slot] == student)
+                    && (course == NONE || courses[slot] == course)
+                    && (year == NO_YEAR || years[slot] == year)
+                    && (semester == NONE || semesters[slot] == semester);
+        }
+    }
+
+    private Enrollment toEnrollment(int slot) {
+        String otherEnrollmentId = otherEnrollmentIdsBySlot.get(slot);
+        return Enrollment.builder()
+                .id(ids[slot])
+                .enrollmentId(otherEnrollmentId != null ? otherEnrollmentId
+                        : new UUID(enrollmentIdHigh[slot], enrollmentIdLow[slot]).toString())
+                .enrollmentYear(years[slot] == NO_YEAR ? null : years[slot])
+                .semester(semesters[slot] == NONE ? null : SEMESTERS[semesters[slot]])
+                .studentId(studentIds.get(students[slot]))
+                .studentFirstName(texts.get(firstNames[slot]))
+                .studentLastName(texts.get(lastNames[slot]))
+                .courseId(courseIds.get(courses[slot]))
+                .courseNumber(texts.get(courseNumbers[slot]))
+                .courseName(texts.get(courseNames[slot]))
+                .numCredits(Double.isNaN(numCredits[slot]) ? null : numCredits[slot])
+                .meetingSlots(texts.get(meetingSlots[slot]))
+                .build();
+    }
+
+    private void putEnrollmentId(int slot, String enrollmentId) {
+        UUID uuid = enrollmentId == null ? null : canonicalUuid(enrollmentId);
+        if (uuid != null) {
+            enrollmentIdHigh[slot] = uuid.getMostSignificantBits();
+            enrollmentIdLow[slot] = uuid.getLeastSignificantBits();
+            slotsByEnrollmentId.put(enrollmentIdHigh[slot], enrollmentIdLow[slot], slot);
+        } else {
+            otherEnrollmentIdsBySlot.put(slot, enrollmentId);
+            if (enrollmentId != null) {
+                slotsByOtherEnrollmentId.put(enrollmentId, slot);
+            }
+        }
+    }
+
+    // only ids that read back exactly the same are packed into longs, e.g. not upper case or short forms
+    private static UUID canonicalUuid(String enrollmentId) {
+        if (enrollmentId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(enrollmentId);
+            return uuid.toString().equals(enrollmentId) ? uuid : null;
+        } catch (IllegalArgumentException notUuid) {
+            return null;
+        }
+    }
+
+    private int yearKey(int year) {
+        int key = yearKeys.get(year);
+        if (key == NONE) {
+            key = yearKeys.size();
+            yearKeys.put(year, key);
+        }
+        return key;
+    }
+
+    private static SortedInts[] grow(SortedInts[] index, int key) {
+        return key < index.length ? index : Arrays.copyOf(index, Math.max(key + 1, index.length * 2));
+    }
+
+    private static SortedInts indexed(SortedInts[] index, int key) {
+        if (index[key] == null) {
+            index[key] = new SortedInts();
+        }
+        return index[key];
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = Math.max(1024, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            enrollmentIdHigh = Arrays.copyOf(enrollmentIdHigh, capacity);
+            enrollmentIdLow = Arrays.copyOf(enrollmentIdLow, capacity);
+            years = Arrays.copyOf(years, capacity);
+            semesters = Arrays.copyOf(semesters, capacity);
+            students = Arrays.copyOf(students, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            courses = Arrays.copyOf(courses, capacity);
+            courseNumbers = Arrays.copyOf(courseNumbers, capacity);
+            courseNames = Arrays.copyOf(courseNames, capacity);
+            numCredits = Arrays.copyOf(numCredits, capacity);
+            meetingSlots = Arrays.copyOf(meetingSlots, capacity);
+        }
+        return slotCount++;
+    }
+
+    // Ids in ascending order. Rows arrive mostly in id order, so an add is usually an append.
+    static final class SortedInts {
+
+        private int[] values = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        boolean add(int value) {
+            int index = lowerBound(value);
+            if (index < size && values[index] == value) {
+                return false;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return true;
+        }
+
+        boolean remove(int value) {
+            int index = lowerBound(value);
+            if (index == size || values[index] != value) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        // index of the first value >= value
+        int lowerBound(int value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // index of the first value > value
+        int upperBound(int value) {
+            return value == Integer.MAX_VALUE ? size : lowerBound(value + 1);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    // Open addressing String -> dense int id with linear probing. Ids are never reused, so a string that is no
+    // longer referenced stays until the model is reloaded.
+    static final class StringDictionary {
+
+        private String[] keys = new String[16];
+        private int[] keyIds = new int[16];
+        private String[] strings = new String[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int intern(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            int index = probe(value);
+            if (keys[index] != null) {
+                return keyIds[index];
+            }
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+            strings[size] = value;
+            keys[index] = value;
+            keyIds[index] = size;
+            size++;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        int find(String value) {
+            int index = probe(value);
+            return keys[index] == null ? NONE : keyIds[index];
+        }
+
+        String get(int id) {
+            return id == NONE ? null : strings[id];
+        }
+
+        private int probe(String value) {
+            int mask = keys.length - 1;
+            int index = mix(value.hashCode()) & mask;
+            while (keys[index] != null && !keys[index].equals(value)) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void rehash() {
+            String[] oldKeys = keys;
+            int[] oldIds = keyIds;
+            keys = new String[oldKeys.length * 2];
+            keyIds = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int index = probe(oldKeys[i]);
+                    keys[index] = oldKeys[i];
+                    keyIds[index] = oldIds[i];
+                }
+            }
+        }
+    }
+
+    // Open addressing int -> int with linear probing and backward-shift deletion. Integer.MIN_VALUE marks a free
+    // cell, which is fine for database ids and years.
+    static final class IntIntMap {
+
+        private static final int FREE = Integer.MIN_VALUE;
+
+        private int[] keys = newKeys(16);
+        private int[] values = new int[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int key) {
+            int index = probe(key);
+            return keys[index] == FREE ? NONE : values[index];
+        }
+
+        void put(int key, int value) {
+            int index = probe(key);
+            if (keys[index] == FREE) {
+                keys[index] = key;
+                size++;
+            }
+            values[index] = value;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        void remove(int key) {
+            int index = probe(key);
+            if (keys[index] == FREE) {
+                return;
+            }
+            int mask = keys.length - 1;
+            int next = (index + 1) & mask;
+            while (keys[next] != FREE) {
+                int home = mix(keys[next]) & mask;
+                // the entry at next may move into the hole when its home is not between the hole and next
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    keys[index] = keys[next];
+                    values[index] = values[next];
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[index] = FREE;
+            size--;
+        }
+
+        private int probe(int key) {
+            int mask = keys.length - 1;
+            int index = mix(key) & mask;
+            while (keys[index] != FREE && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    int index = probe(oldKeys[i]);
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, FREE);
+            return keys;
+        }
+    }
+
+    // Open addressing (high, low) UUID -> int with linear probing and backward-shift deletion. A NONE value marks
+    // a free cell.
+    static final class UuidIntMap {
+
+        private long[] highs = new long[16];
+        private long[] lows = new long[16];
+        private int[] values = newValues(16);
+        private int size;
+
+        int get(long high, long low) {
+            int index = probe(high, low);
+            return values[index];
+        }
+
+        void put(long high, long low, int value) {
+            int index = probe(high, low);
+            if (values[index] == NONE) {
+                highs[index] = high;
+                lows[index] = low;
+                size++;
+            }
+            values[index] = value;
+            if (size * 2 > values.length) {
+                rehash();
+            }
+        }
+
+        void remove(long high, long low) {
+            int index = probe(high, low);
+            if (values[index] == NONE) {
+                return;
+            }
+            int mask = values.length - 1;
+            int next = (index + 1) & mask;
+            while (values[next] != NONE) {
+                int home = hash(highs[next], lows[next]) & mask;
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    highs[index] = highs[next];
+                    lows[index] = lows[next];
+                    values[index] = values[next];
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+            values[index] = NONE;
+            size--;
+        }
+
+        private int probe(long high, long low) {
+            int mask = values.length - 1;
+            int index = hash(high, low) & mask;
+            while (values[index] != NONE && (highs[index] != high || lows[index] != low)) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void rehash() {
+            long[] oldHighs = highs;
+            long[] oldLows = lows;
+            int[] oldValues = values;
+            highs = new long[oldValues.length * 2];
+            lows = new long[oldValues.length * 2];
+            values = newValues(oldValues.length * 2);
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != NONE) {
+                    int index = probe(oldHighs[i], oldLows[i]);
+                    highs[index] = oldHighs[i];
+                    lows[index] = oldLows[i];
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long high, long low) {
+            return mix(Long.hashCode(high * 31 + low));
+        }
+
+        private static int[] newValues(int capacity) {
+            int[] values = new int[capacity];
+            Arrays.fill(values, NONE);
+            return values;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
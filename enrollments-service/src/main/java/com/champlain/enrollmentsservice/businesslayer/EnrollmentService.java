@@ -1,7 +1,18 @@
 package com.champlain.enrollmentsservice.businesslayer;
 
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.presentationlayer.CoursePreferenceRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CoursePreferenceResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CourseTermCountResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentBulkResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentChangeResponseDTO;
 import com.champlain.enrollmentsservice.presentationlayer.EnrollmentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentSearchRequestDTO;
 import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentStatsResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.LotteryResultResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.ReadModelConsistencyResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.WaitlistEntryResponseDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -10,7 +21,19 @@ import java.util.Map;
 public interface EnrollmentService {
 
     Flux<EnrollmentResponseDTO> getAllEnrollments(Map<String, String> queryParams);
+    Mono<Long> countEnrollments(Map<String, String> queryParams);
+    Mono<EnrollmentStatsResponseDTO> getEnrollmentStats(Map<String, String> queryParams);
+    Mono<CourseTermCountResponseDTO> getCourseTermCount(String courseId, Integer enrollmentYear, Semester semester);
+    Flux<EnrollmentChangeResponseDTO> tailEnrollments(String courseId, String studentId);
+    Flux<EnrollmentResponseDTO> searchEnrollments(Mono<EnrollmentSearchRequestDTO> enrollmentSearchRequestDTO);
     Mono<EnrollmentResponseDTO> getEnrollmentById(String enrollmentId);Mono<EnrollmentResponseDTO> addEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO);
+    Mono<EnrollmentResponseDTO> addEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO, String idempotencyKey);
     Mono<EnrollmentResponseDTO> updateEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO, String enrollmentId);
     Mono<Void> deleteEnrollmentById(String enrollmentId);
+    Flux<EnrollmentBulkResponseDTO> addEnrollments(Flux<EnrollmentRequestDTO> enrollmentRequestDTOs);
+    Mono<WaitlistEntryResponseDTO> joinWaitlist(Mono<EnrollmentRequestDTO> enrollmentRequestDTO);
+    Mono<Void> leaveWaitlist(String waitlistEntryId);
+    Mono<CoursePreferenceResponseDTO> submitPreferences(Mono<CoursePreferenceRequestDTO> coursePreferenceRequestDTO);
+    Mono<LotteryResultResponseDTO> runLottery(Integer enrollmentYear, Semester semester);
+    Mono<ReadModelConsistencyResponseDTO> checkReadModel();
 }
@@ -1,49 +1,247 @@
 package com.champlain.enrollmentsservice.businesslayer;
 
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreferenceRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.CourseTermCount;
+import com.champlain.enrollmentsservice.dataaccesslayer.CourseTermCountRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
 import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.IdempotencyKeyRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntryRepository;
 import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
 import com.champlain.enrollmentsservice.domainclientlayer.StudentClient;
+import com.champlain.enrollmentsservice.domainclientlayer.StudentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CoursePreferenceRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CoursePreferenceResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CourseTermCountResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentBulkResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentChangeResponseDTO;
 import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
 import com.champlain.enrollmentsservice.presentationlayer.EnrollmentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentSearchRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentStatsResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.LotteryResultResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.ReadModelConsistencyResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.WaitlistEntryResponseDTO;
+import com.champlain.enrollmentsservice.utils.BoundedLruMap;
+import com.champlain.enrollmentsservice.utils.EnrollmentFilters;
+import com.champlain.enrollmentsservice.utils.EnrollmentPages;
+import com.champlain.enrollmentsservice.utils.EnrollmentRequestValidator;
+import com.champlain.enrollmentsservice.utils.EnrollmentStatsQueries;
 import com.champlain.enrollmentsservice.utils.EntityDTOUtils;
+import com.champlain.enrollmentsservice.utils.MeetingSlots;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
 import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
 import com.champlain.enrollmentsservice.utils.exceptions.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EnrollmentServiceImpl implements EnrollmentService {
+
+    private static final int SEARCH_CHUNK_CONCURRENCY = 4;
+
     private final EnrollmentRepository enrollmentRepository;
     private final StudentClient studentClient;
     private final CourseClient courseClient;
+    private final EnrollmentBatchWriter enrollmentBatchWriter;
+    private final EnrollmentGroupCommitter enrollmentGroupCommitter;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final EnrollmentWaitlist enrollmentWaitlist;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final StudentTermLoadTracker studentTermLoadTracker;
+    private final CourseTermCounter courseTermCounter;
+    private final CourseTermCountRepository courseTermCountRepository;
+    private final StudentSchedules studentSchedules;
+    private final CoursePreferenceRepository coursePreferenceRepository;
+    private final EnrollmentLottery enrollmentLottery;
+    private final StudentMutationSequencer studentMutationSequencer;
+    private final EnrollmentListingCache enrollmentListingCache;
+    private final EnrollmentReadModel enrollmentReadModel;
+    private final EnrollmentStatistics enrollmentStatistics;
+    private final EnrollmentLiveFeed enrollmentLiveFeed;
+    private final EnrollmentChanges enrollmentChanges;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${app.enrollments.lookup-timeout:5s}")
+    private Duration lookupTimeout;
+
+    @Value("${app.enrollments.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${app.enrollments.search.chunk-size:500}")
+    private int searchChunkSize;
+
+    @Value("${app.enrollments.search.max-ids:5000}")
+    private int maxSearchIds;
+
+    @Value("${app.enrollments.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${app.enrollments.lottery.max-preferences:10}")
+    private int maxPreferences;
+
+    @Value("${app.enrollments.stats.max-top:1000}")
+    private int maxStatsTop;
+
+    private Counter skippedStudentLookups;
+    private Counter skippedCourseLookups;
+
+    private final Map<String, Mono<EnrollmentResponseDTO>> idempotentRequestsInFlight = new ConcurrentHashMap<>();
+    private Map<String, String> completedIdempotencyKeys;
+    private final AtomicLong nextIdempotencyPruneAt = new AtomicLong(System.nanoTime());
+
+    @Value("${app.enrollments.idempotency.claim-timeout:5m}")
+    private Duration idempotencyClaimTimeout;
+
+    @Value("${app.enrollments.idempotency.retention:24h}")
+    private Duration idempotencyRetention;
+
+    @Autowired
+    void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.skippedStudentLookups = skippedLookupCounter(meterRegistry, "student");
+        this.skippedCourseLookups = skippedLookupCounter(meterRegistry, "course");
+    }
+
+    private static Counter skippedLookupCounter(MeterRegistry meterRegistry, String client) {
+        return Counter.builder("enrollments.update.lookups.skipped")
+                .description("Remote lookups skipped on update because the id did not change")
+                .tag("client", client)
+                .register(meterRegistry);
+    }
 
+    @Value("${app.enrollments.idempotency.cache-size:10000}")
+    void setIdempotencyCacheSize(int idempotencyCacheSize) {
+        this.completedIdempotencyKeys = Collections.synchronizedMap(new BoundedLruMap<>(idempotencyCacheSize));
+    }
+
+    // Answered from the read model while it serves. Otherwise all filters are combined into one query, so only the
+    // matching rows of the requested page leave the database, and repeated listings of a student or of a bounded
+    // page are answered from the listing cache.
     @Override
     public Flux<EnrollmentResponseDTO> getAllEnrollments(Map<String , String> querry) {
-        String studentId = querry.get("studentId");
-        String enrollmentYear = querry.get("enrollmentYear");
-        String courseId = querry.get("courseId");
+        return Mono.fromCallable(() -> Tuples.of(EnrollmentFilters.from(querry), EnrollmentPages.from(querry, maxPageLimit)))
+                .flatMapMany(filterAndPage -> enrollmentReadModel.isServing()
+                        ? enrollmentReadModel.findAllEnrollmentsByFilter(filterAndPage.getT1(), filterAndPage.getT2())
+                                .map(EntityDTOUtils::toEnrollmentListingResponseDTO)
+                        : enrollmentListingCache.listing(filterAndPage.getT1(), filterAndPage.getT2(),
+                                () -> enrollmentRepository.findAllEnrollmentsByFilter(filterAndPage.getT1(), filterAndPage.getT2())
+                                        .map(EntityDTOUtils::toEnrollmentListingResponseDTO)));
+    }
 
-        if(studentId !=null) {
-            return enrollmentRepository.findAllEnrollmentsByStudentId(studentId).map(EntityDTOUtils::toEnrollmentResponseDTO);
+    @Override
+    public Mono<Long> countEnrollments(Map<String, String> querry) {
+        return Mono.fromCallable(() -> EnrollmentFilters.from(querry))
+                .flatMap(enrollmentReadModel::countEnrollmentsByFilter);
+    }
 
-        }
-        if(enrollmentYear != null) {
+    // the scan is CPU-bound, so it runs off the event loop like the lottery draw
+    @Override
+    public Mono<EnrollmentStatsResponseDTO> getEnrollmentStats(Map<String, String> querry) {
+        return Mono.fromCallable(() -> enrollmentStatistics.aggregate(EnrollmentStatsQueries.from(querry, maxStatsTop)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 
-            return enrollmentRepository.findAllEnrollmentsByEnrollmentYear(Integer.valueOf(enrollmentYear)).map(EntityDTOUtils::toEnrollmentResponseDTO);
+    // one lookup on the counters kept by the write paths; a course and term nobody enrolled in counts 0
+    @Override
+    public Mono<CourseTermCountResponseDTO> getCourseTermCount(String courseId, Integer enrollmentYear, Semester semester) {
+        if (courseId == null || enrollmentYear == null || semester == null) {
+            return Mono.error(new InvalidInputException("Invalid count, courseId, enrollmentYear and semester are required"));
         }
+        return courseTermCountRepository.findCourseTermCountByCourseIdAndEnrollmentYearAndSemester(courseId, enrollmentYear, semester)
+                .map(CourseTermCount::getEnrollmentCount)
+                .defaultIfEmpty(0)
+                .map(enrollments -> CourseTermCountResponseDTO.builder()
+                        .courseId(courseId)
+                        .enrollmentYear(enrollmentYear)
+                        .semester(semester)
+                        .enrollments(enrollments)
+                        .build());
+    }
+
+    @Override
+    public Flux<EnrollmentChangeResponseDTO> tailEnrollments(String courseId, String studentId) {
+        return enrollmentLiveFeed.tail(courseId, studentId);
+    }
 
+    // Every list is resolved with IN queries of at most searchChunkSize ids, a few chunks at a time. An
+    // enrollment matched by more than one list is only sent once.
+    @Override
+    public Flux<EnrollmentResponseDTO> searchEnrollments(Mono<EnrollmentSearchRequestDTO> enrollmentSearchRequestDTO) {
+        return enrollmentSearchRequestDTO
+                .filter(this::isValidSearchRequest)
+                .switchIfEmpty(Mono.error(new InvalidInputException("Invalid search, at least one of enrollmentIds, studentIds and courseIds "
+                        + "is required, without null ids and with at most " + maxSearchIds + " ids in total")))
+                .flatMapMany(this::searchWithoutDuplicates)
+                .map(EntityDTOUtils::toEnrollmentResponseDTO);
+    }
 
-        if(courseId !=null){
-            return enrollmentRepository.findAllEnrollmentsByCourseId(courseId).map(EntityDTOUtils::toEnrollmentResponseDTO);
+    // Each list finds every row at most once, so a row is a duplicate exactly when an earlier list also matches it.
+    // Those rows are skipped by looking them up in the requested ids, which keeps the memory bounded by the request
+    // instead of by the number of rows found.
+    private Flux<Enrollment> searchWithoutDuplicates(EnrollmentSearchRequestDTO dto) {
+        Set<String> enrollmentIds = dto.getEnrollmentIds() == null ? Set.of() : new HashSet<>(dto.getEnrollmentIds());
+        Set<String> studentIds = dto.getStudentIds() == null ? Set.of() : new HashSet<>(dto.getStudentIds());
+        return Flux.concat(
+                searchInChunks(dto.getEnrollmentIds(), enrollmentRepository::findAllEnrollmentsByEnrollmentIdIn),
+                searchInChunks(dto.getStudentIds(), enrollmentRepository::findAllEnrollmentsByStudentIdIn)
+                        .filter(enrollment -> !enrollmentIds.contains(enrollment.getEnrollmentId())),
+                searchInChunks(dto.getCourseIds(), enrollmentRepository::findAllEnrollmentsByCourseIdIn)
+                        .filter(enrollment -> !enrollmentIds.contains(enrollment.getEnrollmentId())
+                                && !studentIds.contains(enrollment.getStudentId())));
+    }
+
+    private Flux<Enrollment> searchInChunks(List<String> ids, Function<Collection<String>, Flux<Enrollment>> finder) {
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
         }
+        return Flux.fromStream(ids.stream().distinct())
+                .buffer(searchChunkSize)
+                .flatMapSequential(finder, SEARCH_CHUNK_CONCURRENCY);
+    }
 
-        return enrollmentRepository.findAll()
-                .map(EntityDTOUtils::toEnrollmentResponseDTO);
+    private boolean isValidSearchRequest(EnrollmentSearchRequestDTO enrollmentSearchRequestDTO) {
+        List<List<String>> lists = Stream.of(enrollmentSearchRequestDTO.getEnrollmentIds(),
+                        enrollmentSearchRequestDTO.getStudentIds(), enrollmentSearchRequestDTO.getCourseIds())
+                .filter(Objects::nonNull)
+                .toList();
+        int idCount = lists.stream().mapToInt(List::size).sum();
+        return idCount > 0
+                && idCount <= maxSearchIds
+                && lists.stream().flatMap(List::stream).noneMatch(Objects::isNull);
     }
 
     @Override
@@ -51,24 +249,90 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         if(enrollmentId.length() != 36){
             return Mono.error(new InvalidInputException("Invalid enrollmentId, length must be 36 characters"));
         }
-        return enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId)
+        return enrollmentReadModel.findEnrollmentByEnrollmentId(enrollmentId)
                 .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollmentId)))
                 .map(EntityDTOUtils::toEnrollmentResponseDTO);
     }
 
+    // the lookups run straight away; everything that reads or writes the student's enrollments waits for
+    // the student's earlier mutations
     @Override
     public Mono<EnrollmentResponseDTO> addEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO) {
         return enrollmentRequestDTO
                 .map(RequestContextAdd::new)
-                .flatMap(this::studentRequestResponse)
-                .flatMap(this::courseRequestResponse)
-                .map(EntityDTOUtils::toEnrollmentEntity)
-                .map(enrollmentRepository::save)
-                .flatMap(entity -> entity)
+                .flatMap(this::studentAndCourseRequestResponse)
+                .flatMap(rc -> studentMutationSequencer.sequence(rc.getEnrollmentRequestDTO().getStudentId(),
+                        checkPrerequisites(rc.getEnrollmentRequestDTO(), rc.getCourseResponseDTO())
+                                .thenReturn(rc)
+                                .map(EntityDTOUtils::toEnrollmentEntity)
+                                .flatMap(this::saveWithBookedSchedule)
+                                .doOnNext(enrollmentChanges::created)))
+                .onErrorMap(EnrollmentServiceImpl::isDuplicateEnrollment, EnrollmentServiceImpl::duplicateEnrollment)
                 .map(EntityDTOUtils::toEnrollmentResponseDTO);
 
     }
 
+    @Override
+    public Mono<EnrollmentResponseDTO> addEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO, String idempotencyKey) {
+        if(idempotencyKey == null){
+            return addEnrollment(enrollmentRequestDTO);
+        }
+        if(idempotencyKey.isBlank() || idempotencyKey.length() > 255){
+            return Mono.error(new InvalidInputException("Invalid Idempotency-Key, length must be between 1 and 255 characters"));
+        }
+        return Mono.defer(() -> {
+            String enrollmentId = completedIdempotencyKeys.get(idempotencyKey);
+            if (enrollmentId != null) {
+                return getEnrollmentById(enrollmentId);
+            }
+            // concurrent requests with the same key share a single execution
+            return idempotentRequestsInFlight.computeIfAbsent(idempotencyKey, key ->
+                    addEnrollmentOnce(enrollmentRequestDTO, key)
+                            .doFinally(signal -> idempotentRequestsInFlight.remove(key))
+                            .cache());
+        });
+    }
+
+    // The key is claimed before the enrollment is created, so a retry landing on another
+    // instance finds the claim instead of creating a second row. The claim is only given back when the
+    // enrollment was not created; once it was, a failure to record it keeps the claim so a retry cannot
+    // create a second row. A claim left unfinished for longer than the claim timeout, e.g. by a crashed
+    // instance, is taken over by the next request with the key.
+    private Mono<EnrollmentResponseDTO> addEnrollmentOnce(Mono<EnrollmentRequestDTO> enrollmentRequestDTO, String idempotencyKey) {
+        LocalDateTime now = LocalDateTime.now();
+        return idempotencyKeyRepository.claimIdempotencyKey(idempotencyKey, now)
+                .map(claimed -> true)
+                .onErrorResume(DataIntegrityViolationException.class, duplicate ->
+                        idempotencyKeyRepository.reclaimStaleIdempotencyKey(idempotencyKey, now, now.minus(idempotencyClaimTimeout))
+                                .map(reclaimed -> reclaimed > 0))
+                .doOnNext(claimed -> pruneExpiredIdempotencyKeys(now))
+                .flatMap(claimed -> claimed
+                        ? addEnrollment(enrollmentRequestDTO)
+                                .switchIfEmpty(Mono.defer(() -> idempotencyKeyRepository.releaseIdempotencyKey(idempotencyKey)
+                                        .then(Mono.empty())))
+                                .onErrorResume(error -> idempotencyKeyRepository.releaseIdempotencyKey(idempotencyKey)
+                                        .then(Mono.error(error)))
+                                .flatMap(created -> idempotencyKeyRepository.completeIdempotencyKey(idempotencyKey, created.getEnrollmentId())
+                                        .thenReturn(created))
+                        : idempotencyKeyRepository.findById(idempotencyKey)
+                                .filter(existing -> existing.getEnrollmentId() != null)
+                                .switchIfEmpty(Mono.error(new ConflictException("A request with this Idempotency-Key is already in progress: " + idempotencyKey)))
+                                .flatMap(existing -> getEnrollmentById(existing.getEnrollmentId())))
+                .doOnNext(enrollment -> completedIdempotencyKeys.put(idempotencyKey, enrollment.getEnrollmentId()));
+    }
+
+    // Keys older than the retention are deleted in the background, at most once per claim timeout and instance.
+    // A retry arriving after that is treated as a new request.
+    private void pruneExpiredIdempotencyKeys(LocalDateTime now) {
+        long dueAt = nextIdempotencyPruneAt.get();
+        if (System.nanoTime() - dueAt < 0 || !nextIdempotencyPruneAt.compareAndSet(dueAt, System.nanoTime() + idempotencyClaimTimeout.toNanos())) {
+            return;
+        }
+        idempotencyKeyRepository.deleteIdempotencyKeysCreatedBefore(now.minus(idempotencyRetention))
+                .subscribe(deletedCount -> log.debug("Deleted {} expired idempotency keys", deletedCount),
+                        error -> log.warn("Could not delete the expired idempotency keys: {}", error.getMessage()));
+    }
+
     @Override
     public Mono<EnrollmentResponseDTO> updateEnrollment(Mono<EnrollmentRequestDTO> enrollmentRequestDTO, String enrollmentId) {
        if(enrollmentId.length() != 36){
@@ -76,23 +340,32 @@ public class EnrollmentServiceImpl implements EnrollmentService {
        }
         return enrollmentRequestDTO
                 .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollmentId)))
-                .flatMap(updateEnrollmentRequestDTO -> {
-
-                    return enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId)
-                            .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollmentId)))
-                            .flatMap(existingEnrollment -> {
+                .filter(EnrollmentRequestValidator::isComplete)
+                .switchIfEmpty(Mono.error(new InvalidInputException(EnrollmentRequestValidator.MISSING_FIELDS_MESSAGE)))
+                .flatMap(updateEnrollmentRequestDTO -> enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId)
+                        .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollmentId)))
+                        .flatMap(current -> studentMutationSequencer.sequence(current.getStudentId(),
+                                Mono.defer(() -> updateEnrollmentInSequence(updateEnrollmentRequestDTO, enrollmentId)))))
+                .onErrorMap(EnrollmentServiceImpl::isDuplicateEnrollment, EnrollmentServiceImpl::duplicateEnrollment)
+                .flatMap(previousAndUpdated -> Objects.equals(previousAndUpdated.getT1().getCourseId(), previousAndUpdated.getT2().getCourseId())
+                        ? Mono.just(previousAndUpdated.getT2())
+                        : handOverSeat(previousAndUpdated.getT1()).thenReturn(previousAndUpdated.getT2()))
+                .map(EntityDTOUtils::toEnrollmentResponseDTO);
+    }
 
-                                RequestContextUpdate rcu = new RequestContextUpdate(updateEnrollmentRequestDTO, enrollmentId);
-                                rcu.setEnrollment(existingEnrollment);
-                                return Mono.just(rcu);
-                            });
+    // The row is read again once it is the student's turn, so an update never starts from a row an earlier
+    // mutation of the same student has since changed.
+    private Mono<Tuple2<Enrollment, Enrollment>> updateEnrollmentInSequence(EnrollmentRequestDTO updateEnrollmentRequestDTO, String enrollmentId) {
+        return enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId)
+                .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollmentId)))
+                .map(existingEnrollment -> {
+                    RequestContextUpdate rcu = new RequestContextUpdate(updateEnrollmentRequestDTO, enrollmentId);
+                    rcu.setEnrollment(existingEnrollment);
+                    return rcu;
                 })
-                .flatMap(this::updatedStudentRequestResponse)
-                .flatMap(this::updatedCourseRequestResponse)
-                .map(EntityDTOUtils::toUpdatedEnrollmentEntity)
-                .map(enrollmentRepository::save)
-                .flatMap(entity -> entity)
-                .map(EntityDTOUtils::toEnrollmentResponseDTO);
+                .flatMap(this::updatedStudentAndCourseRequestResponse)
+                .flatMap(rcu -> checkPrerequisites(rcu.getEnrollmentRequestDTO(), rcu.getCourseResponseDTO()).thenReturn(rcu))
+                .flatMap(this::updateWithBookedSchedule);
     }
 
     @Override
@@ -100,33 +373,402 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         if(enrollmentId.length() != 36){
             return Mono.error(new InvalidInputException("Invalid enrollmentId, length must be 36 characters"));
         }
+        // the seat is only handed over by the request whose DELETE actually removed the row
         return enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId)
+                .flatMap(current -> studentMutationSequencer.sequence(current.getStudentId(),
+                        enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId)
+                                .flatMap(enrollmentWaitlist::drop)
+                                .doOnNext(studentSchedules::release)))
                 .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollmentId)))
-                .flatMap(enrollmentRepository::delete);    }
+                .flatMap(this::handOverSeat);
+    }
+
+    // A seat freed by a delete or by a move to another course goes to the head of the waitlist of the same course
+    // and term, and back to courses-service when nobody on it can take it. It runs once the freeing student's
+    // mutation is over, since the promotion is a mutation of the promoted student.
+    private Mono<Void> handOverSeat(Enrollment freed) {
+        return enrollmentWaitlist.promoteNext(freed.getCourseId(), freed.getEnrollmentYear(), freed.getSemester())
+                .map(promoted -> true)
+                .onErrorResume(error -> {
+                    log.warn("Could not promote the waitlist of course {}: {}", freed.getCourseId(), error.getMessage());
+                    return Mono.just(false);
+                })
+                .defaultIfEmpty(false)
+                .flatMap(handedOver -> handedOver ? Mono.empty() : releaseSeats(freed.getCourseId(), 1));
+    }
+
+    @Override
+    public Mono<WaitlistEntryResponseDTO> joinWaitlist(Mono<EnrollmentRequestDTO> enrollmentRequestDTO) {
+        return enrollmentRequestDTO
+                .filter(EnrollmentRequestValidator::isComplete)
+                .switchIfEmpty(Mono.error(new InvalidInputException(EnrollmentRequestValidator.MISSING_FIELDS_MESSAGE)))
+                .flatMap(dto -> enrollmentRepository.existsByStudentIdAndCourseIdAndEnrollmentYearAndSemester(
+                                dto.getStudentId(), dto.getCourseId(), dto.getEnrollmentYear(), dto.getSemester())
+                        .flatMap(enrolled -> enrolled
+                                ? Mono.error(new ConflictException("Student is already enrolled in this course for this term"))
+                                : Mono.just(new RequestContextAdd(dto))))
+                .flatMap(this::studentAndCourseRequestResponse)
+                .flatMap(rc -> studentMutationSequencer.sequence(rc.getEnrollmentRequestDTO().getStudentId(),
+                        checkPrerequisites(rc.getEnrollmentRequestDTO(), rc.getCourseResponseDTO())
+                                .thenReturn(rc)
+                                .map(EntityDTOUtils::toWaitlistEntryEntity)
+                                .flatMap(enrollmentWaitlist::join)))
+                .onErrorMap(error -> violates(error, "uk_waitlist_student_course_term"), violation ->
+                        new ConflictException("Student is already on the waitlist for this course and term", violation))
+                .map(EntityDTOUtils::toWaitlistEntryResponseDTO);
+    }
+
+    @Override
+    public Mono<Void> leaveWaitlist(String waitlistEntryId) {
+        if(waitlistEntryId.length() != 36){
+            return Mono.error(new InvalidInputException("Invalid waitlistEntryId, length must be 36 characters"));
+        }
+        return waitlistEntryRepository.deleteWaitlistEntryByWaitlistEntryId(waitlistEntryId)
+                .filter(deletedCount -> deletedCount > 0)
+                .switchIfEmpty(Mono.error(new NotFoundException("No waitlist entry with this waitlistEntryId was found: " + waitlistEntryId)))
+                .then();
+    }
 
+    // Every ranked course must exist and have its prerequisites met when it is submitted, so the lottery only
+    // has to deal with seats, credits and meeting times. A new submission replaces the student's previous one.
+    @Override
+    public Mono<CoursePreferenceResponseDTO> submitPreferences(Mono<CoursePreferenceRequestDTO> coursePreferenceRequestDTO) {
+        return coursePreferenceRequestDTO
+                .filter(this::isValidPreferenceRequest)
+                .switchIfEmpty(Mono.error(new InvalidInputException("Invalid course preferences, enrollmentYear, semester, studentId and between 1 and "
+                        + maxPreferences + " distinct courseIds are required")))
+                .flatMap(dto -> studentClient.getStudentByStudentId(dto.getStudentId())
+                        .timeout(lookupTimeout)
+                        .flatMap(student -> Flux.fromIterable(dto.getCourseIds())
+                                .flatMapSequential(courseId -> courseClient.getCourseByCourseId(courseId)
+                                        .timeout(lookupTimeout)
+                                        .flatMap(course -> checkPrerequisites(EnrollmentRequestDTO.builder()
+                                                .enrollmentYear(dto.getEnrollmentYear())
+                                                .semester(dto.getSemester())
+                                                .studentId(dto.getStudentId())
+                                                .courseId(courseId)
+                                                .build(), course)))
+                                .then(Mono.fromSupplier(() -> EntityDTOUtils.toCoursePreferenceEntities(dto, student)))))
+                .flatMap(coursePreferences -> studentMutationSequencer.sequence(coursePreferences.get(0).getStudentId(),
+                        coursePreferenceRepository.deleteCoursePreferences(coursePreferences.get(0).getStudentId(),
+                                        coursePreferences.get(0).getEnrollmentYear(), coursePreferences.get(0).getSemester().name())
+                                .thenMany(coursePreferenceRepository.saveAll(coursePreferences))
+                                .as(transactionalOperator::transactional)
+                                .collectList()))
+                .map(EntityDTOUtils::toCoursePreferenceResponseDTO);
+    }
 
-    private Mono<RequestContextAdd> courseRequestResponse(RequestContextAdd rc) {
-        return this.courseClient.getCourseByCourseId(rc.getEnrollmentRequestDTO().getCourseId())
-                .doOnNext(rc::setCourseResponseDTO)
-                .thenReturn(rc);
+    @Override
+    public Mono<LotteryResultResponseDTO> runLottery(Integer enrollmentYear, Semester semester) {
+        if (enrollmentYear == null || semester == null) {
+            return Mono.error(new InvalidInputException("Invalid lottery, enrollmentYear and semester are required"));
+        }
+        return enrollmentLottery.run(enrollmentYear, semester);
     }
 
-    private Mono<RequestContextAdd> studentRequestResponse(RequestContextAdd rc){
-        return this.studentClient.getStudentByStudentId(rc.getEnrollmentRequestDTO().getStudentId())
-                .doOnNext(rc::setStudentResponseDTO)
-                .thenReturn(rc);
+    @Override
+    public Mono<ReadModelConsistencyResponseDTO> checkReadModel() {
+        return enrollmentReadModel.check();
+    }
+
+    private boolean isValidPreferenceRequest(CoursePreferenceRequestDTO coursePreferenceRequestDTO) {
+        List<String> courseIds = coursePreferenceRequestDTO.getCourseIds();
+        return coursePreferenceRequestDTO.getEnrollmentYear() != null
+                && coursePreferenceRequestDTO.getSemester() != null
+                && coursePreferenceRequestDTO.getStudentId() != null
+                && courseIds != null
+                && !courseIds.isEmpty()
+                && courseIds.size() <= maxPreferences
+                && courseIds.stream().noneMatch(Objects::isNull)
+                && courseIds.stream().distinct().count() == courseIds.size();
     }
 
-    private Mono<RequestContextUpdate> updatedCourseRequestResponse(RequestContextUpdate rcu){
-        return this.courseClient.getCourseByCourseId(rcu.getEnrollmentRequestDTO().getCourseId())
-                .doOnNext(rcu::setCourseResponseDTO)
-                .thenReturn(rcu);
+    @Override
+    public Flux<EnrollmentBulkResponseDTO> addEnrollments(Flux<EnrollmentRequestDTO> enrollmentRequestDTOs) {
+        return enrollmentRequestDTOs
+                .index()
+                .map(row -> new RequestContextBulk(row.getT1(), row.getT2()))
+                .buffer(bulkChunkSize)
+                .concatMap(this::addEnrollmentChunk)
+                .map(EntityDTOUtils::toEnrollmentBulkResponseDTO);
+    }
+
+    // Each distinct student and course in the chunk is looked up once, the valid rows are then
+    // written together and every row reports its own outcome.
+    private Flux<RequestContextBulk> addEnrollmentChunk(List<RequestContextBulk> chunk) {
+        Map<String, Mono<StudentResponseDTO>> students = new HashMap<>();
+        Map<String, Mono<CourseResponseDTO>> courses = new HashMap<>();
+        chunk.forEach(rcb -> {
+            EnrollmentRequestDTO enrollmentRequestDTO = rcb.getEnrollmentRequestDTO();
+            if (enrollmentRequestDTO.getStudentId() != null) {
+                students.computeIfAbsent(enrollmentRequestDTO.getStudentId(),
+                        studentId -> studentClient.getStudentByStudentId(studentId).timeout(lookupTimeout).cache());
+            }
+            if (enrollmentRequestDTO.getCourseId() != null) {
+                courses.computeIfAbsent(enrollmentRequestDTO.getCourseId(),
+                        courseId -> courseClient.getCourseByCourseId(courseId).timeout(lookupTimeout).cache());
+            }
+        });
+
+        return Flux.fromIterable(chunk)
+                .flatMapSequential(rcb -> bulkRequestResponse(rcb, students, courses))
+                .collectList()
+                .flatMapMany(resolved -> reserveChunkSeats(resolved.stream().filter(rcb -> rcb.getError() == null).toList())
+                        .then(Mono.defer(() -> writeChunk(resolved)))
+                        .thenMany(Flux.fromIterable(resolved))
+                        .doOnNext(rcb -> {
+                            if (rcb.getError() != null && rcb.getEnrollment() != null) {
+                                studentSchedules.release(rcb.getEnrollment());
+                            }
+                        }));
+    }
+
+    private Mono<Void> writeChunk(List<RequestContextBulk> resolved) {
+        Map<String, RequestContextBulk> pending = new HashMap<>();
+        resolved.stream()
+                .filter(rcb -> rcb.getError() == null)
+                .forEach(rcb -> pending.put(rcb.getEnrollment().getEnrollmentId(), rcb));
+
+        List<RequestContextBulk> failed = new ArrayList<>();
+        return enrollmentBatchWriter.write(pending.values().stream().map(RequestContextBulk::getEnrollment).toList())
+                .doOnNext(result -> {
+                    if (result.isSuccess()) {
+                        enrollmentChanges.created(result.getEnrollment());
+                    } else {
+                        Throwable error = isDuplicateEnrollment(result.getError())
+                                ? duplicateEnrollment(result.getError()) : result.getError();
+                        RequestContextBulk rcb = pending.get(result.getEnrollment().getEnrollmentId());
+                        rcb.setError(errorMessage(error));
+                        failed.add(rcb);
+                    }
+                })
+                .then(Mono.defer(() -> releaseChunkSeats(failed)));
+    }
+
+    // One reservation per course in the chunk. When a course cannot take all of its rows they are
+    // retried one seat at a time, so the rows that still fit go through.
+    private Mono<Void> reserveChunkSeats(List<RequestContextBulk> rows) {
+        Map<String, List<RequestContextBulk>> rowsByCourse = rows.stream()
+                .collect(Collectors.groupingBy(rcb -> rcb.getEnrollment().getCourseId()));
+
+        return Flux.fromIterable(rowsByCourse.entrySet())
+                .flatMap(course -> courseClient.reserveSeats(course.getKey(), course.getValue().size())
+                        .then()
+                        .onErrorResume(ConflictException.class, notEnoughSeats -> Flux.fromIterable(course.getValue())
+                                .concatMap(rcb -> courseClient.reserveSeats(course.getKey(), 1)
+                                        .then()
+                                        .onErrorResume(error -> {
+                                            rcb.setError(errorMessage(error));
+                                            return Mono.empty();
+                                        }))
+                                .then())
+                        .onErrorResume(error -> {
+                            course.getValue().forEach(rcb -> rcb.setError(errorMessage(error)));
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<Void> releaseChunkSeats(List<RequestContextBulk> rows) {
+        Map<String, Long> seatsByCourse = rows.stream()
+                .collect(Collectors.groupingBy(rcb -> rcb.getEnrollment().getCourseId(), Collectors.counting()));
+
+        return Flux.fromIterable(seatsByCourse.entrySet())
+                .flatMap(course -> releaseSeats(course.getKey(), course.getValue().intValue()))
+                .then();
+    }
+
+    private Mono<RequestContextBulk> bulkRequestResponse(RequestContextBulk rcb,
+                                                         Map<String, Mono<StudentResponseDTO>> students,
+                                                         Map<String, Mono<CourseResponseDTO>> courses) {
+        EnrollmentRequestDTO enrollmentRequestDTO = rcb.getEnrollmentRequestDTO();
+        if (!EnrollmentRequestValidator.isComplete(enrollmentRequestDTO)) {
+            rcb.setError(EnrollmentRequestValidator.MISSING_FIELDS_MESSAGE);
+            return Mono.just(rcb);
+        }
+        return Mono.zip(students.get(enrollmentRequestDTO.getStudentId()), courses.get(enrollmentRequestDTO.getCourseId()))
+                .flatMap(studentAndCourse -> checkPrerequisites(enrollmentRequestDTO, studentAndCourse.getT2())
+                        .thenReturn(studentAndCourse))
+                .map(studentAndCourse -> EntityDTOUtils.toEnrollmentEntity(new RequestContextAdd(enrollmentRequestDTO, null,
+                        studentAndCourse.getT1(), studentAndCourse.getT2())))
+                .flatMap(enrollment -> studentSchedules.book(enrollment).thenReturn(enrollment))
+                .map(enrollment -> {
+                    rcb.setEnrollment(enrollment);
+                    return rcb;
+                })
+                .onErrorResume(error -> {
+                    rcb.setError(errorMessage(error));
+                    return Mono.just(rcb);
+                });
+    }
+
+    // the slots are booked before anything is written and given back if the enrollment is not created
+    private Mono<Enrollment> saveWithBookedSchedule(Enrollment enrollment) {
+        return studentSchedules.book(enrollment)
+                .then(Mono.defer(() -> saveWithReservedSeat(enrollment)
+                        .doOnError(error -> studentSchedules.release(enrollment))));
+    }
+
+    // emits the previous row with the updated one, so a seat freed in the previous course can be handed over
+    private Mono<Tuple2<Enrollment, Enrollment>> updateWithBookedSchedule(RequestContextUpdate rcu) {
+        Enrollment previous = rcu.getEnrollment();
+        Enrollment enrollment = EntityDTOUtils.toUpdatedEnrollmentEntity(rcu);
+        return studentSchedules.rebook(previous, enrollment)
+                .then(Mono.defer(() -> updateWithReservedSeat(previous, enrollment)
+                        .doOnError(error -> studentSchedules.restore(previous))))
+                .doOnNext(updated -> enrollmentChanges.updated(previous, updated))
+                .map(updated -> Tuples.of(previous, updated));
+    }
+
+    // the seat is taken atomically in courses-service first and given back if the row cannot be written
+    private Mono<Enrollment> saveWithReservedSeat(Enrollment enrollment) {
+        return courseClient.reserveSeats(enrollment.getCourseId(), 1)
+                .then(Mono.defer(() -> enrollmentGroupCommitter.save(enrollment)
+                        .onErrorResume(error -> releaseSeats(enrollment.getCourseId(), 1).then(Mono.error(error)))));
+    }
+
+    // moving to another course takes a seat there first; the old one is handed over once the update is done
+    private Mono<Enrollment> updateWithReservedSeat(Enrollment previous, Enrollment enrollment) {
+        if (Objects.equals(previous.getCourseId(), enrollment.getCourseId())) {
+            return updateEnrollmentRow(previous, enrollment);
+        }
+        return courseClient.reserveSeats(enrollment.getCourseId(), 1)
+                .then(Mono.defer(() -> updateEnrollmentRow(previous, enrollment)
+                        .onErrorResume(error -> releaseSeats(enrollment.getCourseId(), 1).then(Mono.error(error)))));
+    }
+
+    // the credit loads and course counts of the old and new term are moved in the same transaction as the row
+    private Mono<Enrollment> updateEnrollmentRow(Enrollment previous, Enrollment enrollment) {
+        return studentTermLoadTracker.move(previous, enrollment)
+                .then(Mono.defer(() -> courseTermCounter.move(previous, enrollment)))
+                .then(Mono.defer(() -> enrollmentRepository.updateEnrollmentByEnrollmentId(enrollment)))
+                .filter(updatedCount -> updatedCount > 0)
+                .switchIfEmpty(Mono.error(new NotFoundException("No enrollment with this enrollmentId was found: " + enrollment.getEnrollmentId())))
+                .thenReturn(enrollment)
+                .as(transactionalOperator::transactional);
+    }
+
+    // a failed release only leaves a seat counted as taken, it never fails the caller's request
+    private Mono<Void> releaseSeats(String courseId, int count) {
+        return courseClient.releaseSeats(courseId, count)
+                .doOnError(error -> log.warn("Could not release {} seat(s) in course {}: {}", count, courseId, error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    // A course counts as completed once the student was enrolled in it in an earlier term. Courses without
+    // prerequisites never reach courses-service; the others cost one closure check there.
+    private Mono<Void> checkPrerequisites(EnrollmentRequestDTO enrollmentRequestDTO, CourseResponseDTO courseResponseDTO) {
+        if (courseResponseDTO.getPrerequisiteCourseIds() == null || courseResponseDTO.getPrerequisiteCourseIds().isEmpty()) {
+            return Mono.empty();
+        }
+        return enrollmentRepository.findAllEnrollmentsByStudentId(enrollmentRequestDTO.getStudentId())
+                .filter(enrollment -> isEarlierTerm(enrollment, enrollmentRequestDTO.getEnrollmentYear(), enrollmentRequestDTO.getSemester()))
+                .map(Enrollment::getCourseId)
+                .distinct()
+                .collectList()
+                .flatMap(completedCourseIds -> courseClient.checkPrerequisites(courseResponseDTO.getCourseId(), completedCourseIds))
+                .flatMap(check -> check.isSatisfied()
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ConflictException("Student has not completed the prerequisites of course "
+                                + courseResponseDTO.getCourseId() + ": " + check.getMissingCourseIds())));
+    }
+
+    private static boolean isEarlierTerm(Enrollment enrollment, Integer enrollmentYear, Semester semester) {
+        if (enrollment.getEnrollmentYear() == null || enrollment.getSemester() == null || enrollmentYear == null || semester == null) {
+            return false;
+        }
+        int year = Integer.compare(enrollment.getEnrollmentYear(), enrollmentYear);
+        return year < 0 || (year == 0 && enrollment.getSemester().compareTo(semester) < 0);
+    }
+
+    // the unique (studentId, courseId, enrollmentYear, semester) index does the duplicate check in the same round trip as the write
+    private static ConflictException duplicateEnrollment(Throwable violation) {
+        return new ConflictException("Student is already enrolled in this course for this term", violation);
+    }
+
+    private static boolean isDuplicateEnrollment(Throwable error) {
+        return violates(error, "uk_enrollments_student_course_term");
+    }
+
+    // Only a violation of the named constraint is reported as a duplicate; any other violation surfaces as it is.
+    // H2 and PostgreSQL both name the constraint in the message of the driver's exception.
+    private static boolean violates(Throwable error, String constraint) {
+        if (!(error instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase(Locale.ROOT).contains(constraint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String errorMessage(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+
+    private Mono<RequestContextAdd> studentAndCourseRequestResponse(RequestContextAdd rc) {
+        return studentAndCourse(rc.getEnrollmentRequestDTO())
+                .map(studentAndCourse -> {
+                    rc.setStudentResponseDTO(studentAndCourse.getT1());
+                    rc.setCourseResponseDTO(studentAndCourse.getT2());
+                    return rc;
+                });
+    }
+
+    // only what the update can change is looked up again; the names already stored on the row are reused for the rest
+    private Mono<RequestContextUpdate> updatedStudentAndCourseRequestResponse(RequestContextUpdate rcu) {
+        EnrollmentRequestDTO enrollmentRequestDTO = rcu.getEnrollmentRequestDTO();
+        Enrollment existingEnrollment = rcu.getEnrollment();
+
+        Mono<StudentResponseDTO> student;
+        if (Objects.equals(enrollmentRequestDTO.getStudentId(), existingEnrollment.getStudentId())) {
+            skippedStudentLookups.increment();
+            student = Mono.just(StudentResponseDTO.builder()
+                    .studentId(existingEnrollment.getStudentId())
+                    .firstName(existingEnrollment.getStudentFirstName())
+                    .lastName(existingEnrollment.getStudentLastName())
+                    .build());
+        } else {
+            student = studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId());
+        }
+
+        // the row does not carry the course's prerequisites, so it only stands in for the course when the check cannot change
+        Mono<CourseResponseDTO> course;
+        if (Objects.equals(enrollmentRequestDTO.getCourseId(), existingEnrollment.getCourseId())
+                && Objects.equals(enrollmentRequestDTO.getStudentId(), existingEnrollment.getStudentId())
+                && Objects.equals(enrollmentRequestDTO.getEnrollmentYear(), existingEnrollment.getEnrollmentYear())
+                && enrollmentRequestDTO.getSemester() == existingEnrollment.getSemester()) {
+            skippedCourseLookups.increment();
+            course = Mono.just(CourseResponseDTO.builder()
+                    .courseId(existingEnrollment.getCourseId())
+                    .courseNumber(existingEnrollment.getCourseNumber())
+                    .courseName(existingEnrollment.getCourseName())
+                    .numCredits(existingEnrollment.getNumCredits())
+                    .meetingSlots(MeetingSlots.parse(existingEnrollment.getMeetingSlots()))
+                    .build());
+        } else {
+            course = courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId());
+        }
+
+        return Mono.zip(student, course)
+                .timeout(lookupTimeout)
+                .map(studentAndCourse -> {
+                    rcu.setStudentResponseDTO(studentAndCourse.getT1());
+                    rcu.setCourseResponseDTO(studentAndCourse.getT2());
+                    return rcu;
+                });
     }
 
-    private Mono<RequestContextUpdate> updatedStudentRequestResponse(RequestContextUpdate rcu){
-        return this.studentClient.getStudentByStudentId(rcu.getEnrollmentRequestDTO().getStudentId())
-                .doOnNext(rcu::setStudentResponseDTO)
-                .thenReturn(rcu);
+    // both lookups are subscribed at once; zip cancels the other one as soon as either fails
+    private Mono<Tuple2<StudentResponseDTO, CourseResponseDTO>> studentAndCourse(EnrollmentRequestDTO enrollmentRequestDTO) {
+        return Mono.zip(
+                        this.studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()),
+                        this.courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .timeout(lookupTimeout);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,413 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentStatsGroupResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentStatsResponseDTO;
+import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+// Enrollment counts for the registrar, answered from a columnar copy of the four columns they group on instead
+// of GROUP BY queries against the enrollments table. Course ids, course numbers, departments and years are
+// dictionary-encoded to small ints, so a count is a fork-join scan over int arrays where each task counts its
+// own range into a dense array of groups and the halves are added together. The copy is loaded at startup and
+// kept in step by the write paths through EnrollmentChanges. A write never waits for a scan: its change is queued
+// and applied right away when no scan holds the columns, otherwise by the next write or scan after it.
+@Slf4j
+@Component
+public class EnrollmentStatistics implements EnrollmentChangeListener {
+
+    private static final int NONE = -1;
+    private static final int ROWS_PER_TASK = 1 << 16;
+    private static final int MAX_GROUPS = 1 << 22;
+    private static final long RETRY_AFTER_SECONDS = 5;
+    private static final Semester[] SEMESTERS = Semester.values();
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final ForkJoinPool forkJoinPool;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<Enrollment[]> pendingChanges = new ConcurrentLinkedQueue<>();
+    private Mono<Void> lastLoad = Mono.empty();
+
+    // guarded by lock
+    private Columns columns = new Columns();
+    private boolean loaded;
+    private List<Enrollment[]> changesWhileLoading;
+
+    @Autowired
+    public EnrollmentStatistics(EnrollmentRepository enrollmentRepository,
+                                @Value("${app.enrollments.stats.parallelism:0}") int parallelism) {
+        this(enrollmentRepository, parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool());
+    }
+
+    EnrollmentStatistics(EnrollmentRepository enrollmentRepository, ForkJoinPool forkJoinPool) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        load().subscribe(null, error -> log.warn("Could not load the enrollment statistics: {}", error.getMessage()));
+    }
+
+    // Each call reads the table again once the loads before it are done, so rows written around the write paths
+    // before the call are always picked up. The previous copy keeps answering until the new one is complete.
+    public synchronized Mono<Void> load() {
+        Mono<Void> load = lastLoad.onErrorResume(error -> Mono.empty())
+                .then(Mono.defer(this::loadOnce))
+                .cache();
+        lastLoad = load;
+        return load;
+    }
+
+    private Mono<Void> loadOnce() {
+        write(() -> {
+            applyPendingChanges();
+            changesWhileLoading = new ArrayList<>();
+        });
+        Columns loading = new Columns();
+        return enrollmentRepository.findAllEnrollmentsByFilter(new EnrollmentFilter(), new EnrollmentPage())
+                .doOnNext(loading::upsert)
+                .then(Mono.fromRunnable(() -> write(() -> {
+                    applyPendingChanges();
+                    changesWhileLoading.forEach(change -> loading.apply(change[0], change[1]));
+                    changesWhileLoading = null;
+                    columns = loading;
+                    loaded = true;
+                    log.info("Loaded {} enrollments into the statistics", loading.rows);
+                })))
+                .doOnError(error -> write(() -> changesWhileLoading = null))
+                .then();
+    }
+
+    @Override
+    public void enrollmentChanged(Enrollment previous, Enrollment current) {
+        pendingChanges.add(new Enrollment[]{previous, current});
+        if (lock.writeLock().tryLock()) {
+            try {
+                applyPendingChanges();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Changes queued while scans held the columns are applied first, then the write lock is downgraded so
+    // concurrent scans share the columns.
+    public EnrollmentStatsResponseDTO aggregate(EnrollmentStatsQuery query) {
+        if (pendingChanges.isEmpty()) {
+            lock.readLock().lock();
+        } else {
+            lock.writeLock().lock();
+            try {
+                applyPendingChanges();
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            if (!loaded) {
+                throw new ServiceUnavailableException("Enrollment statistics are still loading, try again later", RETRY_AFTER_SECONDS);
+            }
+            return columns.aggregate(query, forkJoinPool);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // must hold the write lock
+    private void applyPendingChanges() {
+        Enrollment[] change;
+        while ((change = pendingChanges.poll()) != null) {
+            if (changesWhileLoading != null) {
+                changesWhileLoading.add(change);
+            }
+            columns.apply(change[0], change[1]);
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One slot per row; a free slot has id 0. Not thread-safe, EnrollmentStatistics guards it.
+    private static final class Columns {
+
+        private final EnrollmentRows.StringDictionary courseIds = new EnrollmentRows.StringDictionary();
+        private final EnrollmentRows.StringDictionary courseNumbers = new EnrollmentRows.StringDictionary();
+        private final EnrollmentRows.StringDictionary departments = new EnrollmentRows.StringDictionary();
+        private final EnrollmentRows.IntIntMap yearKeys = new EnrollmentRows.IntIntMap();
+        private final EnrollmentRows.IntIntMap slotsById = new EnrollmentRows.IntIntMap();
+
+        private int[] ids = new int[1024];
+        private int[] courses = new int[1024];
+        private int[] courseNumberOfRow = new int[1024];
+        private int[] years = new int[1024];
+        private byte[] semesters = new byte[1024];
+        private int slotCount;
+        private int[] freeSlots = new int[16];
+        private int freeSlotCount;
+        private int rows;
+
+        // per dictionary key: the year it stands for, a course's latest course number and a course number's department
+        private int[] yearOfKey = new int[16];
+        private int[] courseNumberOfCourse = new int[16];
+        private int[] departmentOfCourseNumber = new int[16];
+
+        void apply(Enrollment previous, Enrollment current) {
+            if (previous != null && previous.getId() != null) {
+                remove(previous.getId());
+            }
+            if (current != null) {
+                upsert(current);
+            }
+        }
+
+        void upsert(Enrollment enrollment) {
+            if (enrollment.getId() == null) {
+                return;
+            }
+            remove(enrollment.getId());
+            int slot = allocateSlot();
+            int course = courseIds.intern(enrollment.getCourseId());
+            int courseNumber = courseNumbers.intern(enrollment.getCourseNumber());
+            ids[slot] = enrollment.getId();
+            courses[slot] = course;
+            courseNumberOfRow[slot] = courseNumber;
+            years[slot] = yearKey(enrollment.getEnrollmentYear());
+            semesters[slot] = enrollment.getSemester() == null ? NONE : (byte) enrollment.getSemester().ordinal();
+            if (courseNumber != NONE) {
+                departmentOfCourseNumber = grow(departmentOfCourseNumber, courseNumber);
+                departmentOfCourseNumber[courseNumber] = departments.intern(department(enrollment.getCourseNumber()));
+            }
+            if (course != NONE) {
+                courseNumberOfCourse = grow(courseNumberOfCourse, course);
+                courseNumberOfCourse[course] = courseNumber;
+            }
+            slotsById.put(enrollment.getId(), slot);
+            rows++;
+        }
+
+        void remove(int id) {
+            int slot = slotsById.get(id);
+            if (slot == NONE) {
+                return;
+            }
+            slotsById.remove(id);
+            ids[slot] = 0;
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+            }
+            freeSlots[freeSlotCount++] = slot;
+            rows--;
+        }
+
+        EnrollmentStatsResponseDTO aggregate(EnrollmentStatsQuery query, ForkJoinPool forkJoinPool) {
+            Grouping grouping = new Grouping(this, query);
+            long[] counts = grouping.matchesNothing
+                    ? new long[grouping.groups]
+                    : forkJoinPool.invoke(new CountGroups(grouping, 0, slotCount));
+            IntStream groups = IntStream.range(0, counts.length)
+                    .filter(group -> counts[group] > 0);
+            List<EnrollmentStatsGroupResponseDTO> largestFirst = groups.boxed()
+                    .sorted(Comparator.comparingLong((Integer group) -> counts[group]).reversed()
+                            .thenComparingInt(group -> group))
+                    .limit(query.getTop() == null ? Long.MAX_VALUE : query.getTop())
+                    .map(group -> grouping.describe(group, counts[group]))
+                    .toList();
+            return EnrollmentStatsResponseDTO.builder()
+                    .groupBy(query.getGroupBy().stream().map(dimension -> dimension.name().toLowerCase()).toList())
+                    .enrollments(Arrays.stream(counts).sum())
+                    .groups(largestFirst)
+                    .build();
+        }
+
+        private int yearKey(Integer year) {
+            if (year == null) {
+                return NONE;
+            }
+            int key = yearKeys.get(year);
+            if (key == NONE) {
+                key = yearKeys.size();
+                yearKeys.put(year, key);
+                yearOfKey = grow(yearOfKey, key);
+                yearOfKey[key] = year;
+            }
+            return key;
+        }
+
+        private int allocateSlot() {
+            if (freeSlotCount > 0) {
+                return freeSlots[--freeSlotCount];
+            }
+            if (slotCount == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                courses = Arrays.copyOf(courses, capacity);
+                courseNumberOfRow = Arrays.copyOf(courseNumberOfRow, capacity);
+                years = Arrays.copyOf(years, capacity);
+                semesters = Arrays.copyOf(semesters, capacity);
+            }
+            return slotCount++;
+        }
+
+        private static int[] grow(int[] values, int index) {
+            return index < values.length ? values : Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+        }
+
+        // the discipline code before the first dash, e.g. 420 for 420-N45-LA
+        private static String department(String courseNumber) {
+            if (courseNumber == null) {
+                return null;
+            }
+            int dash = courseNumber.indexOf('-');
+            String department = (dash < 0 ? courseNumber : courseNumber.substring(0, dash)).trim();
+            return department.isEmpty() ? null : department;
+        }
+    }
+
+    // A row's group is a mixed-radix number with one digit per dimension of groupBy, where digit 0 stands for a
+    // missing value and digit k for dictionary key k - 1.
+    private static final class Grouping {
+
+        private final Columns columns;
+        private final EnrollmentStatsDimension[] dimensions;
+        private final int[] radixes;
+        private final int groups;
+        private final int rowsPerTask;
+        private final int year;
+        private final int semester;
+        private final boolean matchesNothing;
+
+        Grouping(Columns columns, EnrollmentStatsQuery query) {
+            this.columns = columns;
+            this.dimensions = query.getGroupBy().toArray(EnrollmentStatsDimension[]::new);
+            this.radixes = new int[dimensions.length];
+            long groupCount = 1;
+            for (int i = 0; i < dimensions.length; i++) {
+                radixes[i] = switch (dimensions[i]) {
+                    case COURSE -> columns.courseIds.size() + 1;
+                    case DEPARTMENT -> columns.departments.size() + 1;
+                    case YEAR -> columns.yearKeys.size() + 1;
+                    case SEMESTER -> SEMESTERS.length + 1;
+                };
+                groupCount *= radixes[i];
+                if (groupCount > MAX_GROUPS) {
+                    throw new InvalidInputException("Too many groups, at most " + MAX_GROUPS + " combinations of " + query.getGroupBy()
+                            + " can be counted at once; filter on enrollmentYear or semester, or group by fewer dimensions");
+                }
+            }
+            this.groups = (int) groupCount;
+            // a task counts at least as many rows as it has groups, so the arrays it adds up never outweigh the scan
+            this.rowsPerTask = Math.max(ROWS_PER_TASK, groups);
+            int yearKey = query.getEnrollmentYear() == null ? NONE : columns.yearKeys.get(query.getEnrollmentYear());
+            this.year = yearKey;
+            this.semester = query.getSemester() == null ? NONE : query.getSemester().ordinal();
+            this.matchesNothing = query.getEnrollmentYear() != null && yearKey == NONE;
+        }
+
+        boolean matches(int slot) {
+            return columns.ids[slot] != 0
+                    && (year == NONE || columns.years[slot] == year)
+                    && (semester == NONE || columns.semesters[slot] == semester);
+        }
+
+        int group(int slot) {
+            int group = 0;
+            for (int i = 0; i < dimensions.length; i++) {
+                int key = switch (dimensions[i]) {
+                    case COURSE -> columns.courses[slot];
+                    case DEPARTMENT -> columns.courseNumberOfRow[slot] == NONE
+                            ? NONE : columns.departmentOfCourseNumber[columns.courseNumberOfRow[slot]];
+                    case YEAR -> columns.years[slot];
+                    case SEMESTER -> columns.semesters[slot];
+                };
+                group = group * radixes[i] + key + 1;
+            }
+            return group;
+        }
+
+        EnrollmentStatsGroupResponseDTO describe(int group, long enrollments) {
+            EnrollmentStatsGroupResponseDTO.EnrollmentStatsGroupResponseDTOBuilder builder = EnrollmentStatsGroupResponseDTO.builder()
+                    .enrollments(enrollments);
+            for (int i = dimensions.length - 1; i >= 0; i--) {
+                int key = group % radixes[i] - 1;
+                group /= radixes[i];
+                if (key == NONE) {
+                    continue;
+                }
+                switch (dimensions[i]) {
+                    case COURSE -> builder.courseId(columns.courseIds.get(key))
+                            .courseNumber(columns.courseNumbers.get(columns.courseNumberOfCourse[key]));
+                    case DEPARTMENT -> builder.department(columns.departments.get(key));
+                    case YEAR -> builder.enrollmentYear(columns.yearOfKey[key]);
+                    case SEMESTER -> builder.semester(SEMESTERS[key]);
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    private static final class CountGroups extends RecursiveTask<long[]> {
+
+        private final Grouping grouping;
+        private final int from;
+        private final int to;
+
+        CountGroups(Grouping grouping, int from, int to) {
+            this.grouping = grouping;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= grouping.rowsPerTask) {
+                long[] counts = new long[grouping.groups];
+                for (int slot = from; slot < to; slot++) {
+                    if (grouping.matches(slot)) {
+                        counts[grouping.group(slot)]++;
+                    }
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            CountGroups left = new CountGroups(grouping, from, middle);
+            left.fork();
+            long[] counts = new CountGroups(grouping, middle, to).compute();
+            long[] leftCounts = left.join();
+            for (int group = 0; group < counts.length; group++) {
+                counts[group] += leftCounts[group];
+            }
+            return counts;
+        }
+    }
+
+}
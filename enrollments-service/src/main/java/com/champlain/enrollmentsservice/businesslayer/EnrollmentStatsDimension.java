@@ -0,0 +1,7 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+// What enrollment counts can be grouped by. DEPARTMENT is the discipline code that starts the course number,
+// e.g. 420 for 420-N45-LA, since enrollments do not store the course's department.
+public enum EnrollmentStatsDimension {
+    COURSE, DEPARTMENT, YEAR, SEMESTER
+}
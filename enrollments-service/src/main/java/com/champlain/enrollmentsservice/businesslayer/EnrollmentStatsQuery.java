@@ -0,0 +1,24 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Counts enrollments grouped by the dimensions of groupBy, restricted to a year and semester when they are
+// set. A null top returns every group, largest first.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentStatsQuery {
+
+    private List<EnrollmentStatsDimension> groupBy;
+    private Integer enrollmentYear;
+    private Semester semester;
+    private Integer top;
+
+}
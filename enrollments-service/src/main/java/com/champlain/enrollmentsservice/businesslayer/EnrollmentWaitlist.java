@@ -0,0 +1,97 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntry;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntryRepository;
+import com.champlain.enrollmentsservice.utils.EntityDTOUtils;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrollmentWaitlist {
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final StudentTermLoadTracker studentTermLoadTracker;
+    private final StudentSchedules studentSchedules;
+    private final EnrollmentChanges enrollmentChanges;
+    private final CourseTermCounter courseTermCounter;
+    private final TransactionalOperator transactionalOperator;
+    private final StudentMutationSequencer studentMutationSequencer;
+
+    public Mono<WaitlistEntry> join(WaitlistEntry waitlistEntry) {
+        return waitlistEntryRepository.save(waitlistEntry);
+    }
+
+    // The row is deleted and its credits given back in one transaction. Emits the deleted row, or nothing when
+    // it was already gone; the row is reported once the transaction committed, so a listing read in between
+    // cannot be cached with the old row. The seat is handed to the waitlist with promoteNext once the dropping
+    // student's mutation is over.
+    public Mono<Enrollment> drop(Enrollment enrollment) {
+        return enrollmentRepository.deleteEnrollmentByEnrollmentId(enrollment.getEnrollmentId())
+                .filter(deletedCount -> deletedCount > 0)
+                .flatMap(deletedCount -> studentTermLoadTracker.release(enrollment)
+                        .then(courseTermCounter.decrement(enrollment))
+                        .thenReturn(enrollment))
+                .as(transactionalOperator::transactional)
+                .doOnNext(enrollmentChanges::deleted);
+    }
+
+    // Enrolls the head of the waitlist of a freed seat's course and term, or emits nothing when nobody could
+    // take it. Each head is promoted in its own transaction as a mutation of the promoted student, so it is
+    // ordered with that student's own requests; callers must not be inside another student's mutation. A head
+    // that a concurrent promotion already removed, that is already enrolled, whose meeting slots clash with
+    // their schedule or who has no credits left for the term loses their place and the next head is tried.
+    public Mono<Enrollment> promoteNext(String courseId, Integer enrollmentYear, Semester semester) {
+        if (enrollmentYear == null || semester == null) {
+            return Mono.empty();
+        }
+        return waitlistEntryRepository.findHeadOfWaitlist(courseId, enrollmentYear, semester.name())
+                .flatMap(head -> studentMutationSequencer.sequence(head.getStudentId(), promote(head)
+                                .as(transactionalOperator::transactional)
+                                .doOnError(error -> studentSchedules.invalidate(head.getStudentId())))
+                        .switchIfEmpty(Mono.defer(() -> promoteNext(courseId, enrollmentYear, semester))))
+                .doOnNext(promoted -> {
+                    enrollmentChanges.created(promoted);
+                    log.debug("Promoted student {} from the waitlist of course {}", promoted.getStudentId(), courseId);
+                });
+    }
+
+    private Mono<Enrollment> promote(WaitlistEntry head) {
+        return waitlistEntryRepository.removeWaitlistEntry(head.getId())
+                .filter(removedCount -> removedCount > 0)
+                .flatMap(removedCount -> enrollmentRepository.existsByStudentIdAndCourseIdAndEnrollmentYearAndSemester(
+                        head.getStudentId(), head.getCourseId(), head.getEnrollmentYear(), head.getSemester()))
+                .filter(alreadyEnrolled -> !alreadyEnrolled)
+                .flatMap(notEnrolled -> enroll(EntityDTOUtils.toEnrollmentEntity(head)));
+    }
+
+    // the slots are booked like on every other enrollment path, and given back if the student cannot be enrolled
+    private Mono<Enrollment> enroll(Enrollment enrollment) {
+        return studentSchedules.book(enrollment)
+                .thenReturn(true)
+                .onErrorResume(ConflictException.class, clash -> {
+                    log.debug("Skipped student {} on the waitlist of course {}: {}", enrollment.getStudentId(),
+                            enrollment.getCourseId(), clash.getMessage());
+                    return Mono.just(false);
+                })
+                .flatMap(free -> free ? studentTermLoadTracker.tryCharge(enrollment) : Mono.just(false))
+                .flatMap(promoted -> {
+                    if (!promoted) {
+                        studentSchedules.release(enrollment);
+                        return Mono.<Enrollment>empty();
+                    }
+                    return courseTermCounter.increment(enrollment).then(enrollmentRepository.save(enrollment));
+                })
+                .doOnError(error -> studentSchedules.release(enrollment));
+    }
+
+}
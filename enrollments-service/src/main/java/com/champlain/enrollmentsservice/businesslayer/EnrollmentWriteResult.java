@@ -0,0 +1,28 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentWriteResult {
+
+    private Enrollment enrollment;
+    private Throwable error;
+
+    public static EnrollmentWriteResult success(Enrollment enrollment){
+        return new EnrollmentWriteResult(enrollment, null);
+    }
+
+    public static EnrollmentWriteResult failure(Enrollment enrollment, Throwable error){
+        return new EnrollmentWriteResult(enrollment, error);
+    }
+
+    public boolean isSuccess(){
+        return error == null;
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Randomized allocation of ranked course preferences. Every student draws a lottery ticket, then in each round
+// every student still in the lottery applies to the best-ranked course they can still take, and every course
+// admits its applicants in ticket order up to its free seats. Nobody gets a second course before everybody had
+// a shot at a first one, and the ticket order is reversed every other round so the students who drew last get
+// first pick in the next round. Courses are independent within a round, so they are decided in parallel.
+@Component
+public class LotteryAllocator {
+
+    private static final int COURSES_PER_TASK = 64;
+    private static final double CREDIT_TOLERANCE = 1e-9;
+
+    private final ForkJoinPool forkJoinPool;
+    private final int maxCoursesPerStudent;
+
+    public LotteryAllocator(@Value("${app.enrollments.lottery.parallelism:0}") int parallelism,
+                            @Value("${app.enrollments.lottery.max-courses-per-student:5}") int maxCoursesPerStudent) {
+        this.forkJoinPool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        this.maxCoursesPerStudent = maxCoursesPerStudent;
+    }
+
+    // seats is the number of free seats; meetingMinutes holds [start, end) pairs in minutes of the week
+    public record Course(String courseId, int seats, double credits, int[] meetingMinutes) {
+    }
+
+    // rankedCourses are indexes into the course list, best first; bookedMinutes are the slots the student already has
+    public record Student(String studentId, int[] rankedCourses, double creditsLeft, int coursesTaken, int[] bookedMinutes) {
+    }
+
+    // Returns, for every student, the indexes of the courses they were admitted to in the order they got them.
+    // The same seed always gives the same allocation.
+    public int[][] allocate(List<Student> students, List<Course> courses, long seed) {
+        return new Allocation(students, courses, seed).run();
+    }
+
+    private final class Allocation {
+
+        private final List<Student> students;
+        private final List<Course> courses;
+        private final int[] tickets;
+        private final int[] seatsLeft;
+        private final double[] creditsLeft;
+        private final int[] coursesLeft;
+        private final int[] nextChoice;
+        private final int[][] booked;
+        private final int[][] admitted;
+        private final int[] admittedCount;
+
+        // per round: the course each student applies to, the applicants grouped by course and who got in
+        private final int[] applyingTo;
+        private final int[] courseOffsets;
+        private final long[] applications;
+        private final boolean[] accepted;
+
+        Allocation(List<Student> students, List<Course> courses, long seed) {
+            this.students = students;
+            this.courses = courses;
+            int studentCount = students.size();
+            this.tickets = drawTickets(studentCount, seed);
+            this.seatsLeft = courses.stream().mapToInt(Course::seats).toArray();
+            this.creditsLeft = students.stream().mapToDouble(Student::creditsLeft).toArray();
+            this.coursesLeft = students.stream().mapToInt(student -> maxCoursesPerStudent - student.coursesTaken()).toArray();
+            this.nextChoice = new int[studentCount];
+            this.booked = students.stream().map(student -> student.bookedMinutes() == null ? new int[0] : student.bookedMinutes().clone())
+                    .toArray(int[][]::new);
+            this.admitted = new int[studentCount][];
+            this.admittedCount = new int[studentCount];
+            this.applyingTo = new int[studentCount];
+            this.courseOffsets = new int[courses.size() + 1];
+            this.applications = new long[studentCount];
+            this.accepted = new boolean[studentCount];
+        }
+
+        int[][] run() {
+            for (int round = 0; apply(round % 2 == 1) > 0; round++) {
+                forkJoinPool.invoke(new AdmitApplicants(this, 0, courses.size()));
+                recordAdmissions();
+            }
+            int[][] result = new int[students.size()][];
+            for (int student = 0; student < result.length; student++) {
+                result[student] = admitted[student] == null ? new int[0] : Arrays.copyOf(admitted[student], admittedCount[student]);
+            }
+            return result;
+        }
+
+        // Each student applies to their next choice that still has seats, fits their credits and does not clash
+        // with their schedule. The applications are laid out grouped by course, each keyed by ticket so a
+        // course only has to sort its own slice.
+        private int apply(boolean reversed) {
+            int[] applicantsPerCourse = new int[courses.size()];
+            int applicantCount = 0;
+            for (int student = 0; student < applyingTo.length; student++) {
+                int course = nextFit(student);
+                applyingTo[student] = course;
+                if (course >= 0) {
+                    applicantsPerCourse[course]++;
+                    applicantCount++;
+                }
+            }
+            if (applicantCount == 0) {
+                return 0;
+            }
+            for (int course = 0; course < applicantsPerCourse.length; course++) {
+                courseOffsets[course + 1] = courseOffsets[course] + applicantsPerCourse[course];
+            }
+            int[] position = Arrays.copyOf(courseOffsets, courses.size());
+            int lastTicket = tickets.length - 1;
+            for (int student = 0; student < applyingTo.length; student++) {
+                int course = applyingTo[student];
+                if (course >= 0) {
+                    long ticket = reversed ? lastTicket - tickets[student] : tickets[student];
+                    applications[position[course]++] = ticket << 32 | student;
+                }
+            }
+            return applicantCount;
+        }
+
+        private int nextFit(int student) {
+            if (coursesLeft[student] <= 0) {
+                return -1;
+            }
+            int[] rankedCourses = students.get(student).rankedCourses();
+            while (nextChoice[student] < rankedCourses.length) {
+                int course = rankedCourses[nextChoice[student]];
+                if (seatsLeft[course] > 0 && courses.get(course).credits() <= creditsLeft[student] + CREDIT_TOLERANCE
+                        && !overlaps(booked[student], courses.get(course).meetingMinutes())) {
+                    return course;
+                }
+                nextChoice[student]++;
+            }
+            return -1;
+        }
+
+        // Only oversubscribed courses are sorted; the others take every applicant.
+        void admit(int course) {
+            int from = courseOffsets[course];
+            int to = courseOffsets[course + 1];
+            int applicantCount = to - from;
+            if (applicantCount == 0) {
+                return;
+            }
+            if (applicantCount > seatsLeft[course]) {
+                Arrays.sort(applications, from, to);
+            }
+            int admittedApplicants = Math.min(applicantCount, seatsLeft[course]);
+            for (int i = from; i < from + admittedApplicants; i++) {
+                accepted[(int) applications[i]] = true;
+            }
+            seatsLeft[course] -= admittedApplicants;
+        }
+
+        private void recordAdmissions() {
+            for (int student = 0; student < applyingTo.length; student++) {
+                int course = applyingTo[student];
+                if (course < 0) {
+                    continue;
+                }
+                nextChoice[student]++;
+                if (accepted[student]) {
+                    accepted[student] = false;
+                    if (admitted[student] == null) {
+                        admitted[student] = new int[Math.max(1, Math.min(maxCoursesPerStudent, students.get(student).rankedCourses().length))];
+                    } else if (admittedCount[student] == admitted[student].length) {
+                        admitted[student] = Arrays.copyOf(admitted[student], admittedCount[student] * 2);
+                    }
+                    admitted[student][admittedCount[student]++] = course;
+                    creditsLeft[student] -= courses.get(course).credits();
+                    coursesLeft[student]--;
+                    int[] meetingMinutes = courses.get(course).meetingMinutes();
+                    if (meetingMinutes != null && meetingMinutes.length > 0) {
+                        int[] studentBooked = Arrays.copyOf(booked[student], booked[student].length + meetingMinutes.length);
+                        System.arraycopy(meetingMinutes, 0, studentBooked, booked[student].length, meetingMinutes.length);
+                        booked[student] = studentBooked;
+                    }
+                }
+            }
+        }
+
+    }
+
+    // Splits the course range until a slice is small enough to decide on one thread. Every course only touches
+    // its own slice of the applications and its own seat count, and every student applies to one course per
+    // round, so the slices never write to the same slot.
+    private static final class AdmitApplicants extends RecursiveAction {
+
+        private final Allocation allocation;
+        private final int from;
+        private final int to;
+
+        AdmitApplicants(Allocation allocation, int from, int to) {
+            this.allocation = allocation;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= COURSES_PER_TASK) {
+                for (int course = from; course < to; course++) {
+                    allocation.admit(course);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new AdmitApplicants(allocation, from, middle), new AdmitApplicants(allocation, middle, to));
+        }
+
+    }
+
+    // a Fisher-Yates shuffle, tickets[student] is the student's place in the draw
+    private static int[] drawTickets(int studentCount, long seed) {
+        int[] draw = new int[studentCount];
+        for (int i = 0; i < studentCount; i++) {
+            draw[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = studentCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swapped = draw[i];
+            draw[i] = draw[j];
+            draw[j] = swapped;
+        }
+        int[] tickets = new int[studentCount];
+        for (int place = 0; place < studentCount; place++) {
+            tickets[draw[place]] = place;
+        }
+        return tickets;
+    }
+
+    private static boolean overlaps(int[] booked, int[] meetingMinutes) {
+        if (meetingMinutes == null) {
+            return false;
+        }
+        for (int i = 0; i < meetingMinutes.length; i += 2) {
+            for (int j = 0; j < booked.length; j += 2) {
+                if (meetingMinutes[i] < booked[j + 1] && booked[j] < meetingMinutes[i + 1]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
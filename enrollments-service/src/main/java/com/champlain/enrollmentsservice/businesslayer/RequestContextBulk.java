@@ -0,0 +1,24 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestContextBulk {
+
+    private Long row;
+    private EnrollmentRequestDTO enrollmentRequestDTO;
+    private Enrollment enrollment;
+    private String error;
+
+    public RequestContextBulk(Long row, EnrollmentRequestDTO enrollmentRequestDTO){
+        this.row = row;
+        this.enrollmentRequestDTO = enrollmentRequestDTO;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the mutations of one student strictly one after the other, in the order they were subscribed, while
+// mutations of other students run in parallel. Students are spread over stripes, and a stripe's lock is only
+// held to queue or dequeue a mutation, never while one runs. Each student has a bounded queue; a mutation that
+// finds it full is rejected with a ServiceUnavailableException instead of piling up.
+@Component
+public class StudentMutationSequencer {
+
+    private final Stripe[] stripes;
+    private final int maxQueueDepth;
+    private final Duration retryAfter;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final DistributionSummary queueDepths;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public StudentMutationSequencer(MeterRegistry meterRegistry,
+                                    @Value("${app.enrollments.sequencer.stripes:64}") int stripeCount,
+                                    @Value("${app.enrollments.sequencer.max-queue-depth:16}") int maxQueueDepth,
+                                    @Value("${app.enrollments.sequencer.retry-after:1s}") Duration retryAfter) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxQueueDepth = maxQueueDepth;
+        this.retryAfter = retryAfter;
+        Gauge.builder("enrollments.sequencer.waiting", waiting, AtomicInteger::get)
+                .description("Mutations waiting for an earlier mutation of the same student")
+                .register(meterRegistry);
+        this.queueDepths = DistributionSummary.builder("enrollments.sequencer.queue.depth")
+                .description("Depth of the student's queue when a mutation joins it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("enrollments.sequencer.wait")
+                .description("Time a mutation waited for the earlier mutations of the same student")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("enrollments.sequencer.rejected")
+                .description("Mutations rejected because the student's queue was full")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> sequence(String studentId, Mono<T> mutation) {
+        if (studentId == null) {
+            return mutation;
+        }
+        Stripe stripe = stripes[Math.floorMod(studentId.hashCode(), stripes.length)];
+        return Mono.create(sink -> {
+            PendingMutation<T> pending = new PendingMutation<>(mutation, sink, System.nanoTime());
+            int depth;
+            boolean runNow;
+            synchronized (stripe) {
+                StudentQueue queue = stripe.queues.computeIfAbsent(studentId, id -> new StudentQueue());
+                depth = queue.pending.size();
+                if (queue.running && depth >= maxQueueDepth) {
+                    rejected.increment();
+                    sink.error(new ServiceUnavailableException("Too many concurrent changes for student " + studentId
+                            + ", try again later", retryAfter.toSeconds()));
+                    return;
+                }
+                runNow = !queue.running;
+                if (runNow) {
+                    queue.running = true;
+                } else {
+                    queue.pending.add(pending);
+                    waiting.incrementAndGet();
+                }
+            }
+            queueDepths.record(depth);
+            // a caller that gives up while waiting is skipped when its turn comes
+            sink.onCancel(pending::cancel);
+            if (runNow) {
+                run(stripe, studentId, pending);
+            }
+        });
+    }
+
+    private void run(Stripe stripe, String studentId, PendingMutation<?> pending) {
+        waitTimer.record(Duration.ofNanos(System.nanoTime() - pending.queuedAt()));
+        pending.start(() -> next(stripe, studentId));
+    }
+
+    private void next(Stripe stripe, String studentId) {
+        PendingMutation<?> next;
+        synchronized (stripe) {
+            StudentQueue queue = stripe.queues.get(studentId);
+            do {
+                next = queue.pending.poll();
+                if (next != null) {
+                    waiting.decrementAndGet();
+                }
+            } while (next != null && next.isCancelled());
+            if (next == null) {
+                queue.running = false;
+                stripe.queues.remove(studentId);
+            }
+        }
+        if (next != null) {
+            run(stripe, studentId, next);
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, StudentQueue> queues = new HashMap<>();
+    }
+
+    private static final class StudentQueue {
+        private final ArrayDeque<PendingMutation<?>> pending = new ArrayDeque<>();
+        private boolean running;
+    }
+
+    private static final class PendingMutation<T> {
+
+        private final Mono<T> mutation;
+        private final MonoSink<T> sink;
+        private final long queuedAt;
+        private volatile boolean cancelled;
+        private volatile Disposable subscription;
+
+        PendingMutation(Mono<T> mutation, MonoSink<T> sink, long queuedAt) {
+            this.mutation = mutation;
+            this.sink = sink;
+            this.queuedAt = queuedAt;
+        }
+
+        long queuedAt() {
+            return queuedAt;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Disposable running = subscription;
+            if (running != null) {
+                running.dispose();
+            }
+        }
+
+        // the next mutation of the student starts once this one completed, failed or was cancelled
+        void start(Runnable onTerminate) {
+            subscription = mutation
+                    .doFinally(signal -> onTerminate.run())
+                    .subscribe(sink::success, sink::error, () -> sink.success());
+            if (cancelled) {
+                subscription.dispose();
+            }
+        }
+
+    }
+
+}
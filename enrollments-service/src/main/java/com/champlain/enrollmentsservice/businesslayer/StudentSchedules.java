@@ -0,0 +1,179 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.domainclientlayer.MeetingSlot;
+import com.champlain.enrollmentsservice.utils.BoundedLruMap;
+import com.champlain.enrollmentsservice.utils.MeetingSlots;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Weekly schedules of recently active students, used to reject enrollments whose meeting slots overlap
+// another enrollment of the same term. A schedule is built from findAllEnrollmentsByStudentId the first
+// time the student is checked and then kept in step by the writes that go through this instance.
+@Slf4j
+@Component
+public class StudentSchedules {
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final Map<String, Mono<StudentSchedule>> schedules;
+
+    public StudentSchedules(EnrollmentRepository enrollmentRepository,
+                            @Value("${app.enrollments.schedule-cache-size:10000}") int scheduleCacheSize) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.schedules = Collections.synchronizedMap(new BoundedLruMap<>(scheduleCacheSize));
+    }
+
+    // Books the meeting slots of the enrollment, or fails with a ConflictException naming the course it
+    // overlaps. Callers release the booking when the enrollment ends up not being written.
+    public Mono<Void> book(Enrollment enrollment) {
+        List<MeetingSlot> meetingSlots = MeetingSlots.parse(enrollment.getMeetingSlots());
+        if (meetingSlots.isEmpty()) {
+            return Mono.empty();
+        }
+        return schedule(enrollment.getStudentId())
+                .flatMap(schedule -> Mono.justOrEmpty(schedule.bookIfFree(enrollment, meetingSlots)))
+                .flatMap(conflict -> Mono.error(new ConflictException("Course " + enrollment.getCourseId()
+                        + " meets at the same time as course " + conflict.courseId() + " on " + conflict.meetingSlot().getDay()
+                        + " " + conflict.meetingSlot().getStartTime() + "-" + conflict.meetingSlot().getEndTime())));
+    }
+
+    // the previous slots are released first so an enrollment never conflicts with itself; they are put back on a conflict
+    public Mono<Void> rebook(Enrollment previous, Enrollment updated) {
+        if (Objects.equals(previous.getStudentId(), updated.getStudentId())
+                && Objects.equals(previous.getEnrollmentYear(), updated.getEnrollmentYear())
+                && previous.getSemester() == updated.getSemester()
+                && Objects.equals(previous.getMeetingSlots(), updated.getMeetingSlots())) {
+            return Mono.empty();
+        }
+        release(previous);
+        return book(updated)
+                .doOnError(conflict -> restore(previous));
+    }
+
+    public void release(Enrollment enrollment) {
+        Mono<StudentSchedule> schedule = schedules.get(enrollment.getStudentId());
+        if (schedule != null) {
+            schedule.subscribe(loaded -> loaded.remove(enrollment.getEnrollmentId()), error -> {});
+        }
+    }
+
+    // puts an enrollment back without checking it, e.g. after a rolled back update
+    public void restore(Enrollment enrollment) {
+        Mono<StudentSchedule> schedule = schedules.get(enrollment.getStudentId());
+        if (schedule != null) {
+            schedule.subscribe(loaded -> loaded.add(enrollment), error -> {});
+        }
+    }
+
+    // for enrollments written elsewhere, the schedule is rebuilt on the student's next check
+    public void invalidate(String studentId) {
+        schedules.remove(studentId);
+    }
+
+    // concurrent checks of a student who is not cached yet share one load
+    private Mono<StudentSchedule> schedule(String studentId) {
+        return schedules.computeIfAbsent(studentId, id -> enrollmentRepository.findAllEnrollmentsByStudentId(id)
+                .collect(StudentSchedule::new, StudentSchedule::add)
+                .doOnNext(schedule -> log.debug("Loaded the schedule of student {}", id))
+                .doOnError(error -> schedules.remove(id))
+                .cache());
+    }
+
+    record Booking(String enrollmentId, String courseId, MeetingSlot meetingSlot, Term term, int start, int end) {
+    }
+
+    record Term(Integer enrollmentYear, Semester semester) {
+    }
+
+    static final class StudentSchedule {
+
+        private final Map<Term, WeeklySchedule> terms = new HashMap<>();
+        private final Map<String, List<Booking>> bookingsByEnrollment = new HashMap<>();
+
+        synchronized Optional<Booking> bookIfFree(Enrollment enrollment, List<MeetingSlot> meetingSlots) {
+            Term term = new Term(enrollment.getEnrollmentYear(), enrollment.getSemester());
+            WeeklySchedule week = terms.computeIfAbsent(term, t -> new WeeklySchedule());
+            for (MeetingSlot meetingSlot : meetingSlots) {
+                Optional<Booking> conflict = week.overlapping(MeetingSlots.startMinuteOfWeek(meetingSlot),
+                        MeetingSlots.endMinuteOfWeek(meetingSlot));
+                if (conflict.isPresent()) {
+                    return conflict;
+                }
+            }
+            add(enrollment, term, meetingSlots);
+            return Optional.empty();
+        }
+
+        synchronized void add(Enrollment enrollment) {
+            if (enrollment.getEnrollmentYear() != null && enrollment.getSemester() != null) {
+                add(enrollment, new Term(enrollment.getEnrollmentYear(), enrollment.getSemester()),
+                        MeetingSlots.parse(enrollment.getMeetingSlots()));
+            }
+        }
+
+        synchronized void remove(String enrollmentId) {
+            List<Booking> bookings = bookingsByEnrollment.remove(enrollmentId);
+            if (bookings != null) {
+                bookings.forEach(booking -> terms.get(booking.term()).remove(booking));
+            }
+        }
+
+        private void add(Enrollment enrollment, Term term, List<MeetingSlot> meetingSlots) {
+            remove(enrollment.getEnrollmentId());
+            List<Booking> bookings = new ArrayList<>(meetingSlots.size());
+            WeeklySchedule week = terms.computeIfAbsent(term, t -> new WeeklySchedule());
+            for (MeetingSlot meetingSlot : meetingSlots) {
+                Booking booking = new Booking(enrollment.getEnrollmentId(), enrollment.getCourseId(), meetingSlot, term,
+                        MeetingSlots.startMinuteOfWeek(meetingSlot), MeetingSlots.endMinuteOfWeek(meetingSlot));
+                week.add(booking);
+                bookings.add(booking);
+            }
+            bookingsByEnrollment.put(enrollment.getEnrollmentId(), bookings);
+        }
+
+    }
+
+    // Bookings of one term ordered by start minute of the week. A booking can only overlap [start, end) if it
+    // starts before end and less than the longest booking ahead of start, so a check is one O(log n) range
+    // lookup that only visits bookings close to the slot.
+    static final class WeeklySchedule {
+
+        private final TreeMap<Integer, List<Booking>> bookingsByStart = new TreeMap<>();
+        private int longest;
+
+        Optional<Booking> overlapping(int start, int end) {
+            return bookingsByStart.subMap(start - longest, false, end, false).values().stream()
+                    .flatMap(List::stream)
+                    .filter(booking -> booking.end() > start)
+                    .findFirst();
+        }
+
+        void add(Booking booking) {
+            bookingsByStart.computeIfAbsent(booking.start(), start -> new ArrayList<>(1)).add(booking);
+            longest = Math.max(longest, booking.end() - booking.start());
+        }
+
+        void remove(Booking booking) {
+            List<Booking> bookings = bookingsByStart.get(booking.start());
+            if (bookings != null && bookings.remove(booking) && bookings.isEmpty()) {
+                bookingsByStart.remove(booking.start());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoadRepository;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps student_term_load in step with the enrollments table. Every method must run inside the
+// transaction that writes the enrollment rows, so the counter and the rows commit or roll back together.
+@Component
+public class StudentTermLoadTracker {
+
+    private final StudentTermLoadRepository studentTermLoadRepository;
+    private final BigDecimal maxCreditsPerTerm;
+
+    public StudentTermLoadTracker(StudentTermLoadRepository studentTermLoadRepository,
+                                  @Value("${app.enrollments.max-credits-per-term:30}") BigDecimal maxCreditsPerTerm) {
+        this.studentTermLoadRepository = studentTermLoadRepository;
+        this.maxCreditsPerTerm = maxCreditsPerTerm;
+    }
+
+    public Mono<Void> charge(Enrollment enrollment) {
+        return chargeAll(List.of(enrollment));
+    }
+
+    // the credits of each student and term in the list are added with one conditional UPDATE
+    public Mono<Void> chargeAll(List<Enrollment> enrollments) {
+        Map<StudentTerm, BigDecimal> creditsByStudentTerm = new LinkedHashMap<>();
+        enrollments.forEach(enrollment -> creditsByStudentTerm.merge(StudentTerm.of(enrollment), credits(enrollment), BigDecimal::add));
+
+        return Flux.fromIterable(creditsByStudentTerm.entrySet())
+                .concatMap(load -> tryCharge(load.getKey(), load.getValue())
+                        .filter(charged -> charged)
+                        .switchIfEmpty(Mono.error(new ConflictException("Enrollment would take student " + load.getKey().studentId()
+                                + " over the maximum of " + maxCreditsPerTerm.stripTrailingZeros().toPlainString() + " credits for "
+                                + load.getKey().semester() + " " + load.getKey().enrollmentYear()))))
+                .then();
+    }
+
+    // Emits false instead of failing when the limit would be exceeded, for callers that have to carry on
+    // in the same transaction.
+    public Mono<Boolean> tryCharge(Enrollment enrollment) {
+        return tryCharge(StudentTerm.of(enrollment), credits(enrollment));
+    }
+
+    public Mono<Void> release(Enrollment enrollment) {
+        BigDecimal credits = credits(enrollment);
+        if (credits.signum() == 0) {
+            return Mono.empty();
+        }
+        StudentTerm studentTerm = StudentTerm.of(enrollment);
+        return studentTermLoadRepository.removeCredits(studentTerm.studentId(), studentTerm.enrollmentYear(),
+                        semesterName(studentTerm.semester()), credits)
+                .then();
+    }
+
+    // the old credits are given back before the new ones are charged, so swapping courses within a full term still fits
+    public Mono<Void> move(Enrollment previous, Enrollment updated) {
+        if (StudentTerm.of(previous).equals(StudentTerm.of(updated)) && credits(previous).compareTo(credits(updated)) == 0) {
+            return Mono.empty();
+        }
+        return release(previous).then(Mono.defer(() -> charge(updated)));
+    }
+
+    // The first enrollment of a term inserts the row; every later one is a single conditional UPDATE on the
+    // (studentId, enrollmentYear, semester) index. Two first enrollments racing on the insert fail the
+    // loser's transaction rather than letting it past the limit.
+    private Mono<Boolean> tryCharge(StudentTerm studentTerm, BigDecimal credits) {
+        if (credits.signum() == 0) {
+            return Mono.just(true);
+        }
+        String semester = semesterName(studentTerm.semester());
+        return studentTermLoadRepository.addCreditsWithinLimit(studentTerm.studentId(), studentTerm.enrollmentYear(), semester,
+                        credits, maxCreditsPerTerm)
+                .flatMap(updatedCount -> updatedCount > 0
+                        ? Mono.just(updatedCount)
+                        : studentTermLoadRepository.insertStudentTermLoad(studentTerm.studentId(), studentTerm.enrollmentYear(), semester,
+                                credits, maxCreditsPerTerm))
+                .map(chargedCount -> chargedCount > 0)
+                .onErrorMap(DataIntegrityViolationException.class, violation -> new ConflictException(
+                        "Credit load of student " + studentTerm.studentId() + " is being updated concurrently, try again", violation));
+    }
+
+    private static BigDecimal credits(Enrollment enrollment) {
+        return enrollment.getNumCredits() == null ? BigDecimal.ZERO : BigDecimal.valueOf(enrollment.getNumCredits());
+    }
+
+    private static String semesterName(Semester semester) {
+        return semester == null ? null : semester.name();
+    }
+
+    private record StudentTerm(String studentId, Integer enrollmentYear, Semester semester) {
+
+        static StudentTerm of(Enrollment enrollment) {
+            return new StudentTerm(enrollment.getStudentId(), enrollment.getEnrollmentYear(), enrollment.getSemester());
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@Table("course_preferences")
+@AllArgsConstructor
+@NoArgsConstructor
+public class CoursePreference {
+
+    @Id
+    private Integer id;
+
+    @Column("enrollmentYear")
+    private Integer enrollmentYear;
+
+    private Semester semester;
+
+    @Column("studentId")
+    private String studentId;
+
+    @Column("studentFirstName")
+    private String studentFirstName;
+
+    @Column("studentLastName")
+    private String studentLastName;
+
+    @Column("courseId")
+    private String courseId;
+
+    @Column("preferenceRank")
+    private Integer preferenceRank;
+}
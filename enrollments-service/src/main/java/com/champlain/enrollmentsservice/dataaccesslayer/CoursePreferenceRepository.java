@@ -0,0 +1,17 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CoursePreferenceRepository extends ReactiveCrudRepository<CoursePreference, Integer> {
+
+    Flux<CoursePreference> findAllByEnrollmentYearAndSemester(Integer enrollmentYear, Semester semester);
+
+    @Modifying
+    @Query("DELETE FROM course_preferences WHERE studentId = :studentId AND enrollmentYear = :enrollmentYear AND semester = :semester")
+    Mono<Integer> deleteCoursePreferences(String studentId, Integer enrollmentYear, String semester);
+
+}
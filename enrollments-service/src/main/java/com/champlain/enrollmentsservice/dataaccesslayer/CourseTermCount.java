@@ -0,0 +1,28 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@Table("course_term_counts")
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseTermCount {
+
+    @Id
+    private Integer id;
+
+    @Column("courseId")
+    private String courseId;
+
+    @Column("enrollmentYear")
+    private Integer enrollmentYear;
+
+    private Semester semester;
+
+    @Column("enrollmentCount")
+    private Integer enrollmentCount;
+}
@@ -0,0 +1,24 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface CourseTermCountRepository extends ReactiveCrudRepository<CourseTermCount, Integer> {
+
+    Mono<CourseTermCount> findCourseTermCountByCourseIdAndEnrollmentYearAndSemester(String courseId, Integer enrollmentYear,
+                                                                                   Semester semester);
+
+    @Modifying
+    @Query("UPDATE course_term_counts SET enrollmentCount = GREATEST(enrollmentCount + :delta, 0) " +
+            "WHERE courseId = :courseId AND enrollmentYear = :enrollmentYear AND semester = :semester")
+    Mono<Integer> addToCount(String courseId, Integer enrollmentYear, String semester, int delta);
+
+    @Modifying
+    @Query("INSERT INTO course_term_counts (courseId, enrollmentYear, semester, enrollmentCount) " +
+            "SELECT :courseId, :enrollmentYear, :semester, :count WHERE NOT EXISTS (SELECT 1 FROM course_term_counts " +
+            "WHERE courseId = :courseId AND enrollmentYear = :enrollmentYear AND semester = :semester)")
+    Mono<Integer> insertCourseTermCount(String courseId, Integer enrollmentYear, String semester, int count);
+
+}
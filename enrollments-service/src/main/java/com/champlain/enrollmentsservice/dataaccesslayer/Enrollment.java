@@ -40,5 +40,11 @@ public class Enrollment {
 
     @Column("courseName")
     private String courseName;
+
+    @Column("numCredits")
+    private Double numCredits;
+
+    @Column("meetingSlots")
+    private String meetingSlots;
 }
 
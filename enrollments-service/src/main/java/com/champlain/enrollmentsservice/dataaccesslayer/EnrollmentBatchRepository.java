@@ -0,0 +1,11 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface EnrollmentBatchRepository {
+
+    Flux<Enrollment> insertAll(List<Enrollment> enrollments);
+
+}
@@ -0,0 +1,77 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class EnrollmentBatchRepositoryImpl implements EnrollmentBatchRepository {
+
+    private static final String INSERT_COLUMNS = "INSERT INTO enrollments (enrollmentId, enrollmentYear, semester, studentId, " +
+            "studentFirstName, studentLastName, courseId, courseNumber, courseName, numCredits, meetingSlots) VALUES ";
+
+    private final DatabaseClient databaseClient;
+
+    // one multi-row INSERT for the whole list, the generated ids are matched back on enrollmentId
+    @Override
+    public Flux<Enrollment> insertAll(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return Flux.empty();
+        }
+
+        StringBuilder sql = new StringBuilder(INSERT_COLUMNS);
+        for (int i = 0; i < enrollments.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:enrollmentId").append(i)
+                    .append(", :enrollmentYear").append(i)
+                    .append(", :semester").append(i)
+                    .append(", :studentId").append(i)
+                    .append(", :studentFirstName").append(i)
+                    .append(", :studentLastName").append(i)
+                    .append(", :courseId").append(i)
+                    .append(", :courseNumber").append(i)
+                    .append(", :courseName").append(i)
+                    .append(", :numCredits").append(i)
+                    .append(", :meetingSlots").append(i)
+                    .append(")");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        Map<String, Enrollment> enrollmentsById = new HashMap<>();
+        for (int i = 0; i < enrollments.size(); i++) {
+            Enrollment enrollment = enrollments.get(i);
+            enrollmentsById.put(enrollment.getEnrollmentId(), enrollment);
+            spec = bind(spec, "enrollmentId" + i, enrollment.getEnrollmentId(), String.class);
+            spec = bind(spec, "enrollmentYear" + i, enrollment.getEnrollmentYear(), Integer.class);
+            spec = bind(spec, "semester" + i, enrollment.getSemester() == null ? null : enrollment.getSemester().name(), String.class);
+            spec = bind(spec, "studentId" + i, enrollment.getStudentId(), String.class);
+            spec = bind(spec, "studentFirstName" + i, enrollment.getStudentFirstName(), String.class);
+            spec = bind(spec, "studentLastName" + i, enrollment.getStudentLastName(), String.class);
+            spec = bind(spec, "courseId" + i, enrollment.getCourseId(), String.class);
+            spec = bind(spec, "courseNumber" + i, enrollment.getCourseNumber(), String.class);
+            spec = bind(spec, "courseName" + i, enrollment.getCourseName(), String.class);
+            spec = bind(spec, "numCredits" + i, enrollment.getNumCredits(), Double.class);
+            spec = bind(spec, "meetingSlots" + i, enrollment.getMeetingSlots(), String.class);
+        }
+
+        return spec
+                .filter(statement -> statement.returnGeneratedValues("id", "enrollmentId"))
+                .map(row -> {
+                    Enrollment enrollment = enrollmentsById.get(row.get("enrollmentId", String.class));
+                    enrollment.setId(row.get("id", Integer.class));
+                    return enrollment;
+                })
+                .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+}
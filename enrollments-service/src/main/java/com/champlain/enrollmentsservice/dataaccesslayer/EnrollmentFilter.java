@@ -0,0 +1,20 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// the filters of an enrollment listing, a null field matches every row
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentFilter {
+
+    private String studentId;
+    private String courseId;
+    private Integer enrollmentYear;
+    private Semester semester;
+
+}
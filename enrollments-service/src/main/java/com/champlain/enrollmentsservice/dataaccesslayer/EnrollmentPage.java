@@ -0,0 +1,21 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A keyset page of an enrollment listing. Rows are ordered on id and a page starts right after the id of the
+// last row of the previous one, so a page deep into the listing costs the same as the first. A null after
+// starts at the beginning and a null limit returns every remaining row.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentPage {
+
+    private Integer after;
+    private Integer limit;
+    private boolean descending;
+
+}
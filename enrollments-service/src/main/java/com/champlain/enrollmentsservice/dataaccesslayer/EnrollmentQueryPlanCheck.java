@@ -0,0 +1,115 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Asks the database how it would run the WHERE clause of every repository finder and reports the ones that
+// would still scan a whole table. PostgreSQL is told to avoid sequential scans first, so it only plans one
+// when no index can serve the query, whatever the size of the table at startup.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.enrollments.query-plan-check.enabled", havingValue = "true", matchIfMissing = true)
+public class EnrollmentQueryPlanCheck {
+
+    private static final Map<String, String> FINDERS = new LinkedHashMap<>();
+
+    static {
+        FINDERS.put("EnrollmentRepository.findEnrollmentByEnrollmentId",
+                "SELECT * FROM enrollments WHERE enrollmentId = 'x'");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByStudentId",
+                "SELECT * FROM enrollments WHERE studentId = 'x'");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByCourseId",
+                "SELECT * FROM enrollments WHERE courseId = 'x'");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByEnrollmentYear",
+                "SELECT * FROM enrollments WHERE enrollmentYear = 2024");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByEnrollmentYearAndSemester",
+                "SELECT * FROM enrollments WHERE enrollmentYear = 2024 AND semester = 'FALL'");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByEnrollmentIdIn",
+                "SELECT * FROM enrollments WHERE enrollmentId IN ('x', 'y')");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByStudentIdIn",
+                "SELECT * FROM enrollments WHERE studentId IN ('x', 'y')");
+        FINDERS.put("EnrollmentRepository.findAllEnrollmentsByCourseIdIn",
+                "SELECT * FROM enrollments WHERE courseId IN ('x', 'y')");
+        FINDERS.put("EnrollmentQueryRepository.findAllEnrollmentsByFilter(semester)",
+                "SELECT * FROM enrollments WHERE semester = 'FALL' AND id > 0 ORDER BY id");
+        FINDERS.put("EnrollmentQueryRepository.findAllEnrollmentsByFilter(courseId, semester)",
+                "SELECT * FROM enrollments WHERE courseId = 'x' AND semester = 'FALL' ORDER BY id DESC");
+        FINDERS.put("EnrollmentQueryRepository.findAllEnrollmentsByFilter(studentId, enrollmentYear, semester)",
+                "SELECT * FROM enrollments WHERE studentId = 'x' AND enrollmentYear = 2024 AND semester = 'FALL' AND id > 0 ORDER BY id");
+        FINDERS.put("EnrollmentQueryRepository.countEnrollmentsByFilter(semester)",
+                "SELECT COUNT(*) FROM enrollments WHERE semester = 'FALL'");
+        FINDERS.put("EnrollmentRepository.existsByStudentIdAndCourseIdAndEnrollmentYearAndSemester",
+                "SELECT id FROM enrollments WHERE studentId = 'x' AND courseId = 'y' AND enrollmentYear = 2024 AND semester = 'FALL'");
+        FINDERS.put("WaitlistEntryRepository.findHeadOfWaitlist",
+                "SELECT * FROM waitlist_entries WHERE courseId = 'x' AND enrollmentYear = 2024 AND semester = 'FALL' ORDER BY id");
+        FINDERS.put("WaitlistEntryRepository.deleteWaitlistEntryByWaitlistEntryId",
+                "SELECT id FROM waitlist_entries WHERE waitlistEntryId = 'x'");
+        FINDERS.put("StudentTermLoadRepository.findStudentTermLoadByStudentIdAndEnrollmentYearAndSemester",
+                "SELECT * FROM student_term_load WHERE studentId = 'x' AND enrollmentYear = 2024 AND semester = 'FALL'");
+        FINDERS.put("CourseTermCountRepository.findCourseTermCountByCourseIdAndEnrollmentYearAndSemester",
+                "SELECT * FROM course_term_counts WHERE courseId = 'x' AND enrollmentYear = 2024 AND semester = 'FALL'");
+        FINDERS.put("IdempotencyKeyRepository.deleteIdempotencyKeysCreatedBefore",
+                "SELECT idempotencyKey FROM idempotency_keys WHERE createdAt < TIMESTAMP '2024-01-01 00:00:00'");
+        FINDERS.put("CoursePreferenceRepository.findAllByEnrollmentYearAndSemester",
+                "SELECT * FROM course_preferences WHERE enrollmentYear = 2024 AND semester = 'FALL'");
+        FINDERS.put("CoursePreferenceRepository.deleteCoursePreferences",
+                "SELECT id FROM course_preferences WHERE studentId = 'x' AND enrollmentYear = 2024 AND semester = 'FALL'");
+    }
+
+    private final DatabaseClient databaseClient;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportSequentialScans() {
+        sequentialScans().subscribe(
+                finders -> {
+                    if (finders.isEmpty()) {
+                        log.info("All {} repository finders are served by an index", FINDERS.size());
+                    } else {
+                        finders.forEach(finder -> log.warn("{} would run a sequential scan", finder));
+                    }
+                },
+                error -> log.warn("Could not check the query plans of the repository finders: {}", error.getMessage()));
+    }
+
+    // The finders whose plan still reads a whole table. The plans are checked one at a time in a transaction
+    // that is rolled back, so the planner setting never outlives the check on the pooled connection.
+    public Mono<List<String>> sequentialScans() {
+        return databaseClient.inConnectionMany(connection -> {
+                    boolean postgres = connection.getMetadata().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres");
+                    Flux<Long> avoidSequentialScans = postgres
+                            ? Flux.from(connection.createStatement("SET LOCAL enable_seqscan = off").execute()).flatMap(result -> result.getRowsUpdated())
+                            : Flux.empty();
+                    Flux<String> sequentialScans = avoidSequentialScans.thenMany(Flux.fromIterable(FINDERS.entrySet())
+                            .concatMap(finder -> Flux.from(connection.createStatement("EXPLAIN " + finder.getValue()).execute())
+                                    .flatMap(result -> result.map((row, metadata) -> String.valueOf(row.get(0))))
+                                    .collectList()
+                                    .filter(plan -> isSequentialScan(String.join("\n", plan)))
+                                    .map(plan -> finder.getKey())));
+                    return Flux.usingWhen(Mono.from(connection.beginTransaction()).thenReturn(connection),
+                            inTransaction -> sequentialScans,
+                            inTransaction -> connection.rollbackTransaction(),
+                            (inTransaction, error) -> connection.rollbackTransaction(),
+                            inTransaction -> connection.rollbackTransaction());
+                })
+                .collectList();
+    }
+
+    // PostgreSQL prints "Seq Scan on <table>", H2 marks the table with "tableScan"
+    private static boolean isSequentialScan(String plan) {
+        return plan.contains("Seq Scan") || plan.contains("tableScan");
+    }
+
+}
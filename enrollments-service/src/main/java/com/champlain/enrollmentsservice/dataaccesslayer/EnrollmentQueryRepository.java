@@ -0,0 +1,12 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface EnrollmentQueryRepository {
+
+    Flux<Enrollment> findAllEnrollmentsByFilter(EnrollmentFilter enrollmentFilter, EnrollmentPage enrollmentPage);
+
+    Mono<Long> countEnrollmentsByFilter(EnrollmentFilter enrollmentFilter);
+
+}
@@ -0,0 +1,79 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class EnrollmentQueryRepositoryImpl implements EnrollmentQueryRepository {
+
+    private static final SqlIdentifier ENROLLMENTS = SqlIdentifier.unquoted("enrollments");
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final int fetchSize;
+
+    public EnrollmentQueryRepositoryImpl(R2dbcEntityTemplate r2dbcEntityTemplate,
+                                         @Value("${app.enrollments.stream.fetch-size:500}") int fetchSize) {
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    // Every filter that is set becomes one bound condition of a single WHERE clause, and the page continues
+    // with an id condition instead of an OFFSET. The rows come through a server-side cursor fetchSize rows at
+    // a time, and the next batch is only requested once the subscriber has taken most of the previous one, so
+    // a slow client holds at most about one batch per listing however large the table is.
+    @Override
+    public Flux<Enrollment> findAllEnrollmentsByFilter(EnrollmentFilter enrollmentFilter, EnrollmentPage enrollmentPage) {
+        Criteria criteria = criteria(enrollmentFilter);
+        if (enrollmentPage.getAfter() != null) {
+            criteria = enrollmentPage.isDescending()
+                    ? criteria.and("id").lessThan(enrollmentPage.getAfter())
+                    : criteria.and("id").greaterThan(enrollmentPage.getAfter());
+        }
+        StatementMapper statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper().forType(Enrollment.class);
+        StatementMapper.SelectSpec select = statementMapper.createSelect(ENROLLMENTS)
+                .doWithTable((table, spec) -> spec.withProjection(table.asterisk()))
+                .withCriteria(criteria)
+                .withSort(Sort.by(enrollmentPage.isDescending() ? Sort.Direction.DESC : Sort.Direction.ASC, "id"));
+        if (enrollmentPage.getLimit() != null) {
+            select = select.limit(enrollmentPage.getLimit());
+        }
+        R2dbcConverter converter = r2dbcEntityTemplate.getConverter();
+        return r2dbcEntityTemplate.getDatabaseClient()
+                .sql(statementMapper.getMappedObject(select))
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> converter.read(Enrollment.class, row, metadata))
+                .all()
+                .limitRate(fetchSize);
+    }
+
+    // only filter columns are read, so the count is answered from the term indexes without touching the rows
+    @Override
+    public Mono<Long> countEnrollmentsByFilter(EnrollmentFilter enrollmentFilter) {
+        return r2dbcEntityTemplate.count(Query.query(criteria(enrollmentFilter)), Enrollment.class);
+    }
+
+    static Criteria criteria(EnrollmentFilter enrollmentFilter) {
+        Criteria criteria = Criteria.empty();
+        if (enrollmentFilter.getStudentId() != null) {
+            criteria = criteria.and("studentId").is(enrollmentFilter.getStudentId());
+        }
+        if (enrollmentFilter.getCourseId() != null) {
+            criteria = criteria.and("courseId").is(enrollmentFilter.getCourseId());
+        }
+        if (enrollmentFilter.getEnrollmentYear() != null) {
+            criteria = criteria.and("enrollmentYear").is(enrollmentFilter.getEnrollmentYear());
+        }
+        if (enrollmentFilter.getSemester() != null) {
+            criteria = criteria.and("semester").is(enrollmentFilter.getSemester().name());
+        }
+        return criteria;
+    }
+
+}
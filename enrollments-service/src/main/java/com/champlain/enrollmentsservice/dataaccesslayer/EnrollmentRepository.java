@@ -1,10 +1,15 @@
 package com.champlain.enrollmentsservice.dataaccesslayer;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface EnrollmentRepository extends ReactiveCrudRepository<Enrollment, Integer> {
+import java.util.Collection;
+
+public interface EnrollmentRepository extends ReactiveCrudRepository<Enrollment, Integer>, EnrollmentBatchRepository,
+        EnrollmentQueryRepository {
 
     Mono<Enrollment> findEnrollmentByEnrollmentId(String enrollmentId);
 
@@ -16,5 +21,27 @@ public interface EnrollmentRepository extends ReactiveCrudRepository<Enrollment,
 
     Flux<Enrollment> findAllEnrollmentsByEnrollmentYear(Integer enrollmentYear);
 
+    Flux<Enrollment> findAllEnrollmentsByEnrollmentYearAndSemester(Integer enrollmentYear, Semester semester);
+
+    Flux<Enrollment> findAllEnrollmentsByEnrollmentIdIn(Collection<String> enrollmentIds);
+
+    Flux<Enrollment> findAllEnrollmentsByStudentIdIn(Collection<String> studentIds);
+
+    Flux<Enrollment> findAllEnrollmentsByCourseIdIn(Collection<String> courseIds);
+
+    Mono<Boolean> existsByStudentIdAndCourseIdAndEnrollmentYearAndSemester(String studentId, String courseId,
+                                                                           Integer enrollmentYear, Semester semester);
+
+    @Modifying
+    @Query("UPDATE enrollments SET enrollmentYear = :#{#enrollment.enrollmentYear}, semester = :#{#enrollment.semester?.name()}, " +
+            "studentId = :#{#enrollment.studentId}, studentFirstName = :#{#enrollment.studentFirstName}, studentLastName = :#{#enrollment.studentLastName}, " +
+            "courseId = :#{#enrollment.courseId}, courseNumber = :#{#enrollment.courseNumber}, courseName = :#{#enrollment.courseName}, " +
+            "numCredits = :#{#enrollment.numCredits}, meetingSlots = :#{#enrollment.meetingSlots} " +
+            "WHERE enrollmentId = :#{#enrollment.enrollmentId}")
+    Mono<Integer> updateEnrollmentByEnrollmentId(Enrollment enrollment);
+
+    @Modifying
+    @Query("DELETE FROM enrollments WHERE enrollmentId = :enrollmentId")
+    Mono<Integer> deleteEnrollmentByEnrollmentId(String enrollmentId);
 
 }
@@ -0,0 +1,21 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@Table("idempotency_keys")
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    @Column("idempotencyKey")
+    private String idempotencyKey;
+
+    @Column("enrollmentId")
+    private String enrollmentId;
+}
@@ -0,0 +1,35 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends ReactiveCrudRepository<IdempotencyKey, String> {
+
+    @Modifying
+    @Query("INSERT INTO idempotency_keys (idempotencyKey, createdAt) VALUES (:idempotencyKey, :createdAt)")
+    Mono<Integer> claimIdempotencyKey(String idempotencyKey, LocalDateTime createdAt);
+
+    // an unfinished claim older than claimedBefore was abandoned by its request and is claimed again
+    @Modifying
+    @Query("UPDATE idempotency_keys SET createdAt = :createdAt " +
+            "WHERE idempotencyKey = :idempotencyKey AND enrollmentId IS NULL AND createdAt < :claimedBefore")
+    Mono<Integer> reclaimStaleIdempotencyKey(String idempotencyKey, LocalDateTime createdAt, LocalDateTime claimedBefore);
+
+    @Modifying
+    @Query("UPDATE idempotency_keys SET enrollmentId = :enrollmentId WHERE idempotencyKey = :idempotencyKey")
+    Mono<Integer> completeIdempotencyKey(String idempotencyKey, String enrollmentId);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE idempotencyKey = :idempotencyKey")
+    Mono<Integer> releaseIdempotencyKey(String idempotencyKey);
+
+    // served by idx_idempotency_keys_created_at
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE createdAt < :createdBefore")
+    Mono<Integer> deleteIdempotencyKeysCreatedBefore(LocalDateTime createdBefore);
+
+}
@@ -0,0 +1,98 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import io.r2dbc.spi.Connection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.r2dbc.connection.init.DatabasePopulator;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.connection.init.ScriptException;
+import org.springframework.r2dbc.connection.init.UncategorizedScriptException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Applies the versioned scripts under db/migration that the database has not seen yet, oldest first, and
+// records each one in schema_migrations in the same transaction. Scripts only ever add to the schema and
+// guard every statement with IF NOT EXISTS, so a restart keeps the data and a script that was interrupted
+// halfway can simply run again.
+@Slf4j
+@RequiredArgsConstructor
+public class SchemaMigrations implements DatabasePopulator {
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS schema_migrations " +
+            "(migrationVersion INTEGER, description VARCHAR(200), appliedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+            "PRIMARY KEY (migrationVersion))";
+
+    private final ResourcePatternResolver resourcePatternResolver;
+
+    @Override
+    public Mono<Void> populate(Connection connection) throws ScriptException {
+        List<Migration> migrations = migrations();
+        return Flux.from(connection.createStatement(CREATE_HISTORY).execute())
+                .flatMap(result -> result.getRowsUpdated())
+                .thenMany(Flux.from(connection.createStatement("SELECT migrationVersion FROM schema_migrations").execute())
+                        .flatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class))))
+                .collect(Collectors.toSet())
+                .flatMapMany(applied -> Flux.fromIterable(migrations)
+                        .filter(migration -> !applied.contains(migration.version())))
+                .concatMap(migration -> apply(connection, migration))
+                .then();
+    }
+
+    private Mono<Void> apply(Connection connection, Migration migration) {
+        return Mono.from(connection.beginTransaction())
+                .then(new ResourceDatabasePopulator(migration.script()).populate(connection))
+                .thenMany(Flux.from(connection.createStatement("INSERT INTO schema_migrations (migrationVersion, description) VALUES ($1, $2)")
+                                .bind(0, migration.version())
+                                .bind(1, migration.description())
+                                .execute())
+                        .flatMap(result -> result.getRowsUpdated()))
+                .then(Mono.from(connection.commitTransaction()))
+                .doOnSuccess(committed -> log.info("Applied schema migration V{} {}", migration.version(), migration.description()))
+                .onErrorResume(error -> Mono.from(connection.rollbackTransaction())
+                        .then(Mono.error(error)));
+    }
+
+    private List<Migration> migrations() {
+        try {
+            List<Migration> migrations = Arrays.stream(resourcePatternResolver.getResources(LOCATION))
+                    .map(SchemaMigrations::migration)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingInt(Migration::version))
+                    .toList();
+            Set<Integer> versions = migrations.stream().map(Migration::version).collect(Collectors.toSet());
+            if (versions.size() != migrations.size()) {
+                throw new UncategorizedScriptException("Two schema migrations share the same version under " + LOCATION);
+            }
+            return migrations;
+        } catch (IOException e) {
+            throw new UncategorizedScriptException("Could not list the schema migrations under " + LOCATION, e);
+        }
+    }
+
+    private static Migration migration(Resource resource) {
+        Matcher matcher = FILE_NAME.matcher(Objects.requireNonNullElse(resource.getFilename(), ""));
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), resource);
+    }
+
+    private record Migration(int version, String description, Resource script) {
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@Table("student_term_load")
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentTermLoad {
+
+    @Id
+    private Integer id;
+
+    @Column("studentId")
+    private String studentId;
+
+    @Column("enrollmentYear")
+    private Integer enrollmentYear;
+
+    private Semester semester;
+
+    @Column("totalCredits")
+    private BigDecimal totalCredits;
+}
@@ -0,0 +1,38 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+public interface StudentTermLoadRepository extends ReactiveCrudRepository<StudentTermLoad, Integer> {
+
+    Mono<StudentTermLoad> findStudentTermLoadByStudentIdAndEnrollmentYearAndSemester(String studentId, Integer enrollmentYear,
+                                                                                    Semester semester);
+
+    Flux<StudentTermLoad> findAllByEnrollmentYearAndSemester(Integer enrollmentYear, Semester semester);
+
+    @Modifying
+    @Query("UPDATE student_term_load SET totalCredits = totalCredits + :credits " +
+            "WHERE studentId = :studentId AND enrollmentYear = :enrollmentYear AND semester = :semester " +
+            "AND totalCredits + :credits <= :maxCredits")
+    Mono<Integer> addCreditsWithinLimit(String studentId, Integer enrollmentYear, String semester,
+                                        BigDecimal credits, BigDecimal maxCredits);
+
+    @Modifying
+    @Query("INSERT INTO student_term_load (studentId, enrollmentYear, semester, totalCredits) " +
+            "SELECT :studentId, :enrollmentYear, :semester, :credits WHERE :credits <= :maxCredits " +
+            "AND NOT EXISTS (SELECT 1 FROM student_term_load " +
+            "WHERE studentId = :studentId AND enrollmentYear = :enrollmentYear AND semester = :semester)")
+    Mono<Integer> insertStudentTermLoad(String studentId, Integer enrollmentYear, String semester,
+                                        BigDecimal credits, BigDecimal maxCredits);
+
+    @Modifying
+    @Query("UPDATE student_term_load SET totalCredits = GREATEST(totalCredits - :credits, 0) " +
+            "WHERE studentId = :studentId AND enrollmentYear = :enrollmentYear AND semester = :semester")
+    Mono<Integer> removeCredits(String studentId, Integer enrollmentYear, String semester, BigDecimal credits);
+
+}
@@ -0,0 +1,49 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@Table("waitlist_entries")
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistEntry {
+
+    @Id
+    private Integer id;
+
+    @Column("waitlistEntryId")
+    private String waitlistEntryId;
+
+    @Column("enrollmentYear")
+    private Integer enrollmentYear;
+
+    private Semester semester;
+
+    @Column("studentId")
+    private String studentId;
+
+    @Column("studentFirstName")
+    private String studentFirstName;
+
+    @Column("studentLastName")
+    private String studentLastName;
+
+    @Column("courseId")
+    private String courseId;
+
+    @Column("courseNumber")
+    private String courseNumber;
+
+    @Column("courseName")
+    private String courseName;
+
+    @Column("numCredits")
+    private Double numCredits;
+
+    @Column("meetingSlots")
+    private String meetingSlots;
+}
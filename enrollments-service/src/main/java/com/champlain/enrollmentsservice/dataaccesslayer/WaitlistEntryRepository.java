@@ -0,0 +1,23 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface WaitlistEntryRepository extends ReactiveCrudRepository<WaitlistEntry, Integer> {
+
+    // served by idx_waitlist_course_term_arrival (courseId, enrollmentYear, semester, id): one index seek, no scan of the waitlist
+    @Query("SELECT * FROM waitlist_entries WHERE courseId = :courseId AND enrollmentYear = :enrollmentYear AND semester = :semester " +
+            "ORDER BY id LIMIT 1")
+    Mono<WaitlistEntry> findHeadOfWaitlist(String courseId, Integer enrollmentYear, String semester);
+
+    @Modifying
+    @Query("DELETE FROM waitlist_entries WHERE id = :id")
+    Mono<Integer> removeWaitlistEntry(Integer id);
+
+    @Modifying
+    @Query("DELETE FROM waitlist_entries WHERE waitlistEntryId = :waitlistEntryId")
+    Mono<Integer> deleteWaitlistEntryByWaitlistEntryId(String waitlistEntryId);
+
+}
@@ -2,6 +2,7 @@ package com.champlain.enrollmentsservice.domainclientlayer;
 
 
 
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
 import com.champlain.enrollmentsservice.utils.exceptions.NotFoundException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -47,6 +49,57 @@ public class CourseClient {
                     .bodyToMono(CourseResponseDTO.class);
         }
 
+    public Mono<CourseResponseDTO> reserveSeats(final String courseId, final int count){
+            return this.webClient
+                    .post()
+                    .uri(uriBuilder -> uriBuilder.path("/{courseId}/seats").queryParam("count", count).build(courseId))
+                    .retrieve()
+                    .onStatus(HttpStatusCode::is4xxClientError, error ->
+                            seatError(error.statusCode(), courseId, "No seats left in course: " + courseId))
+                    .onStatus(HttpStatusCode::is5xxServerError, error ->
+                            Mono.error(new IllegalArgumentException("Something went wrong"))
+                    )
+                    .bodyToMono(CourseResponseDTO.class);
+        }
+
+    public Mono<CourseResponseDTO> releaseSeats(final String courseId, final int count){
+            return this.webClient
+                    .delete()
+                    .uri(uriBuilder -> uriBuilder.path("/{courseId}/seats").queryParam("count", count).build(courseId))
+                    .retrieve()
+                    .onStatus(HttpStatusCode::is4xxClientError, error ->
+                            seatError(error.statusCode(), courseId, "No reserved seats to release in course: " + courseId))
+                    .onStatus(HttpStatusCode::is5xxServerError, error ->
+                            Mono.error(new IllegalArgumentException("Something went wrong"))
+                    )
+                    .bodyToMono(CourseResponseDTO.class);
+        }
+
+    public Mono<PrerequisiteCheckResponseDTO> checkPrerequisites(final String courseId, final List<String> completedCourseIds){
+            return this.webClient
+                    .post()
+                    .uri("/{courseId}/prerequisites/check", courseId)
+                    .bodyValue(PrerequisiteCheckRequestDTO.builder().completedCourseIds(completedCourseIds).build())
+                    .retrieve()
+                    .onStatus(HttpStatusCode::is4xxClientError, error -> {
+                        if(error.statusCode().equals(HttpStatus.NOT_FOUND))
+                            return Mono.error(new NotFoundException("CourseId not found: " + courseId));
+                        return Mono.error(new IllegalArgumentException("Something went wrong"));
+                    })
+                    .onStatus(HttpStatusCode::is5xxServerError, error ->
+                            Mono.error(new IllegalArgumentException("Something went wrong"))
+                    )
+                    .bodyToMono(PrerequisiteCheckResponseDTO.class);
+        }
+
+        private static Mono<Throwable> seatError(HttpStatusCode statusCode, String courseId, String conflictMessage){
+            if(statusCode.equals(HttpStatus.NOT_FOUND))
+                return Mono.error(new NotFoundException("CourseId not found: " + courseId));
+            if(statusCode.equals(HttpStatus.CONFLICT))
+                return Mono.error(new ConflictException(conflictMessage));
+            return Mono.error(new IllegalArgumentException("Something went wrong"));
+        }
+
         public static String generateUUIDString(){
             return UUID.randomUUID().toString();
         }
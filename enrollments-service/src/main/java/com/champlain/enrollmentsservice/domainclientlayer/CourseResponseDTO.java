@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,5 +19,9 @@ public class CourseResponseDTO {
     private Integer numHours;
     private Double numCredits;
     private String department;
+    private Integer capacity;
+    private Integer seatsTaken;
+    private List<String> prerequisiteCourseIds;
+    private List<MeetingSlot> meetingSlots;
 
 }
@@ -0,0 +1,21 @@
+package com.champlain.enrollmentsservice.domainclientlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeetingSlot {
+
+    private DayOfWeek day;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+}
@@ -0,0 +1,18 @@
+package com.champlain.enrollmentsservice.domainclientlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrerequisiteCheckRequestDTO {
+
+    private List<String> completedCourseIds;
+
+}
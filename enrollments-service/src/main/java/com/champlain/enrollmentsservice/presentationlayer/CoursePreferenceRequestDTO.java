@@ -0,0 +1,22 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoursePreferenceRequestDTO {
+
+    private Integer enrollmentYear;
+    private Semester semester;
+    private String studentId;
+    private List<String> courseIds;
+
+}
@@ -0,0 +1,24 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoursePreferenceResponseDTO {
+
+    private Integer enrollmentYear;
+    private Semester semester;
+    private String studentId;
+    private String studentFirstName;
+    private String studentLastName;
+    private List<String> courseIds;
+
+}
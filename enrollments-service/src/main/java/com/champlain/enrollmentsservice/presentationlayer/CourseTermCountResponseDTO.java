@@ -0,0 +1,20 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseTermCountResponseDTO {
+
+    private String courseId;
+    private Integer enrollmentYear;
+    private Semester semester;
+    private Integer enrollments;
+
+}
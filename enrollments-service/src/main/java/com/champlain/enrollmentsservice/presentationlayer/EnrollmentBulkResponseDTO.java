@@ -0,0 +1,18 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentBulkResponseDTO {
+
+    private Long row;
+    private String enrollmentId;
+    private String error;
+
+}
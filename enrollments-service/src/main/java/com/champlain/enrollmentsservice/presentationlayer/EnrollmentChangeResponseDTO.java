@@ -0,0 +1,21 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// enrollment is the row as committed, or as it was before a delete; previous is only set for updates
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EnrollmentChangeResponseDTO {
+
+    private EnrollmentChangeType type;
+    private EnrollmentResponseDTO enrollment;
+    private EnrollmentResponseDTO previous;
+
+}
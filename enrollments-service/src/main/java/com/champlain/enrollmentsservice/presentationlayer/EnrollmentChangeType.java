@@ -0,0 +1,8 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+public enum EnrollmentChangeType {
+
+    CREATED,
+    UPDATED,
+    DELETED
+}
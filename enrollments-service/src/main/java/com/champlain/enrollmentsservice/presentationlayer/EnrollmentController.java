@@ -1,11 +1,14 @@
 package com.champlain.enrollmentsservice.presentationlayer;
 
+import com.champlain.enrollmentsservice.businesslayer.EnrollmentIntakeService;
 import com.champlain.enrollmentsservice.businesslayer.EnrollmentService;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -20,10 +23,49 @@ import java.util.Map;
 public class EnrollmentController {
 
     private final EnrollmentService enrollmentService;
+    private final EnrollmentIntakeService enrollmentIntakeService;
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    // each event's id is the cursor to pass as after to get the rows that follow it; count=true adds X-Total-Count
     @GetMapping(value = "", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<EnrollmentResponseDTO> getAllEnrollments(@RequestParam  Map<String, String> queryParams){
-        return enrollmentService.getAllEnrollments(queryParams);
+    public Mono<ResponseEntity<Flux<ServerSentEvent<EnrollmentResponseDTO>>>> getAllEnrollments(@RequestParam  Map<String, String> queryParams){
+        Flux<ServerSentEvent<EnrollmentResponseDTO>> enrollments = enrollmentService.getAllEnrollments(queryParams)
+                .map(e -> ServerSentEvent.builder(e).id(e.getCursor()).build());
+        if (!Boolean.parseBoolean(queryParams.get("count"))) {
+            return Mono.just(ResponseEntity.ok().body(enrollments));
+        }
+        return enrollmentService.countEnrollments(queryParams)
+                .map(total -> ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(total)).body(enrollments));
+    }
+
+    // every enrollment created, updated or deleted from now on, optionally only those of a course or a student
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<EnrollmentChangeResponseDTO>> tailEnrollments(@RequestParam(required = false) String courseId,
+                                                                              @RequestParam(required = false) String studentId){
+        return enrollmentService.tailEnrollments(courseId, studentId)
+                .map(change -> ServerSentEvent.builder(change).event(change.getType().name().toLowerCase()).build());
+    }
+
+    @PostMapping(value = "/search", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<EnrollmentResponseDTO> searchEnrollments(@RequestBody Mono<EnrollmentSearchRequestDTO> enrollmentSearchRequestDTOMono){
+        return enrollmentService.searchEnrollments(enrollmentSearchRequestDTOMono);
+    }
+
+    // counts grouped by any of course, department, year and semester, e.g. ?groupBy=department,year&top=10
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<EnrollmentStatsResponseDTO>> getEnrollmentStats(@RequestParam Map<String, String> queryParams){
+        return enrollmentService.getEnrollmentStats(queryParams)
+                .map(ResponseEntity::ok);
+    }
+
+    // the enrollments of one course and term, read from its counter rather than counted
+    @GetMapping("/counts")
+    public Mono<ResponseEntity<CourseTermCountResponseDTO>> getCourseTermCount(@RequestParam(required = false) String courseId,
+                                                                               @RequestParam(required = false) Integer enrollmentYear,
+                                                                               @RequestParam(required = false) Semester semester){
+        return enrollmentService.getCourseTermCount(courseId, enrollmentYear, semester)
+                .map(ResponseEntity::ok);
     }
 
     @GetMapping("/{enrollmentId}")
@@ -34,13 +76,64 @@ public class EnrollmentController {
     }
 
     @PostMapping()
-    public Mono<ResponseEntity<EnrollmentResponseDTO>> addEnrollment(@RequestBody Mono<EnrollmentRequestDTO> enrollmentRequestDTOMono){
-        return enrollmentService.addEnrollment(enrollmentRequestDTOMono)
+    public Mono<ResponseEntity<EnrollmentResponseDTO>> addEnrollment(@RequestBody Mono<EnrollmentRequestDTO> enrollmentRequestDTOMono,
+                                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+        return enrollmentService.addEnrollment(enrollmentRequestDTOMono, idempotencyKey)
                 .map(e -> ResponseEntity.status(HttpStatus.CREATED).body(e))
                 .doOnNext(i -> System.out.println(("Created new enrollment")))
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<EnrollmentBulkResponseDTO> addEnrollments(@RequestBody Flux<EnrollmentRequestDTO> enrollmentRequestDTOFlux){
+        return enrollmentService.addEnrollments(enrollmentRequestDTOFlux);
+    }
+
+    @PostMapping("/intake")
+    public Mono<ResponseEntity<EnrollmentTicketResponseDTO>> submitEnrollment(@RequestBody Mono<EnrollmentRequestDTO> enrollmentRequestDTOMono){
+        return enrollmentIntakeService.submitEnrollment(enrollmentRequestDTOMono)
+                .map(t -> ResponseEntity.status(HttpStatus.ACCEPTED).body(t));
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public Mono<ResponseEntity<EnrollmentTicketResponseDTO>> getTicketById(@PathVariable String ticketId){
+        return enrollmentIntakeService.getTicketById(ticketId)
+                .map(t -> ResponseEntity.ok().body(t))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/waitlist")
+    public Mono<ResponseEntity<WaitlistEntryResponseDTO>> joinWaitlist(@RequestBody Mono<EnrollmentRequestDTO> enrollmentRequestDTOMono){
+        return enrollmentService.joinWaitlist(enrollmentRequestDTOMono)
+                .map(w -> ResponseEntity.status(HttpStatus.CREATED).body(w));
+    }
+
+    @DeleteMapping("/waitlist/{waitlistEntryId}")
+    public Mono<ResponseEntity<Void>> leaveWaitlist(@PathVariable String waitlistEntryId){
+        return enrollmentService.leaveWaitlist(waitlistEntryId)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+
+    @PostMapping("/preferences")
+    public Mono<ResponseEntity<CoursePreferenceResponseDTO>> submitPreferences(@RequestBody Mono<CoursePreferenceRequestDTO> coursePreferenceRequestDTOMono){
+        return enrollmentService.submitPreferences(coursePreferenceRequestDTOMono)
+                .map(p -> ResponseEntity.status(HttpStatus.CREATED).body(p));
+    }
+
+    @PostMapping("/lottery")
+    public Mono<ResponseEntity<LotteryResultResponseDTO>> runLottery(@RequestParam(required = false) Integer enrollmentYear,
+                                                                     @RequestParam(required = false) Semester semester){
+        return enrollmentService.runLottery(enrollmentYear, semester)
+                .map(ResponseEntity::ok);
+    }
+
+    // compares the in-memory read model with the table; a model found out of step is reloaded
+    @PostMapping("/read-model/check")
+    public Mono<ResponseEntity<ReadModelConsistencyResponseDTO>> checkReadModel(){
+        return enrollmentService.checkReadModel()
+                .map(ResponseEntity::ok);
+    }
+
     @PutMapping("/{enrollmentId}")
     public Mono<ResponseEntity<EnrollmentResponseDTO>> updateEnrollment(@RequestBody Mono<EnrollmentRequestDTO> enrollmentRequestDTO,
                                                                         @PathVariable String enrollmentId){
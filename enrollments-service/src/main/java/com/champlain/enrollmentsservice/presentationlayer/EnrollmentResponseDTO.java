@@ -1,6 +1,8 @@
 package com.champlain.enrollmentsservice.presentationlayer;
 
 import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +24,9 @@ public class EnrollmentResponseDTO {
     private String courseNumber;
     private String courseName;
 
-
+    // only set on listing rows, where it is sent as the id of the server-sent event rather than in the body
+    @JsonIgnore
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cursor;
 
 }
@@ -0,0 +1,20 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentSearchRequestDTO {
+
+    private List<String> enrollmentIds;
+    private List<String> studentIds;
+    private List<String> courseIds;
+
+}
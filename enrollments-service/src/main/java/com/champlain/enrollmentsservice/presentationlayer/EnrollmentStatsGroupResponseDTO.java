@@ -0,0 +1,25 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// only the dimensions the counts were grouped by are set
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EnrollmentStatsGroupResponseDTO {
+
+    private String courseId;
+    private String courseNumber;
+    private String department;
+    private Integer enrollmentYear;
+    private Semester semester;
+    private Long enrollments;
+
+}
@@ -0,0 +1,20 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentStatsResponseDTO {
+
+    private List<String> groupBy;
+    private Long enrollments;
+    private List<EnrollmentStatsGroupResponseDTO> groups;
+
+}
@@ -0,0 +1,19 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentTicketResponseDTO {
+
+    private String ticketId;
+    private EnrollmentTicketStatus status;
+    private String enrollmentId;
+    private String error;
+
+}
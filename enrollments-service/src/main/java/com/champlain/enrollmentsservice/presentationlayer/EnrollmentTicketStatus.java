@@ -0,0 +1,9 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+public enum EnrollmentTicketStatus {
+
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,23 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotteryResultResponseDTO {
+
+    private Integer enrollmentYear;
+    private Semester semester;
+    private Integer students;
+    private Integer preferences;
+    private Integer enrollmentsCreated;
+    private Integer enrollmentsFailed;
+    private Integer studentsWithoutCourse;
+
+}
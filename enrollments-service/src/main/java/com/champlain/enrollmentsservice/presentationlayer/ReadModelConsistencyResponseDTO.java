@@ -0,0 +1,22 @@
+package com.champlain.enrollmentsservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadModelConsistencyResponseDTO {
+
+    private boolean serving;
+    private boolean consistent;
+    private long tableRows;
+    private long modelRows;
+    private long missingRows;
+    private long staleRows;
+    private long extraRows;
+
+}
@@ -0,0 +1,20 @@
+package com.champlain.enrollmentsservice.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BoundedLruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private final int maxEntries;
+
+    public BoundedLruMap(int maxEntries) {
+        super(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+    }
+
+}
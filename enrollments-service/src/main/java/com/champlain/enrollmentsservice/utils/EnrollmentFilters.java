@@ -0,0 +1,54 @@
+package com.champlain.enrollmentsservice.utils;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+// Turns the query parameters of GET /enrollments into an EnrollmentFilter. Any parameter that is neither a
+// known filter nor a paging parameter is rejected rather than ignored, so a typo never silently returns every row.
+public class EnrollmentFilters {
+
+    public static final Set<String> PARAMETERS = Set.of("studentId", "courseId", "enrollmentYear", "semester");
+
+    public static EnrollmentFilter from(Map<String, String> queryParams){
+        for (String parameter : queryParams.keySet()) {
+            if (!PARAMETERS.contains(parameter) && !EnrollmentPages.PARAMETERS.contains(parameter)) {
+                throw new InvalidInputException("Unknown query parameter: " + parameter + ", expected one of "
+                        + PARAMETERS + " or " + EnrollmentPages.PARAMETERS);
+            }
+        }
+        return EnrollmentFilter.builder()
+                .studentId(queryParams.get("studentId"))
+                .courseId(queryParams.get("courseId"))
+                .enrollmentYear(enrollmentYear(queryParams.get("enrollmentYear")))
+                .semester(semester(queryParams.get("semester")))
+                .build();
+    }
+
+    static Integer enrollmentYear(String enrollmentYear){
+        if (enrollmentYear == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(enrollmentYear);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Invalid enrollmentYear, must be a number: " + enrollmentYear);
+        }
+    }
+
+    static Semester semester(String semester){
+        if (semester == null) {
+            return null;
+        }
+        try {
+            return Semester.valueOf(semester.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid semester, expected one of " + Arrays.toString(Semester.values()) + ": " + semester);
+        }
+    }
+
+}
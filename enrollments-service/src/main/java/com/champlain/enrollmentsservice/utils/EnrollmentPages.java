@@ -0,0 +1,71 @@
+package com.champlain.enrollmentsservice.utils;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+// Turns the paging parameters of GET /enrollments into an EnrollmentPage. The after cursor is opaque to
+// clients; it is the cursor of the last enrollment they received.
+public class EnrollmentPages {
+
+    public static final Set<String> PARAMETERS = Set.of("limit", "after", "order", "count");
+
+    private static final String CURSOR_PREFIX = "e:";
+
+    public static EnrollmentPage from(Map<String, String> queryParams, int maxLimit){
+        return EnrollmentPage.builder()
+                .after(queryParams.get("after") == null ? null : decodeCursor(queryParams.get("after")))
+                .limit(limit(queryParams.get("limit"), maxLimit))
+                .descending(descending(queryParams.get("order")))
+                .build();
+    }
+
+    public static String encodeCursor(Integer id){
+        if (id == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Integer decodeCursor(String cursor){
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return Integer.valueOf(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the error below, NumberFormatException included
+        }
+        throw new InvalidInputException("Invalid after cursor: " + cursor);
+    }
+
+    private static Integer limit(String limit, int maxLimit){
+        if (limit == null) {
+            return null;
+        }
+        try {
+            int parsed = Integer.parseInt(limit);
+            if (parsed >= 1 && parsed <= maxLimit) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the error below
+        }
+        throw new InvalidInputException("Invalid limit, must be between 1 and " + maxLimit + ": " + limit);
+    }
+
+    private static boolean descending(String order){
+        if (order == null || order.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (order.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new InvalidInputException("Invalid order, expected asc or desc: " + order);
+    }
+
+}
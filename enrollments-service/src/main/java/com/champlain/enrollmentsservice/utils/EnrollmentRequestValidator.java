@@ -0,0 +1,16 @@
+package com.champlain.enrollmentsservice.utils;
+
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
+
+public class EnrollmentRequestValidator {
+
+    public static final String MISSING_FIELDS_MESSAGE = "Invalid enrollment, enrollmentYear, semester, studentId and courseId are required";
+
+    public static boolean isComplete(EnrollmentRequestDTO enrollmentRequestDTO){
+        return enrollmentRequestDTO.getEnrollmentYear() != null
+                && enrollmentRequestDTO.getSemester() != null
+                && enrollmentRequestDTO.getStudentId() != null
+                && enrollmentRequestDTO.getCourseId() != null;
+    }
+
+}
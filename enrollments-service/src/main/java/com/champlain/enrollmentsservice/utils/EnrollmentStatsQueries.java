@@ -0,0 +1,69 @@
+package com.champlain.enrollmentsservice.utils;
+
+import com.champlain.enrollmentsservice.businesslayer.EnrollmentStatsDimension;
+import com.champlain.enrollmentsservice.businesslayer.EnrollmentStatsQuery;
+import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Turns the query parameters of GET /enrollments/stats into an EnrollmentStatsQuery, e.g.
+// groupBy=course,semester&enrollmentYear=2024&top=10. Unknown parameters and dimensions are rejected.
+public class EnrollmentStatsQueries {
+
+    public static final Set<String> PARAMETERS = Set.of("groupBy", "enrollmentYear", "semester", "top");
+
+    public static EnrollmentStatsQuery from(Map<String, String> queryParams, int maxTop){
+        for (String parameter : queryParams.keySet()) {
+            if (!PARAMETERS.contains(parameter)) {
+                throw new InvalidInputException("Unknown query parameter: " + parameter + ", expected one of " + PARAMETERS);
+            }
+        }
+        return EnrollmentStatsQuery.builder()
+                .groupBy(groupBy(queryParams.get("groupBy")))
+                .enrollmentYear(EnrollmentFilters.enrollmentYear(queryParams.get("enrollmentYear")))
+                .semester(EnrollmentFilters.semester(queryParams.get("semester")))
+                .top(top(queryParams.get("top"), maxTop))
+                .build();
+    }
+
+    private static List<EnrollmentStatsDimension> groupBy(String groupBy){
+        if (groupBy == null || groupBy.isBlank()) {
+            throw new InvalidInputException("Invalid groupBy, expected a comma separated list of "
+                    + Arrays.toString(EnrollmentStatsDimension.values()));
+        }
+        List<EnrollmentStatsDimension> dimensions = new ArrayList<>();
+        for (String dimension : groupBy.split(",")) {
+            try {
+                EnrollmentStatsDimension parsed = EnrollmentStatsDimension.valueOf(dimension.trim().toUpperCase());
+                if (!dimensions.contains(parsed)) {
+                    dimensions.add(parsed);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new InvalidInputException("Invalid groupBy, expected one of "
+                        + Arrays.toString(EnrollmentStatsDimension.values()) + ": " + dimension);
+            }
+        }
+        return dimensions;
+    }
+
+    // without top the largest maxTop groups are returned, so a fine-grained groupBy cannot produce an unbounded body
+    private static Integer top(String top, int maxTop){
+        if (top == null) {
+            return maxTop;
+        }
+        try {
+            int parsed = Integer.parseInt(top);
+            if (parsed >= 1 && parsed <= maxTop) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the error below
+        }
+        throw new InvalidInputException("Invalid top, must be a number between 1 and " + maxTop + ": " + top);
+    }
+
+}
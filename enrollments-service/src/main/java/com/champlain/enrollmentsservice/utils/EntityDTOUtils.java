@@ -1,13 +1,25 @@
 package com.champlain.enrollmentsservice.utils;
 
 import com.champlain.enrollmentsservice.businesslayer.RequestContextAdd;
+import com.champlain.enrollmentsservice.businesslayer.RequestContextBulk;
 import com.champlain.enrollmentsservice.businesslayer.RequestContextUpdate;
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreference;
 import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntry;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.StudentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CoursePreferenceRequestDTO;
+import com.champlain.enrollmentsservice.presentationlayer.CoursePreferenceResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentBulkResponseDTO;
 import com.champlain.enrollmentsservice.presentationlayer.EnrollmentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.WaitlistEntryResponseDTO;
 
 import org.springframework.beans.BeanUtils;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 public class EntityDTOUtils {
 
@@ -19,6 +31,13 @@ public class EntityDTOUtils {
 
         }
 
+        // a listed enrollment also carries the cursor the next page continues from
+        public static EnrollmentResponseDTO toEnrollmentListingResponseDTO(Enrollment enrollment){
+            EnrollmentResponseDTO enrollmentResponseDTO = toEnrollmentResponseDTO(enrollment);
+            enrollmentResponseDTO.setCursor(EnrollmentPages.encodeCursor(enrollment.getId()));
+            return enrollmentResponseDTO;
+        }
+
         public static Enrollment toEnrollmentEntity(RequestContextAdd rc){
             return Enrollment.builder()
                     .enrollmentId(generateUUIDString())
@@ -27,6 +46,8 @@ public class EntityDTOUtils {
                     .enrollmentYear(rc.getEnrollmentRequestDTO().getEnrollmentYear())
                     .courseNumber(rc.getCourseResponseDTO().getCourseNumber())
                     .courseName(rc.getCourseResponseDTO().getCourseName())
+                    .numCredits(rc.getCourseResponseDTO().getNumCredits())
+                    .meetingSlots(MeetingSlots.format(rc.getCourseResponseDTO().getMeetingSlots()))
                     .semester(rc.getEnrollmentRequestDTO().getSemester())
                     .studentFirstName(rc.getStudentResponseDTO().getFirstName())
                     .studentLastName(rc.getStudentResponseDTO().getLastName())
@@ -42,12 +63,108 @@ public class EntityDTOUtils {
                     .enrollmentYear(rcu.getEnrollmentRequestDTO().getEnrollmentYear())
                     .courseNumber(rcu.getCourseResponseDTO().getCourseNumber())
                     .courseName(rcu.getCourseResponseDTO().getCourseName())
+                    .numCredits(rcu.getCourseResponseDTO().getNumCredits())
+                    .meetingSlots(MeetingSlots.format(rcu.getCourseResponseDTO().getMeetingSlots()))
                     .semester(rcu.getEnrollmentRequestDTO().getSemester())
                     .studentFirstName(rcu.getStudentResponseDTO().getFirstName())
                     .studentLastName(rcu.getStudentResponseDTO().getLastName())
                     .id(existingEnrollment.getId())
                     .build();
         }
+        public static EnrollmentBulkResponseDTO toEnrollmentBulkResponseDTO(RequestContextBulk rcb){
+            return EnrollmentBulkResponseDTO.builder()
+                    .row(rcb.getRow())
+                    .enrollmentId(rcb.getError() == null ? rcb.getEnrollment().getEnrollmentId() : null)
+                    .error(rcb.getError())
+                    .build();
+        }
+
+        public static WaitlistEntry toWaitlistEntryEntity(RequestContextAdd rc){
+            return WaitlistEntry.builder()
+                    .waitlistEntryId(generateUUIDString())
+                    .courseId(rc.getCourseResponseDTO().getCourseId())
+                    .studentId(rc.getStudentResponseDTO().getStudentId())
+                    .enrollmentYear(rc.getEnrollmentRequestDTO().getEnrollmentYear())
+                    .courseNumber(rc.getCourseResponseDTO().getCourseNumber())
+                    .courseName(rc.getCourseResponseDTO().getCourseName())
+                    .numCredits(rc.getCourseResponseDTO().getNumCredits())
+                    .meetingSlots(MeetingSlots.format(rc.getCourseResponseDTO().getMeetingSlots()))
+                    .semester(rc.getEnrollmentRequestDTO().getSemester())
+                    .studentFirstName(rc.getStudentResponseDTO().getFirstName())
+                    .studentLastName(rc.getStudentResponseDTO().getLastName())
+                    .build();
+        }
+
+        public static Enrollment toEnrollmentEntity(WaitlistEntry waitlistEntry){
+            return Enrollment.builder()
+                    .enrollmentId(generateUUIDString())
+                    .courseId(waitlistEntry.getCourseId())
+                    .studentId(waitlistEntry.getStudentId())
+                    .enrollmentYear(waitlistEntry.getEnrollmentYear())
+                    .courseNumber(waitlistEntry.getCourseNumber())
+                    .courseName(waitlistEntry.getCourseName())
+                    .numCredits(waitlistEntry.getNumCredits())
+                    .meetingSlots(waitlistEntry.getMeetingSlots())
+                    .semester(waitlistEntry.getSemester())
+                    .studentFirstName(waitlistEntry.getStudentFirstName())
+                    .studentLastName(waitlistEntry.getStudentLastName())
+                    .build();
+        }
+
+        public static WaitlistEntryResponseDTO toWaitlistEntryResponseDTO(WaitlistEntry waitlistEntry){
+            WaitlistEntryResponseDTO waitlistEntryResponseDTO = new WaitlistEntryResponseDTO();
+            BeanUtils.copyProperties(waitlistEntry, waitlistEntryResponseDTO);
+            return waitlistEntryResponseDTO;
+        }
+
+        public static Enrollment toEnrollmentEntity(CoursePreference coursePreference, CourseResponseDTO courseResponseDTO){
+            return Enrollment.builder()
+                    .enrollmentId(generateUUIDString())
+                    .courseId(courseResponseDTO.getCourseId())
+                    .studentId(coursePreference.getStudentId())
+                    .enrollmentYear(coursePreference.getEnrollmentYear())
+                    .courseNumber(courseResponseDTO.getCourseNumber())
+                    .courseName(courseResponseDTO.getCourseName())
+                    .numCredits(courseResponseDTO.getNumCredits())
+                    .meetingSlots(MeetingSlots.format(courseResponseDTO.getMeetingSlots()))
+                    .semester(coursePreference.getSemester())
+                    .studentFirstName(coursePreference.getStudentFirstName())
+                    .studentLastName(coursePreference.getStudentLastName())
+                    .build();
+        }
+
+        public static List<CoursePreference> toCoursePreferenceEntities(CoursePreferenceRequestDTO coursePreferenceRequestDTO,
+                                                                        StudentResponseDTO studentResponseDTO){
+            List<String> courseIds = coursePreferenceRequestDTO.getCourseIds();
+            return IntStream.range(0, courseIds.size())
+                    .mapToObj(rank -> CoursePreference.builder()
+                            .enrollmentYear(coursePreferenceRequestDTO.getEnrollmentYear())
+                            .semester(coursePreferenceRequestDTO.getSemester())
+                            .studentId(studentResponseDTO.getStudentId())
+                            .studentFirstName(studentResponseDTO.getFirstName())
+                            .studentLastName(studentResponseDTO.getLastName())
+                            .courseId(courseIds.get(rank))
+                            .preferenceRank(rank + 1)
+                            .build())
+                    .toList();
+        }
+
+        // the preferences of one student for one term, best ranked first
+        public static CoursePreferenceResponseDTO toCoursePreferenceResponseDTO(List<CoursePreference> coursePreferences){
+            CoursePreference first = coursePreferences.get(0);
+            return CoursePreferenceResponseDTO.builder()
+                    .enrollmentYear(first.getEnrollmentYear())
+                    .semester(first.getSemester())
+                    .studentId(first.getStudentId())
+                    .studentFirstName(first.getStudentFirstName())
+                    .studentLastName(first.getStudentLastName())
+                    .courseIds(coursePreferences.stream()
+                            .sorted(Comparator.comparing(CoursePreference::getPreferenceRank))
+                            .map(CoursePreference::getCourseId)
+                            .toList())
+                    .build();
+        }
+
         public static String generateUUIDString(){
             return UUID.randomUUID().toString();
 
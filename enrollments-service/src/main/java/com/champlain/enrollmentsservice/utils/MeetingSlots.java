@@ -0,0 +1,48 @@
+package com.champlain.enrollmentsservice.utils;
+
+import com.champlain.enrollmentsservice.domainclientlayer.MeetingSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Meeting slots are stored on enrollment rows as text, e.g. "MONDAY 08:30-11:30,WEDNESDAY 08:30-11:30", so a
+// student's schedule can be rebuilt from their enrollments without asking courses-service again.
+public class MeetingSlots {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static String format(List<MeetingSlot> meetingSlots){
+        if(meetingSlots == null || meetingSlots.isEmpty()){
+            return null;
+        }
+        return meetingSlots.stream()
+                .map(meetingSlot -> meetingSlot.getDay() + " " + meetingSlot.getStartTime() + "-" + meetingSlot.getEndTime())
+                .collect(Collectors.joining(","));
+    }
+
+    public static List<MeetingSlot> parse(String meetingSlots){
+        List<MeetingSlot> parsed = new ArrayList<>();
+        if(meetingSlots == null || meetingSlots.isBlank()){
+            return parsed;
+        }
+        for(String meetingSlot : meetingSlots.split(",")){
+            String[] dayAndTimes = meetingSlot.trim().split(" ");
+            String[] times = dayAndTimes[1].split("-");
+            parsed.add(new MeetingSlot(DayOfWeek.valueOf(dayAndTimes[0]), LocalTime.parse(times[0]), LocalTime.parse(times[1])));
+        }
+        return parsed;
+    }
+
+    // minutes since Monday 00:00, so the slots of a whole week compare as plain integers
+    public static int startMinuteOfWeek(MeetingSlot meetingSlot){
+        return (meetingSlot.getDay().getValue() - 1) * MINUTES_PER_DAY + meetingSlot.getStartTime().toSecondOfDay() / 60;
+    }
+
+    public static int endMinuteOfWeek(MeetingSlot meetingSlot){
+        return (meetingSlot.getDay().getValue() - 1) * MINUTES_PER_DAY + meetingSlot.getEndTime().toSecondOfDay() / 60;
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.champlain.enrollmentsservice.utils.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    private long retryAfterSeconds;
+
+    public ServiceUnavailableException(){}
+
+    public ServiceUnavailableException(String message) { super(message); }
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ServiceUnavailableException(Throwable cause){  super(cause);  }
+
+    public ServiceUnavailableException(String message, Throwable cause){ super(message, cause);   }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+
+}
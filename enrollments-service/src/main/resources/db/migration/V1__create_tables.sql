@@ -0,0 +1,81 @@
+-- Baseline: the tables as they stood before migrations were versioned. Every statement is guarded with
+-- IF NOT EXISTS, so running it against a database that already has them changes nothing.
+
+CREATE TABLE IF NOT EXISTS enrollments
+(
+    id               SERIAL,
+    enrollmentId     VARCHAR(36),
+    enrollmentYear   SMALLINT,
+    semester        VARCHAR(50),
+    studentId        VARCHAR(36),
+    studentFirstName VARCHAR(50),
+    studentLastName  VARCHAR(50),
+    courseId         VARCHAR(36),
+    courseNumber     VARCHAR(50),
+    courseName       VARCHAR(50),
+    numCredits       DOUBLE PRECISION,
+    meetingSlots     VARCHAR(500),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_enrollments_student_course_term UNIQUE (studentId, courseId, enrollmentYear, semester)
+    );
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_course_term ON enrollments (courseId, enrollmentYear, semester, id);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_term ON enrollments (enrollmentYear, semester, id);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys
+(
+    idempotencyKey   VARCHAR(255),
+    enrollmentId     VARCHAR(36),
+    createdAt        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (idempotencyKey)
+    );
+
+CREATE TABLE IF NOT EXISTS waitlist_entries
+(
+    id               SERIAL,
+    waitlistEntryId  VARCHAR(36),
+    enrollmentYear   SMALLINT,
+    semester        VARCHAR(50),
+    studentId        VARCHAR(36),
+    studentFirstName VARCHAR(50),
+    studentLastName  VARCHAR(50),
+    courseId         VARCHAR(36),
+    courseNumber     VARCHAR(50),
+    courseName       VARCHAR(50),
+    numCredits       DOUBLE PRECISION,
+    meetingSlots     VARCHAR(500),
+    createdAt        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_waitlist_student_course_term UNIQUE (studentId, courseId, enrollmentYear, semester)
+    );
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_course_arrival ON waitlist_entries (courseId, id);
+
+CREATE TABLE IF NOT EXISTS student_term_load
+(
+    id               SERIAL,
+    studentId        VARCHAR(36),
+    enrollmentYear   SMALLINT,
+    semester        VARCHAR(50),
+    totalCredits     NUMERIC(6, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_student_term_load_student_term UNIQUE (studentId, enrollmentYear, semester)
+    );
+
+CREATE TABLE IF NOT EXISTS course_preferences
+(
+    id               SERIAL,
+    enrollmentYear   SMALLINT,
+    semester        VARCHAR(50),
+    studentId        VARCHAR(36),
+    studentFirstName VARCHAR(50),
+    studentLastName  VARCHAR(50),
+    courseId         VARCHAR(36),
+    preferenceRank   SMALLINT,
+    createdAt        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_course_preferences_student_term_course UNIQUE (studentId, enrollmentYear, semester, courseId)
+    );
+
+CREATE INDEX IF NOT EXISTS idx_course_preferences_term ON course_preferences (enrollmentYear, semester);
@@ -0,0 +1,7 @@
+-- One index per repository finder that was not already served by a primary key, a unique constraint or a
+-- baseline index. Finders on studentId use the leading column of uk_enrollments_student_course_term, the
+-- ones on courseId and enrollmentYear use idx_enrollments_course_term and idx_enrollments_term.
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_enrollments_enrollment_id ON enrollments (enrollmentId);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_waitlist_entries_waitlist_entry_id ON waitlist_entries (waitlistEntryId);
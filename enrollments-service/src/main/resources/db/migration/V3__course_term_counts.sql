@@ -0,0 +1,22 @@
+-- One row per course and term with the number of enrollments in it, kept in step by the write paths in the
+-- transaction that writes the enrollment rows. The count of a course and term is then one lookup on
+-- uk_course_term_counts_course_term instead of counting enrollments. Existing enrollments are counted once here.
+
+CREATE TABLE IF NOT EXISTS course_term_counts
+(
+    id               SERIAL,
+    courseId         VARCHAR(36),
+    enrollmentYear   SMALLINT,
+    semester        VARCHAR(50),
+    enrollmentCount  INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_course_term_counts_course_term UNIQUE (courseId, enrollmentYear, semester)
+    );
+
+INSERT INTO course_term_counts (courseId, enrollmentYear, semester, enrollmentCount)
+SELECT e.courseId, e.enrollmentYear, e.semester, COUNT(*)
+FROM enrollments e
+WHERE e.courseId IS NOT NULL AND e.enrollmentYear IS NOT NULL AND e.semester IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM course_term_counts c
+                  WHERE c.courseId = e.courseId AND c.enrollmentYear = e.enrollmentYear AND c.semester = e.semester)
+GROUP BY e.courseId, e.enrollmentYear, e.semester;
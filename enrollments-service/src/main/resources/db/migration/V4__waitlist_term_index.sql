@@ -0,0 +1,7 @@
+-- A dropped seat is offered to the students waiting for the same course and term, so the head of a waitlist
+-- is looked up by course and term. idx_waitlist_course_term_arrival serves that lookup with one seek and
+-- replaces idx_waitlist_course_arrival, whose leading column it shares.
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_course_term_arrival ON waitlist_entries (courseId, enrollmentYear, semester, id);
+
+DROP INDEX IF EXISTS idx_waitlist_course_arrival;
@@ -0,0 +1,4 @@
+-- Idempotency keys are kept for app.enrollments.idempotency.retention and then deleted by their creation time,
+-- so the table stays bounded by the keys of the retention window instead of growing with every request.
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (createdAt);
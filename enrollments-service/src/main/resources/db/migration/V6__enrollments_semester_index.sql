@@ -0,0 +1,4 @@
+-- GET /enrollments can be filtered by semester alone, which none of the enrollments indexes leads with.
+-- idx_enrollments_semester serves that listing in id order and its count without reading the table.
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_semester ON enrollments (semester, id);
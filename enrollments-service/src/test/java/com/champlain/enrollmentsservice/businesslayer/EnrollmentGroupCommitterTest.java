@@ -0,0 +1,210 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.CourseTermCountRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoadRepository;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.StudentClient;
+import com.champlain.enrollmentsservice.domainclientlayer.StudentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "app.enrollments.group-commit.enabled=true",
+        "app.enrollments.group-commit.window=200ms",
+        "app.enrollments.group-commit.max-batch=10",
+        "app.enrollments.group-commit.save-timeout=1s"
+})
+class EnrollmentGroupCommitterTest {
+
+    @Autowired
+    EnrollmentGroupCommitter enrollmentGroupCommitter;
+
+    @Autowired
+    EnrollmentService enrollmentService;
+
+    @SpyBean
+    EnrollmentBatchWriter enrollmentBatchWriter;
+
+    @MockBean
+    StudentClient studentClient;
+
+    @MockBean
+    CourseClient courseClient;
+
+    @Autowired
+    StudentTermLoadRepository studentTermLoadRepository;
+
+    @Autowired
+    CourseTermCountRepository courseTermCountRepository;
+
+    private final CourseResponseDTO courseResponseDTO = CourseResponseDTO.builder()
+            .courseId("course123")
+            .courseName("Web Services")
+            .courseNumber("420-N45-LA")
+            .numCredits(2.0)
+            .build();
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setupDB() {
+        StepVerifier.create(studentTermLoadRepository.deleteAll()
+                        .then(courseTermCountRepository.deleteAll())
+                        .then(enrollmentRepository.deleteAll()))
+                .verifyComplete();
+    }
+
+    @Test
+    void save_concurrentSaves_shouldShareOneBatchAndGetTheirOwnIds() {
+        //arrange
+        long batchesBefore = meterRegistry.get("enrollments.group-commit.batch.size").summary().count();
+
+        //act
+        Flux<Enrollment> saved = Flux.range(0, 10)
+                .map(i -> buildEnrollment("student" + i))
+                .flatMap(enrollmentGroupCommitter::save);
+
+        //assert
+        StepVerifier.create(saved.map(Enrollment::getId).distinct().count())
+                .expectNext(10L)
+                .verifyComplete();
+        assertEquals(batchesBefore + 1, meterRegistry.get("enrollments.group-commit.batch.size").summary().count());
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(10L)
+                .verifyComplete();
+    }
+
+    @Test
+    void save_flushStalledForManyWindows_shouldKeepFlushingLaterSaves() {
+        //arrange
+        EnrollmentBatchWriter enrollmentBatchWriter = mock(EnrollmentBatchWriter.class);
+        AtomicInteger flushes = new AtomicInteger();
+        when(enrollmentBatchWriter.write(anyList())).thenAnswer(invocation -> {
+            List<Enrollment> batch = invocation.getArgument(0);
+            Flux<EnrollmentWriteResult> written = Flux.fromIterable(batch).map(EnrollmentWriteResult::success);
+            // the first flush stalls for about 60 windows while saves keep arriving
+            return flushes.getAndIncrement() == 0 ? written.delaySubscription(Duration.ofMillis(300)) : written;
+        });
+        EnrollmentGroupCommitter groupCommitter = new EnrollmentGroupCommitter(enrollmentBatchWriter, new SimpleMeterRegistry(),
+                true, Duration.ofMillis(5), 10, 1000, Duration.ofSeconds(5), Duration.ofSeconds(5));
+
+        //act
+        Flux<Enrollment> saved = Flux.interval(Duration.ofMillis(2))
+                .take(200)
+                .flatMap(i -> groupCommitter.save(buildEnrollment("student" + i)));
+
+        //assert
+        StepVerifier.create(saved.count())
+                .expectNext(200L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+        groupCommitter.shutdown();
+    }
+
+    @Test
+    void save_queuedBehindAFlushThatNeverAnswers_shouldFailTheCallerAfterSaveTimeout() {
+        //arrange
+        EnrollmentBatchWriter enrollmentBatchWriter = mock(EnrollmentBatchWriter.class);
+        AtomicInteger writes = new AtomicInteger();
+        when(enrollmentBatchWriter.write(anyList())).thenAnswer(invocation -> {
+            writes.incrementAndGet();
+            return Flux.never();
+        });
+        EnrollmentGroupCommitter groupCommitter = new EnrollmentGroupCommitter(enrollmentBatchWriter, new SimpleMeterRegistry(),
+                true, Duration.ofMillis(5), 1, 1000, Duration.ofMinutes(1), Duration.ofMillis(200));
+        groupCommitter.save(buildEnrollment("student1")).subscribe();
+
+        //act & assert
+        StepVerifier.create(groupCommitter.save(buildEnrollment("student2")))
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, writes.get());
+        groupCommitter.shutdown();
+    }
+
+    @Test
+    void addEnrollment_writeSlowerThanSaveTimeout_shouldWaitForTheRowAndKeepItsSeat() {
+        //arrange
+        AtomicInteger seatsTaken = new AtomicInteger();
+        when(studentClient.getStudentByStudentId("student1")).thenReturn(Mono.just(StudentResponseDTO.builder()
+                .studentId("student1")
+                .firstName("firstName")
+                .lastName("lastName")
+                .build()));
+        when(courseClient.getCourseByCourseId("course123")).thenReturn(Mono.just(courseResponseDTO));
+        when(courseClient.reserveSeats(anyString(), anyInt())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            seatsTaken.addAndGet(invocation.getArgument(1));
+            return courseResponseDTO;
+        }));
+        when(courseClient.releaseSeats(anyString(), anyInt())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            seatsTaken.addAndGet(-(int) invocation.getArgument(1));
+            return courseResponseDTO;
+        }));
+        // the rows are handed to the database within the window, then take twice the save-timeout to commit
+        doAnswer(invocation -> ((Flux<?>) invocation.callRealMethod()).delaySubscription(Duration.ofSeconds(2)))
+                .when(enrollmentBatchWriter).write(anyList());
+
+        //act
+        StepVerifier.create(enrollmentService.addEnrollment(Mono.just(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(2023)
+                        .semester(FALL)
+                        .studentId("student1")
+                        .courseId("course123")
+                        .build())))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        //assert
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(1L)
+                .verifyComplete();
+        assertEquals(1, seatsTaken.get());
+        verify(courseClient, never()).releaseSeats(anyString(), anyInt());
+    }
+
+    private Enrollment buildEnrollment(String studentId) {
+        return Enrollment.builder()
+                .enrollmentId(UUID.randomUUID().toString())
+                .enrollmentYear(2023)
+                .semester(FALL)
+                .studentId(studentId)
+                .courseId("course123")
+                .build();
+    }
+
+}
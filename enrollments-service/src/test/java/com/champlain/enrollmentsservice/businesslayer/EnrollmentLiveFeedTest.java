@@ -0,0 +1,94 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentChangeType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.stream.IntStream;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnrollmentLiveFeedTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EnrollmentLiveFeed enrollmentLiveFeed = new EnrollmentLiveFeed(meterRegistry, BUFFER_SIZE);
+
+    @Test
+    void tail_courseFilter_shouldOnlyEmitChangesOfThatCourse() {
+        //arrange
+        Enrollment enrollment = buildEnrollment(1, "student1", "course1");
+        Enrollment moved = buildEnrollment(1, "student1", "course2");
+
+        //act & assert
+        StepVerifier.create(enrollmentLiveFeed.tail("course1", null))
+                .then(() -> {
+                    enrollmentLiveFeed.enrollmentChanged(null, buildEnrollment(2, "student2", "course2"));
+                    enrollmentLiveFeed.enrollmentChanged(null, enrollment);
+                    enrollmentLiveFeed.enrollmentChanged(enrollment, moved);
+                    enrollmentLiveFeed.enrollmentChanged(moved, null);
+                })
+                .assertNext(change -> {
+                    assertEquals(EnrollmentChangeType.CREATED, change.getType());
+                    assertEquals("enrollment1", change.getEnrollment().getEnrollmentId());
+                    assertNull(change.getPrevious());
+                })
+                .assertNext(change -> {
+                    assertEquals(EnrollmentChangeType.UPDATED, change.getType());
+                    assertEquals("course2", change.getEnrollment().getCourseId());
+                    assertEquals("course1", change.getPrevious().getCourseId());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void tail_studentFilter_shouldReportDeletesWithTheDeletedRow() {
+        //arrange
+        Enrollment enrollment = buildEnrollment(3, "student3", "course1");
+
+        //act & assert
+        StepVerifier.create(enrollmentLiveFeed.tail(null, "student3"))
+                .then(() -> {
+                    enrollmentLiveFeed.enrollmentChanged(buildEnrollment(4, "student4", "course1"), null);
+                    enrollmentLiveFeed.enrollmentChanged(enrollment, null);
+                })
+                .assertNext(change -> {
+                    assertEquals(EnrollmentChangeType.DELETED, change.getType());
+                    assertEquals("enrollment3", change.getEnrollment().getEnrollmentId());
+                })
+                .thenCancel()
+                .verify();
+        assertEquals(0, meterRegistry.get("enrollments.live.subscribers").gauge().value());
+    }
+
+    @Test
+    void tail_subscriberFallingBehindItsBuffer_shouldBeCompleted() {
+        //act & assert
+        StepVerifier.create(enrollmentLiveFeed.tail(null, null), 0)
+                .then(() -> IntStream.rangeClosed(1, BUFFER_SIZE + 1)
+                        .forEach(id -> enrollmentLiveFeed.enrollmentChanged(null, buildEnrollment(id, "student" + id, "course1"))))
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(change -> true)
+                .verifyComplete();
+        assertEquals(1, meterRegistry.get("enrollments.live.overflows").counter().count());
+    }
+
+    private static Enrollment buildEnrollment(int id, String studentId, String courseId) {
+        return Enrollment.builder()
+                .id(id)
+                .enrollmentId("enrollment" + id)
+                .enrollmentYear(2024)
+                .semester(FALL)
+                .studentId(studentId)
+                .courseId(courseId)
+                .build();
+    }
+
+}
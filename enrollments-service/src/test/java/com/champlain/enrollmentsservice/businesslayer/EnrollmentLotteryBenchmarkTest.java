@@ -0,0 +1,138 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreferenceRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoadRepository;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.MeetingSlot;
+import com.champlain.enrollmentsservice.presentationlayer.LotteryResultResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class EnrollmentLotteryBenchmarkTest {
+
+    private static final int STUDENTS = 40_000;
+    private static final int COURSES = 2_000;
+    private static final int POPULAR_COURSES = 200;
+    private static final int CHOICES = 5;
+    private static final int CAPACITY = 60;
+
+    @Autowired
+    EnrollmentLottery enrollmentLottery;
+
+    @Autowired
+    CoursePreferenceRepository coursePreferenceRepository;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    StudentTermLoadRepository studentTermLoadRepository;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @MockBean
+    CourseClient courseClient;
+
+    @BeforeEach
+    void setupDB() {
+        clearDB();
+
+        // every student's first choice is one of the popular courses, the other four are spread over the rest
+        StepVerifier.create(databaseClient.sql("INSERT INTO course_preferences (enrollmentYear, semester, studentId, studentFirstName, " +
+                                "studentLastName, courseId, preferenceRank) " +
+                                "SELECT 2030, 'FALL', 'student' || s.X, 'first', 'last', " +
+                                "CASE WHEN r.X = 1 THEN 'course' || MOD(s.X * 7919, :popular) " +
+                                "ELSE 'course' || (:popular + MOD(s.X * 7919 + r.X * 104729, :courses - :popular)) END, r.X " +
+                                "FROM SYSTEM_RANGE(1, :students) s, SYSTEM_RANGE(1, :choices) r")
+                        .bind("popular", POPULAR_COURSES)
+                        .bind("courses", COURSES)
+                        .bind("students", STUDENTS)
+                        .bind("choices", CHOICES)
+                        .fetch()
+                        .rowsUpdated())
+                .expectNext((long) STUDENTS * CHOICES)
+                .verifyComplete();
+
+        when(courseClient.getCourseByCourseId(anyString())).thenAnswer(invocation -> {
+            String courseId = invocation.getArgument(0);
+            int course = Integer.parseInt(courseId.substring("course".length()));
+            LocalTime start = LocalTime.of(8 + course / 5 % 10, 0);
+            return Mono.just(CourseResponseDTO.builder()
+                    .courseId(courseId)
+                    .courseNumber("420-" + course)
+                    .courseName("Course " + course)
+                    .numCredits(3.0)
+                    .capacity(CAPACITY)
+                    .seatsTaken(0)
+                    .meetingSlots(List.of(new MeetingSlot(DayOfWeek.of(course % 5 + 1), start, start.plusMinutes(90))))
+                    .build());
+        });
+        when(courseClient.reserveSeats(anyString(), anyInt())).thenReturn(Mono.just(new CourseResponseDTO()));
+    }
+
+    @AfterEach
+    void clearDB() {
+        StepVerifier.create(coursePreferenceRepository.deleteAll()
+                        .then(enrollmentRepository.deleteAll())
+                        .then(studentTermLoadRepository.deleteAll()))
+                .verifyComplete();
+    }
+
+    @Test
+    void run_fortyThousandStudentsTwoThousandCourses_shouldAllocateWellUnderAMinute() {
+        //act
+        long start = System.nanoTime();
+        LotteryResultResponseDTO result = enrollmentLottery.run(2030, FALL).block(Duration.ofMinutes(2));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Lottery of {} students over {} courses created {} enrollments in {} ms",
+                STUDENTS, COURSES, result.getEnrollmentsCreated(), elapsed.toMillis());
+
+        //assert
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(30)) < 0, "took " + elapsed);
+        assertEquals(STUDENTS, result.getStudents());
+        assertEquals(STUDENTS * CHOICES, result.getPreferences());
+        assertEquals(0, result.getEnrollmentsFailed());
+        assertTrue(result.getEnrollmentsCreated() > STUDENTS);
+
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext((long) result.getEnrollmentsCreated())
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("SELECT MAX(taken) FROM (SELECT COUNT(*) AS taken FROM enrollments GROUP BY courseId) t")
+                        .map(row -> row.get(0, Long.class))
+                        .one())
+                .assertNext(mostTaken -> assertTrue(mostTaken <= CAPACITY))
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("SELECT MAX(taken) FROM (SELECT COUNT(*) AS taken FROM enrollments GROUP BY studentId) t")
+                        .map(row -> row.get(0, Long.class))
+                        .one())
+                .assertNext(mostCourses -> assertTrue(mostCourses <= CHOICES))
+                .verifyComplete();
+    }
+
+}
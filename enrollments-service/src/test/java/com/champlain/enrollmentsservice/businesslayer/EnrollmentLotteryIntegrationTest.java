@@ -0,0 +1,128 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreference;
+import com.champlain.enrollmentsservice.dataaccesslayer.CoursePreferenceRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoadRepository;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.MeetingSlot;
+import com.champlain.enrollmentsservice.utils.MeetingSlots;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class EnrollmentLotteryIntegrationTest {
+
+    private static final List<MeetingSlot> MONDAY_MORNING =
+            List.of(new MeetingSlot(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(10, 30)));
+
+    @Autowired
+    EnrollmentLottery enrollmentLottery;
+
+    @Autowired
+    StudentSchedules studentSchedules;
+
+    @Autowired
+    CoursePreferenceRepository coursePreferenceRepository;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    StudentTermLoadRepository studentTermLoadRepository;
+
+    @MockBean
+    CourseClient courseClient;
+
+    @BeforeEach
+    void setupDB() {
+        clearDB();
+        StepVerifier.create(coursePreferenceRepository.saveAll(List.of(preference("student1", "course1"), preference("student2", "course1"))))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        when(courseClient.getCourseByCourseId("course1")).thenReturn(Mono.just(CourseResponseDTO.builder()
+                .courseId("course1")
+                .courseNumber("420-N45-LA")
+                .courseName("Web Services")
+                .numCredits(2.0)
+                .capacity(10)
+                .seatsTaken(0)
+                .meetingSlots(MONDAY_MORNING)
+                .build()));
+        when(courseClient.reserveSeats(anyString(), anyInt())).thenReturn(Mono.just(new CourseResponseDTO()));
+        when(courseClient.releaseSeats(anyString(), anyInt())).thenReturn(Mono.just(new CourseResponseDTO()));
+    }
+
+    @AfterEach
+    void clearDB() {
+        StepVerifier.create(coursePreferenceRepository.deleteAll()
+                        .then(enrollmentRepository.deleteAll())
+                        .then(studentTermLoadRepository.deleteAll()))
+                .verifyComplete();
+        studentSchedules.invalidate("student1");
+        studentSchedules.invalidate("student2");
+    }
+
+    @Test
+    void run_winnerBookedAnotherCourseAtTheSameTimeDuringTheDraw_shouldNotWriteTheClashingRow() {
+        //arrange
+        // an enrollment of another course that is booked but not committed yet, so the draw's snapshot misses it
+        StepVerifier.create(studentSchedules.book(Enrollment.builder()
+                        .enrollmentId(UUID.randomUUID().toString())
+                        .enrollmentYear(2030)
+                        .semester(FALL)
+                        .studentId("student1")
+                        .courseId("course2")
+                        .meetingSlots(MeetingSlots.format(MONDAY_MORNING))
+                        .build()))
+                .verifyComplete();
+
+        //act & assert
+        StepVerifier.create(enrollmentLottery.run(2030, FALL))
+                .consumeNextWith(result -> {
+                    assertEquals(1, result.getEnrollmentsCreated());
+                    assertEquals(1, result.getEnrollmentsFailed());
+                })
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId("student1"))
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId("student2"))
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(courseClient).releaseSeats("course1", 1);
+    }
+
+    private static CoursePreference preference(String studentId, String courseId) {
+        return CoursePreference.builder()
+                .enrollmentYear(2030)
+                .semester(FALL)
+                .studentId(studentId)
+                .studentFirstName("first")
+                .studentLastName("last")
+                .courseId(courseId)
+                .preferenceRank(1)
+                .build();
+    }
+
+}
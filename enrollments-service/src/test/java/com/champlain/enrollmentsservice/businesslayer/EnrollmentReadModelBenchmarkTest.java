@@ -0,0 +1,74 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.WINTER;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against 500k rows by default; pass -Dbenchmark.read-model.rows=2000000 for the full-size dataset.
+@Slf4j
+@Tag("benchmark")
+class EnrollmentReadModelBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.read-model.rows", 500_000);
+    private static final int STUDENTS = ROWS / 5;
+    private static final int COURSES = 2_000;
+    private static final int LOOKUPS = 100_000;
+    private static final long MAX_BYTES_PER_ROW = 300;
+
+    @Test
+    void upsert_manyRows_shouldStayCompactAndAnswerInMicroseconds() {
+        //arrange
+        long heapBefore = usedHeapAfterGc();
+        EnrollmentRows enrollmentRows = new EnrollmentRows();
+        for (int id = 1; id <= ROWS; id++) {
+            int student = id % STUDENTS;
+            int course = (id * 7919) % COURSES;
+            enrollmentRows.upsert(Enrollment.builder()
+                    .id(id)
+                    .enrollmentId(UUID.randomUUID().toString())
+                    .enrollmentYear(2020 + id % 5)
+                    .semester(id % 2 == 0 ? FALL : WINTER)
+                    .studentId("student" + student)
+                    .studentFirstName("first" + student)
+                    .studentLastName("last" + student)
+                    .courseId("course" + course)
+                    .courseNumber("420-" + course)
+                    .courseName("Course " + course)
+                    .numCredits(3.0)
+                    .meetingSlots("MONDAY 08:30-11:30")
+                    .build());
+        }
+        long bytesPerRow = (usedHeapAfterGc() - heapBefore) / ROWS;
+
+        //act
+        long start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            found += enrollmentRows.select(EnrollmentFilter.builder().studentId("student" + (i * 31) % STUDENTS).build(),
+                    new EnrollmentPage()).length;
+        }
+        long nanosPerLookup = (System.nanoTime() - start) / LOOKUPS;
+
+        //assert
+        log.info("{} enrollments take about {} bytes each, a student listing takes {} ns", ROWS, bytesPerRow, nanosPerLookup);
+        assertEquals((long) LOOKUPS * 5, found);
+        assertTrue(bytesPerRow < MAX_BYTES_PER_ROW, bytesPerRow + " bytes per row");
+        assertTrue(nanosPerLookup < 50_000, nanosPerLookup + " ns per lookup");
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.presentationlayer.ReadModelConsistencyResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.WINTER;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.enrollments.read-model.enabled=true")
+class EnrollmentReadModelIntegrationTest {
+
+    @Autowired
+    EnrollmentReadModel enrollmentReadModel;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    EnrollmentChanges enrollmentChanges;
+
+    @BeforeEach
+    void setupDB() {
+        // the load started at startup has to finish before the next one can start
+        StepVerifier.create(Mono.fromCallable(enrollmentReadModel::isServing)
+                        .filter(serving -> serving)
+                        .repeatWhenEmpty(repeats -> repeats.delayElements(Duration.ofMillis(10))))
+                .expectNext(true)
+                .verifyComplete();
+
+        Flux<Enrollment> enrollments = Flux.range(0, 40)
+                .map(i -> Enrollment.builder()
+                        .enrollmentId(UUID.randomUUID().toString())
+                        .enrollmentYear(2023 + i % 2)
+                        .semester(i % 3 == 0 ? WINTER : FALL)
+                        .studentId("student" + i % 7)
+                        .studentFirstName("first")
+                        .studentLastName("last")
+                        .courseId("course" + i % 5)
+                        .courseNumber("420-N45-LA")
+                        .courseName("Web Services")
+                        .numCredits(2.0)
+                        .build());
+        StepVerifier.create(enrollmentRepository.deleteAll().thenMany(enrollmentRepository.saveAll(enrollments)).then(enrollmentReadModel.load()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllEnrollmentsByFilter_shouldAnswerLikeTheRepository() {
+        List<EnrollmentFilter> filters = List.of(new EnrollmentFilter(),
+                EnrollmentFilter.builder().studentId("student3").build(),
+                EnrollmentFilter.builder().courseId("course2").enrollmentYear(2024).build(),
+                EnrollmentFilter.builder().enrollmentYear(2023).semester(WINTER).build(),
+                EnrollmentFilter.builder().studentId("nobody").build());
+        EnrollmentPage page = EnrollmentPage.builder().limit(4).descending(true).build();
+
+        for (EnrollmentFilter filter : filters) {
+            assertEquals(enrollmentRepository.findAllEnrollmentsByFilter(filter, new EnrollmentPage()).collectList().block(),
+                    enrollmentReadModel.findAllEnrollmentsByFilter(filter, new EnrollmentPage()).collectList().block());
+            assertEquals(enrollmentRepository.findAllEnrollmentsByFilter(filter, page).collectList().block(),
+                    enrollmentReadModel.findAllEnrollmentsByFilter(filter, page).collectList().block());
+            assertEquals(enrollmentRepository.countEnrollmentsByFilter(filter).block(),
+                    enrollmentReadModel.countEnrollmentsByFilter(filter).block());
+        }
+    }
+
+    @Test
+    void enrollmentChanged_reportedUpdate_shouldKeepTheModelConsistent() {
+        //arrange
+        Enrollment enrollment = enrollmentRepository.findAllEnrollmentsByFilter(EnrollmentFilter.builder().studentId("student1").build(),
+                new EnrollmentPage()).blockFirst();
+        Enrollment previous = Enrollment.builder().id(enrollment.getId()).courseId(enrollment.getCourseId()).build();
+
+        //act
+        enrollment.setCourseId("course9");
+        StepVerifier.create(enrollmentRepository.save(enrollment)
+                        .doOnNext(updated -> enrollmentChanges.updated(previous, updated)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        //assert
+        StepVerifier.create(enrollmentReadModel.findEnrollmentByEnrollmentId(enrollment.getEnrollmentId()))
+                .expectNext(enrollment)
+                .verifyComplete();
+        StepVerifier.create(enrollmentReadModel.check())
+                .expectNextMatches(ReadModelConsistencyResponseDTO::isConsistent)
+                .verifyComplete();
+    }
+
+    @Test
+    void check_rowWrittenAroundTheModel_shouldReportDriftAndReload() {
+        //arrange
+        Enrollment enrollment = enrollmentRepository.findAllEnrollmentsByFilter(new EnrollmentFilter(), new EnrollmentPage()).blockFirst();
+        StepVerifier.create(enrollmentRepository.delete(enrollment)).verifyComplete();
+
+        //act
+        StepVerifier.create(enrollmentReadModel.check())
+                .consumeNextWith(result -> {
+                    assertFalse(result.isConsistent());
+                    assertEquals(39, result.getTableRows());
+                    assertEquals(40, result.getModelRows());
+                    assertEquals(1, result.getExtraRows());
+                })
+                .verifyComplete();
+
+        //assert
+        StepVerifier.create(Mono.defer(enrollmentReadModel::check)
+                        .filter(ReadModelConsistencyResponseDTO::isConsistent)
+                        .repeatWhenEmpty(repeats -> repeats.delayElements(Duration.ofMillis(10))))
+                .expectNextMatches(result -> result.getModelRows() == 39)
+                .verifyComplete();
+    }
+
+}
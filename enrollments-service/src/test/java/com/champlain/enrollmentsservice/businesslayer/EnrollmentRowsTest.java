@@ -0,0 +1,118 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentFilter;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentPage;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.WINTER;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnrollmentRowsTest {
+
+    private EnrollmentRows enrollmentRows;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRows = new EnrollmentRows();
+        for (int id = 1; id <= 20; id++) {
+            enrollmentRows.upsert(buildEnrollment(id, "student" + (id % 4), "course" + (id % 5), 2020 + id % 2, id % 3 == 0 ? WINTER : FALL));
+        }
+    }
+
+    @Test
+    void select_studentAndYear_shouldReturnMatchingIdsInOrder() {
+        //act
+        int[] ids = enrollmentRows.select(EnrollmentFilter.builder().studentId("student1").enrollmentYear(2021).build(), new EnrollmentPage());
+
+        //assert
+        assertArrayEquals(new int[]{1, 5, 9, 13, 17}, ids);
+    }
+
+    @Test
+    void select_afterAndLimitDescending_shouldContinueBelowTheCursor() {
+        //act
+        int[] ids = enrollmentRows.select(EnrollmentFilter.builder().semester(FALL).build(),
+                EnrollmentPage.builder().after(11).limit(3).descending(true).build());
+
+        //assert
+        assertArrayEquals(new int[]{10, 8, 7}, ids);
+    }
+
+    @Test
+    void select_unknownCourse_shouldReturnNothing() {
+        assertEquals(0, enrollmentRows.select(EnrollmentFilter.builder().courseId("course99").build(), new EnrollmentPage()).length);
+        assertEquals(0, enrollmentRows.count(EnrollmentFilter.builder().courseId("course99").build()));
+    }
+
+    @Test
+    void upsert_changedCourse_shouldMoveTheRowBetweenIndexes() {
+        //arrange
+        Enrollment moved = enrollmentRows.get(3);
+        moved.setCourseId("course4");
+
+        //act
+        enrollmentRows.upsert(moved);
+
+        //assert
+        assertArrayEquals(new int[]{8, 13, 18}, enrollmentRows.select(EnrollmentFilter.builder().courseId("course3").build(), new EnrollmentPage()));
+        assertArrayEquals(new int[]{3, 4, 9, 14, 19}, enrollmentRows.select(EnrollmentFilter.builder().courseId("course4").build(), new EnrollmentPage()));
+        assertEquals(20, enrollmentRows.size());
+    }
+
+    @Test
+    void remove_shouldDropTheRowFromEveryIndexAndReuseItsSlot() {
+        //arrange
+        String enrollmentId = enrollmentRows.get(7).getEnrollmentId();
+
+        //act
+        assertTrue(enrollmentRows.remove(7));
+        enrollmentRows.upsert(buildEnrollment(21, "student1", "course1", 2021, FALL));
+
+        //assert
+        assertNull(enrollmentRows.get(7));
+        assertNull(enrollmentRows.getByEnrollmentId(enrollmentId));
+        assertEquals(4, enrollmentRows.count(EnrollmentFilter.builder().studentId("student3").build()));
+        assertEquals(21, enrollmentRows.get(21).getId());
+        assertEquals(20, enrollmentRows.size());
+    }
+
+    @Test
+    void get_shouldGiveBackEveryColumnAsItWasWritten() {
+        //arrange
+        Enrollment enrollment = buildEnrollment(40, "student40", null, null, null);
+        enrollment.setEnrollmentId("not-a-uuid");
+        enrollment.setNumCredits(null);
+
+        //act
+        enrollmentRows.upsert(enrollment);
+
+        //assert
+        assertEquals(enrollment, enrollmentRows.get(40));
+        assertEquals(enrollment, enrollmentRows.getByEnrollmentId("not-a-uuid"));
+        assertEquals(enrollmentRows.get(12), enrollmentRows.getByEnrollmentId(enrollmentRows.get(12).getEnrollmentId()));
+    }
+
+    static Enrollment buildEnrollment(int id, String studentId, String courseId, Integer enrollmentYear, Semester semester) {
+        return Enrollment.builder()
+                .id(id)
+                .enrollmentId(UUID.randomUUID().toString())
+                .enrollmentYear(enrollmentYear)
+                .semester(semester)
+                .studentId(studentId)
+                .studentFirstName("first" + studentId)
+                .studentLastName("last")
+                .courseId(courseId)
+                .courseNumber("420-" + courseId)
+                .courseName("Course " + courseId)
+                .numCredits(3.0)
+                .meetingSlots("MONDAY 08:30-11:30")
+                .build();
+    }
+
+}
@@ -2,24 +2,46 @@ package com.champlain.enrollmentsservice.businesslayer;
 
 import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
 import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
+import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.PrerequisiteCheckResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.StudentClient;
+import com.champlain.enrollmentsservice.domainclientlayer.StudentResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentRequestDTO;
 import com.champlain.enrollmentsservice.presentationlayer.EnrollmentResponseDTO;
+import com.champlain.enrollmentsservice.utils.EnrollmentRequestValidator;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
 import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+import com.champlain.enrollmentsservice.utils.exceptions.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
 import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.SPRING;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -29,9 +51,21 @@ class EnrollmentServiceUnitTest {
     @Autowired
     EnrollmentService enrollmentService;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    EnrollmentListingCache enrollmentListingCache;
+
     @MockBean
     private EnrollmentRepository enrollmentRepository;
 
+    @MockBean
+    private StudentClient studentClient;
+
+    @MockBean
+    private CourseClient courseClient;
+
 
     String uuidStudent = UUID.randomUUID().toString();
     String uuidCourse = UUID.randomUUID().toString();
@@ -51,14 +85,49 @@ class EnrollmentServiceUnitTest {
             .courseNumber("420-NA")
             .build();
 
+    StudentResponseDTO studentResponseDTO = StudentResponseDTO.builder()
+            .studentId(uuidStudent)
+            .firstName("studentFirstName")
+            .lastName("studentLastName")
+            .program("History")
+            .build();
+
+    CourseResponseDTO courseResponseDTO = CourseResponseDTO.builder()
+            .courseId(uuidCourse)
+            .courseName("CourseName")
+            .courseNumber("420-NA")
+            .department("Computer Science")
+            .numCredits(2.0)
+            .numHours(60)
+            .build();
+
+    EnrollmentRequestDTO enrollmentRequestDTO = EnrollmentRequestDTO.builder()
+            .enrollmentYear(2023)
+            .semester(SPRING)
+            .studentId(uuidStudent)
+            .courseId(uuidCourse)
+            .build();
+
+
+    @BeforeEach
+    void stubSeatReservations() {
+        when(courseClient.reserveSeats(anyString(), anyInt()))
+                .thenReturn(Mono.just(courseResponseDTO));
+        when(courseClient.releaseSeats(anyString(), anyInt()))
+                .thenReturn(Mono.just(courseResponseDTO));
+    }
+
+    // the repository is a mock whose answers change from test to test
+    @BeforeEach
+    void clearListingCache() {
+        enrollmentListingCache.clear();
+    }
 
     @Test
     void getAllEnrollments_shouldSucceed() {
 
         //arrange
-        when(enrollmentRepository.findAll()).thenReturn(Flux.just(enrollment));
-
-        when(enrollmentRepository.findAllEnrollmentsByStudentId(anyString())).thenReturn(Flux.just(enrollment));
+        when(enrollmentRepository.findAllEnrollmentsByFilter(any(), any())).thenReturn(Flux.just(enrollment));
 
         //act
         Map<String, String> queryParameters = new HashMap<>();
@@ -119,14 +188,10 @@ class EnrollmentServiceUnitTest {
         //arrange
         String enrollmentId = uuidEnrollment;
 
-        when(enrollmentRepository.delete(any(Enrollment.class)))
-                .thenReturn(Mono.empty());
-
         when(enrollmentRepository.findEnrollmentByEnrollmentId(enrollmentId))
-                .thenReturn(Mono.just(new Enrollment()));
-
-        when(enrollmentRepository.delete(any(Enrollment.class)))
-                .thenReturn(Mono.empty());
+                .thenReturn(Mono.just(enrollment));
+        when(enrollmentRepository.deleteEnrollmentByEnrollmentId(enrollmentId))
+                .thenReturn(Mono.just(1));
 
         //act
         Mono<Void> enrollmentDelete = enrollmentService.deleteEnrollmentById(enrollmentId);
@@ -135,6 +200,21 @@ class EnrollmentServiceUnitTest {
         StepVerifier
                 .create(enrollmentDelete)
                 .verifyComplete();
+        verify(courseClient).releaseSeats(uuidCourse, 1);
+    }
+
+    @Test
+    void deleteEnrollmentById_unknownId_shouldThrowNotFoundException() {
+        //arrange
+        when(enrollmentRepository.findEnrollmentByEnrollmentId(uuidEnrollment))
+                .thenReturn(Mono.empty());
+
+        //act and assert
+        StepVerifier
+                .create(enrollmentService.deleteEnrollmentById(uuidEnrollment))
+                .expectErrorMatches(exception -> exception instanceof NotFoundException &&
+                        exception.getMessage().equals("No enrollment with this enrollmentId was found: " + uuidEnrollment))
+                .verify();
     }
 
     @Test
@@ -152,4 +232,275 @@ class EnrollmentServiceUnitTest {
 
 
 
-}
\ No newline at end of file
+    @Test
+    void getAllEnrollments_sameStudentTwice_shouldQueryTheDatabaseOnce() {
+        //arrange
+        when(enrollmentRepository.findAllEnrollmentsByFilter(any(), any())).thenReturn(Flux.just(enrollment));
+        Counter hits = meterRegistry.get("enrollments.listing.cache.gets").tag("result", "hit").counter();
+        double hitsBefore = hits.count();
+
+        //act
+        StepVerifier.create(enrollmentService.getAllEnrollments(Map.of("studentId", uuidStudent, "enrollmentYear", "2023")))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(enrollmentService.getAllEnrollments(Map.of("enrollmentYear", "2023", "studentId", uuidStudent)))
+                .expectNextMatches(found -> found.getEnrollmentId().equals(uuidEnrollment))
+                .verifyComplete();
+
+        //assert
+        verify(enrollmentRepository, times(1)).findAllEnrollmentsByFilter(any(), any());
+        assertEquals(hitsBefore + 1, hits.count());
+    }
+
+    @Test
+    void getAllEnrollments_afterAddEnrollment_shouldOnlyQueryTheAffectedStudentAgain() {
+        //arrange
+        String otherStudent = UUID.randomUUID().toString();
+        when(enrollmentRepository.findAllEnrollmentsByFilter(any(), any())).thenReturn(Flux.just(enrollment));
+        when(studentClient.getStudentByStudentId(uuidStudent)).thenReturn(Mono.just(studentResponseDTO));
+        when(courseClient.getCourseByCourseId(uuidCourse)).thenReturn(Mono.just(courseResponseDTO));
+        when(enrollmentRepository.save(any(Enrollment.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        StepVerifier.create(enrollmentService.getAllEnrollments(Map.of("studentId", uuidStudent))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(enrollmentService.getAllEnrollments(Map.of("studentId", otherStudent))).expectNextCount(1).verifyComplete();
+
+        //act
+        StepVerifier.create(enrollmentService.addEnrollment(Mono.just(enrollmentRequestDTO))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(enrollmentService.getAllEnrollments(Map.of("studentId", uuidStudent))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(enrollmentService.getAllEnrollments(Map.of("studentId", otherStudent))).expectNextCount(1).verifyComplete();
+
+        //assert
+        verify(enrollmentRepository, times(2)).findAllEnrollmentsByFilter(argThat(filter -> uuidStudent.equals(filter.getStudentId())), any());
+        verify(enrollmentRepository, times(1)).findAllEnrollmentsByFilter(argThat(filter -> otherStudent.equals(filter.getStudentId())), any());
+    }
+
+    @Test
+    void addEnrollment_validRequest_shouldLookUpStudentAndCourseConcurrently() {
+        //arrange
+        // the delays are built on each call so that they run on the virtual clock of the verifier
+        when(studentClient.getStudentByStudentId(uuidStudent))
+                .thenAnswer(invocation -> Mono.just(studentResponseDTO).delayElement(Duration.ofMillis(300)));
+        when(courseClient.getCourseByCourseId(uuidCourse))
+                .thenAnswer(invocation -> Mono.just(courseResponseDTO).delayElement(Duration.ofMillis(300)));
+        when(enrollmentRepository.save(any(Enrollment.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        //act and assert
+        // both lookups take 300ms, so the enrollment is only saved 300ms in if they overlap
+        StepVerifier
+                .withVirtualTime(() -> enrollmentService.addEnrollment(Mono.just(enrollmentRequestDTO)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(299))
+                .thenAwait(Duration.ofMillis(1))
+                .consumeNextWith(addedEnrollment -> {
+                    assertNotNull(addedEnrollment.getEnrollmentId());
+                    assertEquals(studentResponseDTO.getFirstName(), addedEnrollment.getStudentFirstName());
+                    assertEquals(courseResponseDTO.getCourseName(), addedEnrollment.getCourseName());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void addEnrollment_studentNotFound_shouldCancelCourseLookup() {
+        //arrange
+        AtomicBoolean courseLookupCancelled = new AtomicBoolean(false);
+        when(studentClient.getStudentByStudentId(uuidStudent))
+                .thenReturn(Mono.error(new NotFoundException("StudentId not found: " + uuidStudent)));
+        when(courseClient.getCourseByCourseId(uuidCourse))
+                .thenReturn(Mono.<CourseResponseDTO>never().doOnCancel(() -> courseLookupCancelled.set(true)));
+
+        //act and assert
+        StepVerifier
+                .create(enrollmentService.addEnrollment(Mono.just(enrollmentRequestDTO)))
+                .expectErrorMatches(exception -> exception instanceof NotFoundException &&
+                        exception.getMessage().equals("StudentId not found: " + uuidStudent))
+                .verify(Duration.ofSeconds(1));
+        assertTrue(courseLookupCancelled.get());
+    }
+
+    @Test
+    void updateEnrollment_missingSemester_shouldThrowInvalidInputException() {
+        //arrange
+        EnrollmentRequestDTO updateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2024)
+                .studentId(uuidStudent)
+                .courseId(uuidCourse)
+                .build();
+
+        //act and assert
+        StepVerifier
+                .create(enrollmentService.updateEnrollment(Mono.just(updateRequestDTO), uuidEnrollment))
+                .expectErrorMatches(exception -> exception instanceof InvalidInputException &&
+                        exception.getMessage().equals(EnrollmentRequestValidator.MISSING_FIELDS_MESSAGE))
+                .verify();
+        verify(enrollmentRepository, never()).updateEnrollmentByEnrollmentId(any(Enrollment.class));
+    }
+
+    @Test
+    void updateEnrollment_sameStudentCourseAndTerm_shouldSkipRemoteLookups() {
+        //arrange
+        EnrollmentRequestDTO updateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023)
+                .semester(SPRING)
+                .studentId(uuidStudent)
+                .courseId(uuidCourse)
+                .build();
+        double skippedBefore = meterRegistry.get("enrollments.update.lookups.skipped").counters().stream()
+                .mapToDouble(Counter::count).sum();
+
+        when(enrollmentRepository.findEnrollmentByEnrollmentId(uuidEnrollment))
+                .thenReturn(Mono.just(enrollment));
+        when(enrollmentRepository.updateEnrollmentByEnrollmentId(any(Enrollment.class)))
+                .thenReturn(Mono.just(1));
+
+        //act
+        Mono<EnrollmentResponseDTO> enrollmentResponseDTOMono = enrollmentService
+                .updateEnrollment(Mono.just(updateRequestDTO), uuidEnrollment);
+
+        //assert
+        StepVerifier
+                .create(enrollmentResponseDTOMono)
+                .consumeNextWith(updatedEnrollment -> {
+                    assertEquals(2023, updatedEnrollment.getEnrollmentYear());
+                    assertEquals(SPRING, updatedEnrollment.getSemester());
+                    assertEquals(enrollment.getStudentFirstName(), updatedEnrollment.getStudentFirstName());
+                    assertEquals(enrollment.getStudentLastName(), updatedEnrollment.getStudentLastName());
+                    assertEquals(enrollment.getCourseNumber(), updatedEnrollment.getCourseNumber());
+                    assertEquals(enrollment.getCourseName(), updatedEnrollment.getCourseName());
+                })
+                .verifyComplete();
+        verify(studentClient, never()).getStudentByStudentId(anyString());
+        verify(courseClient, never()).getCourseByCourseId(anyString());
+        assertEquals(skippedBefore + 2, meterRegistry.get("enrollments.update.lookups.skipped").counters().stream()
+                .mapToDouble(Counter::count).sum());
+    }
+
+    @Test
+    void updateEnrollment_duplicateOfAnotherEnrollment_shouldThrowConflictException() {
+        //arrange
+        EnrollmentRequestDTO updateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023)
+                .semester(SPRING)
+                .studentId(uuidStudent)
+                .courseId(uuidCourse)
+                .build();
+
+        when(enrollmentRepository.findEnrollmentByEnrollmentId(uuidEnrollment))
+                .thenReturn(Mono.just(enrollment));
+        when(enrollmentRepository.updateEnrollmentByEnrollmentId(any(Enrollment.class)))
+                .thenReturn(Mono.error(new DataIntegrityViolationException(
+                        "duplicate key value violates unique constraint \"uk_enrollments_student_course_term\"")));
+
+        //act and assert
+        StepVerifier
+                .create(enrollmentService.updateEnrollment(Mono.just(updateRequestDTO), uuidEnrollment))
+                .expectErrorMatches(exception -> exception instanceof ConflictException &&
+                        exception.getMessage().equals("Student is already enrolled in this course for this term"))
+                .verify();
+    }
+
+    @Test
+    void updateEnrollment_otherIntegrityViolation_shouldNotBeReportedAsADuplicate() {
+        //arrange
+        EnrollmentRequestDTO updateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023)
+                .semester(SPRING)
+                .studentId(uuidStudent)
+                .courseId(uuidCourse)
+                .build();
+
+        when(enrollmentRepository.findEnrollmentByEnrollmentId(uuidEnrollment))
+                .thenReturn(Mono.just(enrollment));
+        when(enrollmentRepository.updateEnrollmentByEnrollmentId(any(Enrollment.class)))
+                .thenReturn(Mono.error(new DataIntegrityViolationException(
+                        "value too long for type character varying(50)")));
+
+        //act and assert
+        StepVerifier
+                .create(enrollmentService.updateEnrollment(Mono.just(updateRequestDTO), uuidEnrollment))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    void updateEnrollment_sameCourseInAnotherTerm_shouldCheckPrerequisitesAgain() {
+        //arrange
+        String prerequisiteCourseId = UUID.randomUUID().toString();
+        CourseResponseDTO courseWithPrerequisite = CourseResponseDTO.builder()
+                .courseId(uuidCourse)
+                .courseName("CourseName")
+                .courseNumber("420-NA")
+                .prerequisiteCourseIds(List.of(prerequisiteCourseId))
+                .build();
+        EnrollmentRequestDTO updateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2022)
+                .semester(FALL)
+                .studentId(uuidStudent)
+                .courseId(uuidCourse)
+                .build();
+
+        when(enrollmentRepository.findEnrollmentByEnrollmentId(uuidEnrollment))
+                .thenReturn(Mono.just(enrollment));
+        when(courseClient.getCourseByCourseId(uuidCourse))
+                .thenReturn(Mono.just(courseWithPrerequisite));
+        when(enrollmentRepository.findAllEnrollmentsByStudentId(uuidStudent))
+                .thenReturn(Flux.just(enrollment));
+        when(courseClient.checkPrerequisites(uuidCourse, List.of()))
+                .thenReturn(Mono.just(PrerequisiteCheckResponseDTO.builder()
+                        .courseId(uuidCourse)
+                        .satisfied(false)
+                        .missingCourseIds(List.of(prerequisiteCourseId))
+                        .build()));
+
+        //act and assert
+        StepVerifier
+                .create(enrollmentService.updateEnrollment(Mono.just(updateRequestDTO), uuidEnrollment))
+                .expectErrorMatches(exception -> exception instanceof ConflictException &&
+                        exception.getMessage().equals("Student has not completed the prerequisites of course "
+                                + uuidCourse + ": " + List.of(prerequisiteCourseId)))
+                .verify();
+        verify(studentClient, never()).getStudentByStudentId(anyString());
+        verify(enrollmentRepository, never()).updateEnrollmentByEnrollmentId(any(Enrollment.class));
+    }
+
+    @Test
+    void updateEnrollment_changedCourse_shouldOnlyLookUpCourse() {
+        //arrange
+        CourseResponseDTO otherCourseResponseDTO = CourseResponseDTO.builder()
+                .courseId(UUID.randomUUID().toString())
+                .courseName("OtherCourseName")
+                .courseNumber("420-NB")
+                .build();
+        EnrollmentRequestDTO updateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023)
+                .semester(SPRING)
+                .studentId(uuidStudent)
+                .courseId(otherCourseResponseDTO.getCourseId())
+                .build();
+
+        when(enrollmentRepository.findEnrollmentByEnrollmentId(uuidEnrollment))
+                .thenReturn(Mono.just(enrollment));
+        when(courseClient.getCourseByCourseId(otherCourseResponseDTO.getCourseId()))
+                .thenReturn(Mono.just(otherCourseResponseDTO));
+        when(enrollmentRepository.updateEnrollmentByEnrollmentId(any(Enrollment.class)))
+                .thenReturn(Mono.just(1));
+
+        //act
+        Mono<EnrollmentResponseDTO> enrollmentResponseDTOMono = enrollmentService
+                .updateEnrollment(Mono.just(updateRequestDTO), uuidEnrollment);
+
+        //assert
+        StepVerifier
+                .create(enrollmentResponseDTOMono)
+                .consumeNextWith(updatedEnrollment -> {
+                    assertEquals(otherCourseResponseDTO.getCourseName(), updatedEnrollment.getCourseName());
+                    assertEquals(enrollment.getStudentFirstName(), updatedEnrollment.getStudentFirstName());
+                })
+                .verifyComplete();
+        verify(studentClient, never()).getStudentByStudentId(anyString());
+        verify(courseClient).reserveSeats(otherCourseResponseDTO.getCourseId(), 1);
+        verify(courseClient).releaseSeats(uuidCourse, 1);
+    }
+
+}
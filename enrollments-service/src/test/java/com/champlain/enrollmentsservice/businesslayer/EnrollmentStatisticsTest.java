@@ -0,0 +1,199 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentStatsGroupResponseDTO;
+import com.champlain.enrollmentsservice.presentationlayer.EnrollmentStatsResponseDTO;
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.champlain.enrollmentsservice.businesslayer.EnrollmentStatsDimension.COURSE;
+import static com.champlain.enrollmentsservice.businesslayer.EnrollmentStatsDimension.DEPARTMENT;
+import static com.champlain.enrollmentsservice.businesslayer.EnrollmentStatsDimension.SEMESTER;
+import static com.champlain.enrollmentsservice.businesslayer.EnrollmentStatsDimension.YEAR;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.SPRING;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.WINTER;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EnrollmentStatisticsTest {
+
+    // enough rows for the scan to be split over several fork-join tasks
+    private static final int ROWS = 150_000;
+
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+
+    private final List<Enrollment> enrollments = IntStream.rangeClosed(1, ROWS)
+            .mapToObj(id -> buildEnrollment(id, "course" + id % 40, (id % 40 % 3 == 0 ? "420-" : "201-") + "C" + id % 40,
+                    2020 + id % 4, Semester.values()[id % Semester.values().length]))
+            .toList();
+
+    private EnrollmentStatistics enrollmentStatistics;
+
+    @BeforeEach
+    void setUp() {
+        when(enrollmentRepository.findAllEnrollmentsByFilter(any(), any())).thenReturn(Flux.fromIterable(enrollments));
+        enrollmentStatistics = new EnrollmentStatistics(enrollmentRepository, 4);
+    }
+
+    @Test
+    void aggregate_beforeLoad_shouldThrowServiceUnavailableException() {
+        assertThrows(ServiceUnavailableException.class,
+                () -> enrollmentStatistics.aggregate(query(List.of(COURSE), null, null, 10)));
+    }
+
+    @Test
+    void aggregate_courseAndSemester_shouldCountLikeAGroupBy() {
+        //arrange
+        enrollmentStatistics.load().block();
+
+        //act
+        EnrollmentStatsResponseDTO stats = enrollmentStatistics.aggregate(query(List.of(COURSE, SEMESTER), null, null, 1000));
+
+        //assert
+        Map<String, Long> expected = enrollments.stream()
+                .collect(Collectors.groupingBy(e -> e.getCourseId() + "/" + e.getSemester(), Collectors.counting()));
+        assertEquals(expected, stats.getGroups().stream()
+                .collect(Collectors.toMap(group -> group.getCourseId() + "/" + group.getSemester(), EnrollmentStatsGroupResponseDTO::getEnrollments)));
+        assertEquals(ROWS, stats.getEnrollments());
+        assertEquals(List.of("course", "semester"), stats.getGroupBy());
+        assertEquals("201-C1", stats.getGroups().stream().filter(group -> group.getCourseId().equals("course1")).findFirst().get().getCourseNumber());
+    }
+
+    @Test
+    void aggregate_departmentFilteredOnYearWithTop_shouldReturnTheLargestGroupsFirst() {
+        //arrange
+        enrollmentStatistics.load().block();
+
+        //act
+        EnrollmentStatsResponseDTO stats = enrollmentStatistics.aggregate(query(List.of(DEPARTMENT), 2021, SPRING, 1));
+
+        //assert
+        Map<String, Long> expected = enrollments.stream()
+                .filter(e -> e.getEnrollmentYear() == 2021 && e.getSemester() == SPRING)
+                .collect(Collectors.groupingBy(e -> e.getCourseNumber().substring(0, 3), Collectors.counting()));
+        String largest = expected.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
+        assertEquals(1, stats.getGroups().size());
+        assertEquals(largest, stats.getGroups().get(0).getDepartment());
+        assertEquals(expected.get(largest), stats.getGroups().get(0).getEnrollments());
+        assertEquals(expected.values().stream().mapToLong(Long::longValue).sum(), stats.getEnrollments());
+    }
+
+    @Test
+    void aggregate_unknownYear_shouldReturnNoGroups() {
+        //arrange
+        enrollmentStatistics.load().block();
+
+        //act
+        EnrollmentStatsResponseDTO stats = enrollmentStatistics.aggregate(query(List.of(YEAR), 1999, null, 10));
+
+        //assert
+        assertEquals(0, stats.getEnrollments());
+        assertTrue(stats.getGroups().isEmpty());
+    }
+
+    @Test
+    void enrollmentChanged_updateAndDelete_shouldMoveTheCounts() {
+        //arrange
+        enrollmentStatistics.load().block();
+        Map<Integer, Long> before = countsByYear(enrollmentStatistics.aggregate(query(List.of(YEAR), null, null, 10)));
+        Enrollment moved = buildEnrollment(1, "course1", "201-C1", 2024, WINTER);
+
+        //act
+        enrollmentStatistics.enrollmentChanged(enrollments.get(0), moved);
+        enrollmentStatistics.enrollmentChanged(enrollments.get(1), null);
+        enrollmentStatistics.enrollmentChanged(null, buildEnrollment(ROWS + 1, "course41", null, null, null));
+
+        //assert
+        EnrollmentStatsResponseDTO after = enrollmentStatistics.aggregate(query(List.of(YEAR), null, null, 10));
+        Map<Integer, Long> counts = countsByYear(after);
+        assertEquals(before.get(2021) - 1, counts.get(2021));
+        assertEquals(before.get(2022) - 1, counts.get(2022));
+        assertEquals(before.get(2024) + 1, counts.get(2024));
+        assertEquals(1L, counts.get(null));
+        assertEquals(ROWS, after.getEnrollments());
+    }
+
+    @Test
+    void enrollmentChanged_duringAScan_shouldNotWaitForTheScan() throws Exception {
+        //arrange
+        CountDownLatch scanStarted = new CountDownLatch(1);
+        CountDownLatch releaseScan = new CountDownLatch(1);
+        ForkJoinPool stalledPool = new ForkJoinPool(1) {
+            @Override
+            public <T> T invoke(ForkJoinTask<T> task) {
+                scanStarted.countDown();
+                try {
+                    releaseScan.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.invoke(task);
+            }
+        };
+        EnrollmentStatistics stalledStatistics = new EnrollmentStatistics(enrollmentRepository, stalledPool);
+        stalledStatistics.load().block();
+        CompletableFuture<EnrollmentStatsResponseDTO> scan = CompletableFuture.supplyAsync(
+                () -> stalledStatistics.aggregate(query(List.of(YEAR), null, null, 10)));
+        assertTrue(scanStarted.await(10, TimeUnit.SECONDS));
+
+        try {
+            //act
+            assertTimeoutPreemptively(Duration.ofSeconds(1),
+                    () -> stalledStatistics.enrollmentChanged(null, buildEnrollment(ROWS + 1, "course1", "201-C1", 2024, WINTER)));
+
+            //assert
+            releaseScan.countDown();
+            assertEquals(ROWS, scan.get(10, TimeUnit.SECONDS).getEnrollments());
+            assertEquals(ROWS + 1, stalledStatistics.aggregate(query(List.of(YEAR), null, null, 10)).getEnrollments());
+        } finally {
+            releaseScan.countDown();
+            stalledPool.shutdown();
+        }
+    }
+
+    private static Map<Integer, Long> countsByYear(EnrollmentStatsResponseDTO stats) {
+        return stats.getGroups().stream()
+                .collect(Collectors.toMap(EnrollmentStatsGroupResponseDTO::getEnrollmentYear,
+                        EnrollmentStatsGroupResponseDTO::getEnrollments, Long::sum, HashMap::new));
+    }
+
+    private static EnrollmentStatsQuery query(List<EnrollmentStatsDimension> groupBy, Integer enrollmentYear, Semester semester, Integer top) {
+        return EnrollmentStatsQuery.builder()
+                .groupBy(groupBy)
+                .enrollmentYear(enrollmentYear)
+                .semester(semester)
+                .top(top)
+                .build();
+    }
+
+    private static Enrollment buildEnrollment(int id, String courseId, String courseNumber, Integer enrollmentYear, Semester semester) {
+        return Enrollment.builder()
+                .id(id)
+                .enrollmentId("enrollment" + id)
+                .enrollmentYear(enrollmentYear)
+                .semester(semester)
+                .studentId("student" + id % 1000)
+                .courseId(courseId)
+                .courseNumber(courseNumber)
+                .build();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntry;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class EnrollmentWaitlistBenchmarkTest {
+
+    private static final int WAITLISTED_STUDENTS = 10_000;
+    private static final int PROMOTIONS = 1_000;
+
+    @Autowired
+    EnrollmentWaitlist enrollmentWaitlist;
+
+    @Autowired
+    WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    String courseId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setupDB() {
+        StepVerifier.create(waitlistEntryRepository.deleteAll().then(enrollmentRepository.deleteAll())).verifyComplete();
+
+        Flux<WaitlistEntry> waitlist = Flux.range(0, WAITLISTED_STUDENTS)
+                .map(i -> WaitlistEntry.builder()
+                        .waitlistEntryId(UUID.randomUUID().toString())
+                        .enrollmentYear(2024)
+                        .semester(FALL)
+                        .studentId(String.format("student%05d", i))
+                        .courseId(courseId)
+                        .build());
+        StepVerifier.create(waitlistEntryRepository.saveAll(waitlist))
+                .expectNextCount(WAITLISTED_STUDENTS)
+                .verifyComplete();
+    }
+
+    @Test
+    void findHeadOfWaitlist_shouldSeekTheCourseTermArrivalIndex() {
+        StepVerifier.create(databaseClient.sql("EXPLAIN SELECT * FROM waitlist_entries " +
+                                "WHERE courseId = :courseId AND enrollmentYear = 2024 AND semester = 'FALL' ORDER BY id LIMIT 1")
+                        .bind("courseId", courseId)
+                        .map(row -> row.get(0, String.class))
+                        .one())
+                .assertNext(plan -> assertTrue(plan.toUpperCase().contains("IDX_WAITLIST_COURSE_TERM_ARRIVAL"), plan))
+                .verifyComplete();
+    }
+
+    @Test
+    void promoteNext_tenThousandWaitlisted_shouldPromoteInArrivalOrder() {
+        long start = System.nanoTime();
+        List<String> promotedStudents = Flux.range(0, PROMOTIONS)
+                .concatMap(i -> enrollmentWaitlist.promoteNext(courseId, 2024, FALL))
+                .map(promoted -> promoted.getStudentId())
+                .collectList()
+                .block(Duration.ofMinutes(1));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Promoted {} of {} waitlisted students in {} ms ({} promotions/s)", PROMOTIONS, WAITLISTED_STUDENTS,
+                elapsed.toMillis(), PROMOTIONS * 1000L / Math.max(1, elapsed.toMillis()));
+
+        assertEquals(PROMOTIONS, promotedStudents.size());
+        for (int i = 0; i < PROMOTIONS; i++) {
+            assertEquals(String.format("student%05d", i), promotedStudents.get(i));
+        }
+        StepVerifier.create(waitlistEntryRepository.count())
+                .expectNext((long) (WAITLISTED_STUDENTS - PROMOTIONS))
+                .verifyComplete();
+    }
+
+}
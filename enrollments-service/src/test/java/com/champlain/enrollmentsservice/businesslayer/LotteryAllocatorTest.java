@@ -0,0 +1,95 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotteryAllocatorTest {
+
+    private final LotteryAllocator lotteryAllocator = new LotteryAllocator(4, 5);
+
+    @Test
+    void allocate_oversubscribedCourses_shouldNeverExceedSeatsOrCourseLimit() {
+        //arrange
+        List<LotteryAllocator.Course> courses = new ArrayList<>();
+        for (int course = 0; course < 300; course++) {
+            courses.add(new LotteryAllocator.Course("course" + course, 20, 3.0, null));
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        List<LotteryAllocator.Student> students = new ArrayList<>();
+        for (int student = 0; student < 3000; student++) {
+            int[] rankedCourses = random.ints(0, courses.size()).distinct().limit(8).toArray();
+            students.add(new LotteryAllocator.Student("student" + student, rankedCourses, 30.0, 0, null));
+        }
+
+        //act
+        int[][] admitted = lotteryAllocator.allocate(students, courses, 42L);
+
+        //assert
+        int[] seatsTaken = new int[courses.size()];
+        for (int[] studentCourses : admitted) {
+            assertTrue(studentCourses.length <= 5);
+            assertEquals(studentCourses.length, Arrays.stream(studentCourses).distinct().count());
+            Arrays.stream(studentCourses).forEach(course -> seatsTaken[course]++);
+        }
+        assertTrue(Arrays.stream(seatsTaken).allMatch(taken -> taken <= 20));
+        assertTrue(Arrays.stream(seatsTaken).sum() > courses.size() * 20 * 9 / 10);
+    }
+
+    @Test
+    void allocate_sameSeed_shouldGiveSameAllocation() {
+        //arrange
+        List<LotteryAllocator.Course> courses = List.of(
+                new LotteryAllocator.Course("course0", 1, 3.0, null),
+                new LotteryAllocator.Course("course1", 1, 3.0, null));
+        List<LotteryAllocator.Student> students = new ArrayList<>();
+        for (int student = 0; student < 10; student++) {
+            students.add(new LotteryAllocator.Student("student" + student, new int[]{0, 1}, 30.0, 0, null));
+        }
+
+        //act & assert
+        assertArrayEquals(lotteryAllocator.allocate(students, courses, 123L), lotteryAllocator.allocate(students, courses, 123L));
+    }
+
+    @Test
+    void allocate_scarceSeats_shouldGiveEveryoneOneCourseBeforeAnyoneGetsTwo() {
+        //arrange
+        List<LotteryAllocator.Course> courses = List.of(
+                new LotteryAllocator.Course("course0", 1, 3.0, null),
+                new LotteryAllocator.Course("course1", 2, 3.0, null));
+        List<LotteryAllocator.Student> students = List.of(
+                new LotteryAllocator.Student("student0", new int[]{0, 1}, 30.0, 0, null),
+                new LotteryAllocator.Student("student1", new int[]{0, 1}, 30.0, 0, null),
+                new LotteryAllocator.Student("student2", new int[]{0, 1}, 30.0, 0, null));
+
+        //act
+        int[][] admitted = lotteryAllocator.allocate(students, courses, 99L);
+
+        //assert
+        assertTrue(Arrays.stream(admitted).allMatch(studentCourses -> studentCourses.length == 1));
+    }
+
+    @Test
+    void allocate_creditsAndMeetingTimes_shouldSkipCoursesThatDoNotFit() {
+        //arrange
+        int mondayMorning = 8 * 60;
+        List<LotteryAllocator.Course> courses = List.of(
+                new LotteryAllocator.Course("heavy", 10, 6.0, null),
+                new LotteryAllocator.Course("clashing", 10, 1.0, new int[]{mondayMorning + 60, mondayMorning + 120}),
+                new LotteryAllocator.Course("fitting", 10, 2.0, new int[]{mondayMorning + 180, mondayMorning + 240}));
+        List<LotteryAllocator.Student> students = List.of(new LotteryAllocator.Student("student0", new int[]{0, 1, 2}, 4.0, 1,
+                new int[]{mondayMorning, mondayMorning + 90}));
+
+        //act
+        int[][] admitted = lotteryAllocator.allocate(students, courses, 1L);
+
+        //assert
+        assertArrayEquals(new int[]{2}, admitted[0]);
+    }
+
+}
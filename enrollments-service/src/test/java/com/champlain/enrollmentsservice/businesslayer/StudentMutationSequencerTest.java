@@ -0,0 +1,109 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentMutationSequencerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StudentMutationSequencer studentMutationSequencer =
+            new StudentMutationSequencer(meterRegistry, 4, 2, Duration.ofSeconds(1));
+
+    @Test
+    void sequence_sameStudent_shouldRunOneAtATimeInOrder() {
+        //arrange
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        List<Integer> finished = new CopyOnWriteArrayList<>();
+        StudentMutationSequencer sequencer = new StudentMutationSequencer(meterRegistry, 4, 100, Duration.ofSeconds(1));
+
+        //act
+        Flux<Integer> mutations = Flux.range(0, 20)
+                .flatMapSequential(i -> sequencer.sequence("student01", Mono.fromCallable(() -> {
+                                    mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                    return i;
+                                })
+                                .delayElement(Duration.ofMillis(5))
+                                .doOnNext(done -> {
+                                    running.decrementAndGet();
+                                    finished.add(done);
+                                })));
+
+        //assert
+        StepVerifier.create(mutations.count())
+                .expectNext(20L)
+                .verifyComplete();
+        assertEquals(1, mostRunning.get());
+        assertEquals(Flux.range(0, 20).collectList().block(), finished);
+        assertEquals(0.0, meterRegistry.get("enrollments.sequencer.waiting").gauge().value());
+    }
+
+    @Test
+    void sequence_differentStudents_shouldRunInParallel() {
+        //arrange
+        Sinks.Empty<Void> blocker = Sinks.empty();
+
+        //act
+        Mono<String> blocked = studentMutationSequencer.sequence("student01", blocker.asMono().thenReturn("student01"));
+        Mono<String> other = studentMutationSequencer.sequence("student02", Mono.just("student02"));
+
+        //assert
+        StepVerifier.create(blocked)
+                .then(() -> StepVerifier.create(other)
+                        .expectNext("student02")
+                        .verifyComplete())
+                .then(blocker::tryEmitEmpty)
+                .expectNext("student01")
+                .verifyComplete();
+    }
+
+    @Test
+    void sequence_fullQueue_shouldRejectWithServiceUnavailable() {
+        //arrange
+        Sinks.Empty<Void> blocker = Sinks.empty();
+        studentMutationSequencer.sequence("student01", blocker.asMono()).subscribe();
+        studentMutationSequencer.sequence("student01", Mono.empty()).subscribe();
+        studentMutationSequencer.sequence("student01", Mono.empty()).subscribe();
+
+        //act & assert
+        StepVerifier.create(studentMutationSequencer.sequence("student01", Mono.just("too many")))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+        assertEquals(1.0, meterRegistry.get("enrollments.sequencer.rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("enrollments.sequencer.waiting").gauge().value());
+
+        blocker.tryEmitEmpty();
+        assertEquals(0.0, meterRegistry.get("enrollments.sequencer.waiting").gauge().value());
+    }
+
+    @Test
+    void sequence_cancelledWhileWaiting_shouldBeSkipped() {
+        //arrange
+        Sinks.Empty<Void> blocker = Sinks.empty();
+        AtomicInteger ran = new AtomicInteger();
+        studentMutationSequencer.sequence("student01", blocker.asMono()).subscribe();
+
+        //act
+        studentMutationSequencer.sequence("student01", Mono.fromRunnable(ran::incrementAndGet)).subscribe().dispose();
+        blocker.tryEmitEmpty();
+
+        //assert
+        assertEquals(0, ran.get());
+        StepVerifier.create(studentMutationSequencer.sequence("student01", Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+    }
+
+}
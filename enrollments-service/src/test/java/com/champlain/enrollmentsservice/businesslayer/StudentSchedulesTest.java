@@ -0,0 +1,95 @@
+package com.champlain.enrollmentsservice.businesslayer;
+
+import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
+import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.WINTER;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudentSchedulesTest {
+
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+
+    private StudentSchedules studentSchedules;
+
+    private final Enrollment existing = buildEnrollment("course01", 2023, FALL, "MONDAY 08:30-11:30,WEDNESDAY 13:00-15:00");
+
+    @BeforeEach
+    void setUp() {
+        studentSchedules = new StudentSchedules(enrollmentRepository, 100);
+        when(enrollmentRepository.findAllEnrollmentsByStudentId("student01")).thenReturn(Flux.just(existing));
+    }
+
+    @Test
+    void book_overlappingSlot_shouldThrowConflictException() {
+        //arrange
+        Enrollment enrollment = buildEnrollment("course02", 2023, FALL, "WEDNESDAY 14:30-16:00");
+
+        //act & assert
+        StepVerifier.create(studentSchedules.book(enrollment))
+                .expectErrorMatches(error -> error instanceof ConflictException
+                        && error.getMessage().equals("Course course02 meets at the same time as course course01 on WEDNESDAY 13:00-15:00"))
+                .verify();
+    }
+
+    @Test
+    void book_adjacentSlotOrOtherTerm_shouldComplete() {
+        //arrange
+        Enrollment adjacent = buildEnrollment("course02", 2023, FALL, "MONDAY 11:30-13:00");
+        Enrollment otherTerm = buildEnrollment("course03", 2024, WINTER, "MONDAY 08:30-11:30");
+
+        //act & assert
+        StepVerifier.create(studentSchedules.book(adjacent)).verifyComplete();
+        StepVerifier.create(studentSchedules.book(otherTerm)).verifyComplete();
+        verify(enrollmentRepository, times(1)).findAllEnrollmentsByStudentId("student01");
+    }
+
+    @Test
+    void release_thenBookSameSlot_shouldComplete() {
+        //arrange
+        Enrollment enrollment = buildEnrollment("course02", 2023, FALL, "MONDAY 09:00-10:00");
+        StepVerifier.create(studentSchedules.book(buildEnrollment("course04", 2023, FALL, "FRIDAY 09:00-10:00"))).verifyComplete();
+
+        //act
+        studentSchedules.release(existing);
+
+        //assert
+        StepVerifier.create(studentSchedules.book(enrollment)).verifyComplete();
+    }
+
+    @Test
+    void rebook_sameEnrollmentMovedLater_shouldNotConflictWithItself() {
+        //arrange
+        Enrollment moved = buildEnrollment("course01", 2023, FALL, "MONDAY 10:00-12:00");
+        moved.setEnrollmentId(existing.getEnrollmentId());
+        StepVerifier.create(studentSchedules.book(buildEnrollment("course02", 2023, FALL, "FRIDAY 09:00-10:00"))).verifyComplete();
+
+        //act & assert
+        StepVerifier.create(studentSchedules.rebook(existing, moved)).verifyComplete();
+        StepVerifier.create(studentSchedules.book(buildEnrollment("course03", 2023, FALL, "WEDNESDAY 13:00-15:00"))).verifyComplete();
+    }
+
+    private static Enrollment buildEnrollment(String courseId, int enrollmentYear, Semester semester, String meetingSlots) {
+        return Enrollment.builder()
+                .enrollmentId(UUID.randomUUID().toString())
+                .enrollmentYear(enrollmentYear)
+                .semester(semester)
+                .studentId("student01")
+                .courseId(courseId)
+                .meetingSlots(meetingSlots)
+                .build();
+    }
+
+}
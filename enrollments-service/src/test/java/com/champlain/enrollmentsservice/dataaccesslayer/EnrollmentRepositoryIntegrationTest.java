@@ -15,6 +15,7 @@ import reactor.test.StepVerifier;
 import java.util.Arrays;
 import java.util.UUID;
 
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
 import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.SPRING;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -197,4 +198,113 @@ class EnrollmentRepositoryIntegrationTest {
                 .verifyComplete();
     }
 
-}
\ No newline at end of file
+    @Test
+    void insertAll_validEnrollments_shouldAssignIds() {
+        // Arrange
+        Enrollment enrollment1 = Enrollment.builder()
+                .enrollmentId("enrollmentId08")
+                .enrollmentYear(2024)
+                .semester(SPRING)
+                .studentId("studentId08")
+                .studentFirstName("studentFirstName08")
+                .studentLastName("studentLastName08")
+                .courseId("courseId08")
+                .courseName("courseName08")
+                .courseNumber("courseNumber08")
+                .build();
+
+        Enrollment enrollment2 = Enrollment.builder()
+                .enrollmentId("enrollmentId09")
+                .enrollmentYear(2024)
+                .semester(SPRING)
+                .studentId("studentId09")
+                .studentFirstName("studentFirstName09")
+                .studentLastName("studentLastName09")
+                .courseId("courseId08")
+                .courseName("courseName08")
+                .courseNumber("courseNumber08")
+                .build();
+
+        // Act
+        Flux<Enrollment> insertAll = enrollmentRepository.insertAll(Arrays.asList(enrollment1, enrollment2));
+
+        // Assert
+        StepVerifier.create(insertAll)
+                .expectNextCount(2)
+                .verifyComplete();
+        assertNotNull(enrollment1.getId());
+        assertNotNull(enrollment2.getId());
+
+        StepVerifier.create(enrollmentRepository.findEnrollmentByEnrollmentId(enrollment2.getEnrollmentId()))
+                .consumeNextWith(foundEnrollment -> {
+                    assertEquals(enrollment2.getId(), foundEnrollment.getId());
+                    assertEquals(enrollment2.getStudentFirstName(), foundEnrollment.getStudentFirstName());
+                    assertEquals(SPRING, foundEnrollment.getSemester());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void updateEnrollmentByEnrollmentId_existingEnrollment_shouldUpdateInPlace() {
+        // Arrange
+        Enrollment enrollment = Enrollment.builder()
+                .enrollmentId("enrollmentId10")
+                .enrollmentYear(2024)
+                .semester(SPRING)
+                .studentId("studentId10")
+                .studentFirstName("studentFirstName10")
+                .studentLastName("studentLastName10")
+                .courseId("courseId10")
+                .courseName("courseName10")
+                .courseNumber("courseNumber10")
+                .build();
+        StepVerifier.create(enrollmentRepository.save(enrollment))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Enrollment update = Enrollment.builder()
+                .enrollmentId("enrollmentId10")
+                .enrollmentYear(2025)
+                .semester(FALL)
+                .studentId("studentId10")
+                .studentFirstName("studentFirstName10")
+                .courseId("courseId11")
+                .courseName("courseName11")
+                .courseNumber("courseNumber11")
+                .build();
+
+        // Act and Assert
+        StepVerifier.create(enrollmentRepository.updateEnrollmentByEnrollmentId(update))
+                .expectNext(1)
+                .verifyComplete();
+
+        StepVerifier.create(enrollmentRepository.findEnrollmentByEnrollmentId("enrollmentId10"))
+                .consumeNextWith(foundEnrollment -> {
+                    assertEquals(enrollment.getId(), foundEnrollment.getId());
+                    assertEquals(2025, foundEnrollment.getEnrollmentYear());
+                    assertEquals(FALL, foundEnrollment.getSemester());
+                    assertEquals("courseId11", foundEnrollment.getCourseId());
+                    assertNull(foundEnrollment.getStudentLastName());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void updateAndDeleteByEnrollmentId_unknownEnrollment_shouldAffectNoRows() {
+        // Arrange
+        Enrollment update = Enrollment.builder()
+                .enrollmentId("unknownEnrollmentId")
+                .enrollmentYear(2025)
+                .semester(FALL)
+                .build();
+
+        // Act and Assert
+        StepVerifier.create(enrollmentRepository.updateEnrollmentByEnrollmentId(update))
+                .expectNext(0)
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.deleteEnrollmentByEnrollmentId("unknownEnrollmentId"))
+                .expectNext(0)
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+// Runs against 200k rows by default; pass -Dbenchmark.streaming.rows=5000000 to repeat it at full size. The
+// converter is spied on, so every row the driver hands up is counted where it is read, below the repository's
+// limitRate, and compared with what the subscriber has taken.
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class EnrollmentStreamingBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.streaming.rows", 200_000);
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @SpyBean
+    R2dbcConverter r2dbcConverter;
+
+    @Value("${app.enrollments.stream.fetch-size:500}")
+    int fetchSize;
+
+    private final AtomicLong read = new AtomicLong();
+
+    @BeforeEach
+    void setupDB() {
+        StepVerifier.create(enrollmentRepository.deleteAll()).verifyComplete();
+
+        StepVerifier.create(databaseClient.sql("INSERT INTO enrollments (enrollmentId, enrollmentYear, semester, studentId, " +
+                                "studentFirstName, studentLastName, courseId, courseNumber, courseName, numCredits) " +
+                                "SELECT 'enrollment' || X, 2024, 'FALL', 'student' || X, 'first', 'last', " +
+                                "'course' || MOD(X, 2000), 'cs' || MOD(X, 2000), 'course name', 3 " +
+                                "FROM SYSTEM_RANGE(1, :rows)")
+                        .bind("rows", ROWS)
+                        .fetch()
+                        .rowsUpdated())
+                .expectNext((long) ROWS)
+                .verifyComplete();
+
+        doAnswer(invocation -> {
+            read.incrementAndGet();
+            return invocation.callRealMethod();
+        }).when(r2dbcConverter).read(eq(Enrollment.class), any(Row.class), any(RowMetadata.class));
+    }
+
+    @Test
+    void findAllEnrollmentsByFilter_slowSubscriberTakingAPrefix_shouldReadAtMostAFetchAheadOfIt() {
+        //arrange
+        AtomicLong mostInFlight = new AtomicLong();
+        Sinks.Empty<Void> done = Sinks.empty();
+        BaseSubscriber<Enrollment> slowSubscriber = new BaseSubscriber<>() {
+            long received;
+
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(Enrollment enrollment) {
+                received++;
+                mostInFlight.accumulateAndGet(read.get() - received, Math::max);
+                request(1);
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                done.tryEmitEmpty();
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                done.tryEmitError(throwable);
+            }
+        };
+
+        //act
+        enrollmentRepository.findAllEnrollmentsByFilter(EnrollmentFilter.builder().build(), EnrollmentPage.builder().build())
+                .take(ROWS / 10)
+                .subscribe(slowSubscriber);
+
+        //assert
+        StepVerifier.create(done.asMono()).expectComplete().verify(Duration.ofMinutes(1));
+        assertTrue(mostInFlight.get() <= fetchSize, "read ahead of the subscriber: " + mostInFlight.get());
+        assertTrue(read.get() <= ROWS / 10 + fetchSize, "read " + read.get() + " rows for a prefix of " + ROWS / 10);
+    }
+
+    @Test
+    void findAllEnrollmentsByFilter_wholeTable_shouldStreamEveryRowAtMostAFetchAhead() {
+        //arrange
+        AtomicLong streamed = new AtomicLong();
+        AtomicLong mostInFlight = new AtomicLong();
+
+        //act
+        long start = System.nanoTime();
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByFilter(EnrollmentFilter.builder().build(),
+                                EnrollmentPage.builder().build())
+                        .doOnNext(enrollment -> mostInFlight.accumulateAndGet(read.get() - streamed.incrementAndGet(), Math::max))
+                        .count())
+                .expectNext((long) ROWS)
+                .verifyComplete();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        //assert
+        log.info("Streamed {} enrollments in {} ms, at most {} rows read ahead of the subscriber",
+                ROWS, elapsed.toMillis(), mostInFlight.get());
+        assertTrue(mostInFlight.get() <= fetchSize, "read ahead of the subscriber: " + mostInFlight.get());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.champlain.enrollmentsservice.dataaccesslayer;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+
+@SpringBootTest
+class SchemaMigrationsIntegrationTest {
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    ConnectionFactory connectionFactory;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Autowired
+    EnrollmentQueryPlanCheck enrollmentQueryPlanCheck;
+
+    @BeforeEach
+    void setupDB() {
+        StepVerifier.create(enrollmentRepository.deleteAll()).verifyComplete();
+    }
+
+    @Test
+    void populate_runAgain_shouldKeepExistingRowsAndRecordEachVersionOnce() {
+        //arrange
+        StepVerifier.create(enrollmentRepository.save(Enrollment.builder()
+                        .enrollmentId(UUID.randomUUID().toString())
+                        .enrollmentYear(2024)
+                        .semester(FALL)
+                        .studentId("student01")
+                        .courseId("course01")
+                        .build()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        //act
+        SchemaMigrations schemaMigrations = new SchemaMigrations(new PathMatchingResourcePatternResolver());
+        StepVerifier.create(Mono.usingWhen(Mono.from(connectionFactory.create()),
+                        schemaMigrations::populate,
+                        connection -> connection.close()))
+                .verifyComplete();
+
+        //assert
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("SELECT migrationVersion FROM schema_migrations ORDER BY migrationVersion")
+                        .map(row -> row.get(0, Integer.class))
+                        .all()
+                        .collectList())
+                .expectNext(List.of(1, 2, 3, 4, 5, 6))
+                .verifyComplete();
+    }
+
+    @Test
+    void sequentialScans_afterMigrations_shouldFindNoFinderScanningATable() {
+        StepVerifier.create(enrollmentQueryPlanCheck.sequentialScans())
+                .expectNext(List.of())
+                .verifyComplete();
+    }
+
+}
@@ -1,10 +1,12 @@
 package com.champlain.enrollmentsservice.domainclientlayer;
 
 
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
 import com.champlain.enrollmentsservice.utils.exceptions.NotFoundException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 
@@ -29,6 +31,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -70,7 +73,7 @@ class CourseClientTest {
     @Test
     void getCourseByCourseId_shouldSucceed() throws IOException{
 
-        CourseResponseDTO courseResponseDTO = new CourseResponseDTO("courseId", "courseNumber", "courseName", 1, 1.0, "department");
+        CourseResponseDTO courseResponseDTO = new CourseResponseDTO("courseId", "courseNumber", "courseName", 1, 1.0, "department", 30, 0, null, null);
         webServer.enqueue(new MockResponse().setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .setBody(objectMapper.writeValueAsString(courseResponseDTO))
                 .addHeader("Content-type", "application/json"));
@@ -106,5 +109,40 @@ class CourseClientTest {
                 .verify();
     }
 
+    @Test
+    void reserveSeats_courseFull_throwsConflictException() throws IOException {
+
+        webServer.enqueue(new MockResponse().setResponseCode(409));
+
+        Mono<CourseResponseDTO> courseResponseDTOMono = courseClient.reserveSeats("courseId", 1);
+        StepVerifier.create(courseResponseDTOMono)
+                .expectErrorMatches(throwable -> throwable instanceof ConflictException
+                        && throwable.getMessage().equals("No seats left in course: courseId"))
+                .verify();
+    }
+
+    @Test
+    void checkPrerequisites_shouldPostCompletedCourses() throws Exception {
 
-}
\ No newline at end of file
+        PrerequisiteCheckResponseDTO check = PrerequisiteCheckResponseDTO.builder()
+                .courseId("courseId")
+                .satisfied(false)
+                .missingCourseIds(List.of("firstCourseId"))
+                .build();
+        webServer.enqueue(new MockResponse().setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(check)));
+
+        StepVerifier.create(courseClient.checkPrerequisites("courseId", List.of("secondCourseId")))
+                .expectNextMatches(found -> !found.isSatisfied() && found.getMissingCourseIds().equals(List.of("firstCourseId")))
+                .verifyComplete();
+
+        // the server is shared by the whole class, so earlier tests' requests are still queued
+        RecordedRequest request;
+        do {
+            request = webServer.takeRequest();
+        } while (!request.getPath().endsWith("/prerequisites/check"));
+        assertEquals("POST", request.getMethod());
+        assertEquals("/courses/courseId/prerequisites/check", request.getPath());
+        assertEquals("{\"completedCourseIds\":[\"secondCourseId\"]}", request.getBody().readUtf8());
+    }
+}
@@ -2,14 +2,23 @@ package com.champlain.enrollmentsservice.presentationlayer;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.champlain.enrollmentsservice.businesslayer.EnrollmentService;
+import com.champlain.enrollmentsservice.businesslayer.EnrollmentStatistics;
+import com.champlain.enrollmentsservice.dataaccesslayer.CourseTermCountRepository;
 import com.champlain.enrollmentsservice.dataaccesslayer.Enrollment;
 import com.champlain.enrollmentsservice.dataaccesslayer.EnrollmentRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.IdempotencyKeyRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.StudentTermLoadRepository;
+import com.champlain.enrollmentsservice.dataaccesslayer.WaitlistEntryRepository;
 import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
 import com.champlain.enrollmentsservice.domainclientlayer.CourseClient;
 import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
+import com.champlain.enrollmentsservice.domainclientlayer.MeetingSlot;
+import com.champlain.enrollmentsservice.domainclientlayer.PrerequisiteCheckResponseDTO;
 import com.champlain.enrollmentsservice.domainclientlayer.StudentClient;
 import com.champlain.enrollmentsservice.domainclientlayer.StudentResponseDTO;
 import com.champlain.enrollmentsservice.utils.exceptions.InvalidInputException;
+import com.champlain.enrollmentsservice.utils.exceptions.ConflictException;
+import com.champlain.enrollmentsservice.utils.exceptions.NotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
@@ -18,24 +27,42 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.FALL;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.SUMMER;
+import static com.champlain.enrollmentsservice.dataaccesslayer.Semester.WINTER;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
 
-@SpringBootTest(webEnvironment = RANDOM_PORT)
+// the rows are reset straight through the repositories before each test, bypassing the listing cache's
+// invalidation, so listings are never served from it here
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "app.enrollments.listing-cache.ttl=0s")
 @AutoConfigureWebTestClient
 
 class EnrollmentControllerIntegrationTest {
@@ -52,9 +79,24 @@ class EnrollmentControllerIntegrationTest {
     @Autowired
     EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    StudentTermLoadRepository studentTermLoadRepository;
+
+    @Autowired
+    CourseTermCountRepository courseTermCountRepository;
+
     @Autowired
     EnrollmentService enrollmentService;
 
+    @Autowired
+    EnrollmentStatistics enrollmentStatistics;
+
     private final Long DB_SIZE = 5L;
 
 
@@ -76,7 +118,7 @@ class EnrollmentControllerIntegrationTest {
 
     EnrollmentRequestDTO enrollmentRequestDTO = EnrollmentRequestDTO.builder()
             .enrollmentYear(2023)
-            .semester(FALL)
+            .semester(WINTER)
             .studentId(studentResponseDTO.getStudentId())
             .courseId(courseResponseDTO.getCourseId())
             .build();
@@ -96,7 +138,10 @@ class EnrollmentControllerIntegrationTest {
     @BeforeEach
     public void dbSetUp(){
 
-        Publisher<Enrollment> setup = enrollmentRepository.deleteAll()
+        Publisher<Enrollment> setup = waitlistEntryRepository.deleteAll()
+                .then(studentTermLoadRepository.deleteAll())
+                .then(courseTermCountRepository.deleteAll())
+                .then(enrollmentRepository.deleteAll())
                 .thenMany(enrollmentRepository.save(enrollment1))
                 .thenMany(enrollmentRepository.save(enrollment2))
                 .thenMany(enrollmentRepository.save(enrollment3))
@@ -104,6 +149,11 @@ class EnrollmentControllerIntegrationTest {
                 .thenMany(enrollmentRepository.save(enrollment5));
 
         StepVerifier.create(setup).expectNextCount(1).verifyComplete();
+
+        when(courseClient.reserveSeats(anyString(), anyInt()))
+                .thenReturn(Mono.just(courseResponseDTO));
+        when(courseClient.releaseSeats(anyString(), anyInt()))
+                .thenReturn(Mono.just(courseResponseDTO));
     }
 
     @Test
@@ -129,7 +179,8 @@ class EnrollmentControllerIntegrationTest {
                 .expectStatus().isOk()
                 .expectHeader().contentType(MediaType.APPLICATION_JSON)
                 .expectBody()
-                .jsonPath("$.enrollmentId").isEqualTo(enrollment1.getEnrollmentId());
+                .jsonPath("$.enrollmentId").isEqualTo(enrollment1.getEnrollmentId())
+                .jsonPath("$.cursor").doesNotExist();
     }
 
     @Test
@@ -218,6 +269,194 @@ class EnrollmentControllerIntegrationTest {
                 });
     }
 
+    @Test
+    void getAllEnrollments_courseIdAndEnrollmentYear_shouldOnlyReturnMatchingRows() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments")
+                        .queryParam("courseId", courseResponseDTO.getCourseId())
+                        .queryParam("enrollmentYear", 2024)
+                        .queryParam("semester", "FALL")
+                        .build())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .acceptCharset(StandardCharsets.UTF_8)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(EnrollmentResponseDTO.class)
+                .value(list -> {
+                    assertEquals(1, list.size());
+                    assertEquals(enrollment3.getEnrollmentId(), list.get(0).getEnrollmentId());
+                });
+    }
+
+    @Test
+    void getAllEnrollments_limitAndAfter_shouldPageThroughInIdOrder() {
+        List<String> enrollmentIds = new ArrayList<>();
+        String after = null;
+        for (int page = 0; page < 3; page++) {
+            String cursor = after;
+            List<ServerSentEvent<EnrollmentResponseDTO>> events = webTestClient.get()
+                    .uri(uriBuilder -> {
+                        uriBuilder.path("/enrollments").queryParam("limit", 2);
+                        if (cursor != null) {
+                            uriBuilder.queryParam("after", cursor);
+                        }
+                        return uriBuilder.build();
+                    })
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(new ParameterizedTypeReference<ServerSentEvent<EnrollmentResponseDTO>>() {})
+                    .getResponseBody()
+                    .collectList()
+                    .block();
+            assertEquals(page < 2 ? 2 : 1, events.size());
+            events.forEach(event -> enrollmentIds.add(event.data().getEnrollmentId()));
+            after = events.get(events.size() - 1).id();
+        }
+
+        assertEquals(List.of(uuid1, uuid2, uuid3, uuid4, uuid5), enrollmentIds);
+    }
+
+    @Test
+    void getAllEnrollments_count_shouldSetTotalCountHeader() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments")
+                        .queryParam("courseId", courseResponseDTO.getCourseId())
+                        .queryParam("limit", 1)
+                        .queryParam("count", true)
+                        .build())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Total-Count", String.valueOf(DB_SIZE))
+                .expectBodyList(EnrollmentResponseDTO.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getAllEnrollments_invalidCursor_throwsInvalidInputException() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments")
+                        .queryParam("after", "not-a-cursor")
+                        .build())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void searchEnrollments_enrollmentIdsAndStudentIds_shouldReturnEachMatchOnce() {
+        Enrollment otherStudentEnrollment = buildEnrollment(2024, UUID.randomUUID().toString());
+        otherStudentEnrollment.setStudentId("student456");
+        StepVerifier.create(enrollmentRepository.save(otherStudentEnrollment)).expectNextCount(1).verifyComplete();
+
+        EnrollmentSearchRequestDTO searchRequestDTO = EnrollmentSearchRequestDTO.builder()
+                .enrollmentIds(List.of(uuid1, otherStudentEnrollment.getEnrollmentId()))
+                .studentIds(List.of(studentResponseDTO.getStudentId(), "unknownStudent"))
+                .build();
+
+        webTestClient.post()
+                .uri("/enrollments/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(searchRequestDTO)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(EnrollmentResponseDTO.class)
+                .value(list -> {
+                    assertEquals(DB_SIZE + 1, list.size());
+                    assertEquals(list.size(), list.stream().map(EnrollmentResponseDTO::getEnrollmentId).distinct().count());
+                });
+    }
+
+    @Test
+    void searchEnrollments_overlappingEnrollmentStudentAndCourseIds_shouldReturnEachMatchOnce() {
+        Enrollment otherStudentEnrollment = buildEnrollment(2024, UUID.randomUUID().toString());
+        otherStudentEnrollment.setStudentId("student456");
+        StepVerifier.create(enrollmentRepository.save(otherStudentEnrollment)).expectNextCount(1).verifyComplete();
+
+        EnrollmentSearchRequestDTO searchRequestDTO = EnrollmentSearchRequestDTO.builder()
+                .enrollmentIds(List.of(uuid1))
+                .studentIds(List.of(studentResponseDTO.getStudentId()))
+                .courseIds(List.of(courseResponseDTO.getCourseId()))
+                .build();
+
+        webTestClient.post()
+                .uri("/enrollments/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(searchRequestDTO)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(EnrollmentResponseDTO.class)
+                .value(list -> {
+                    assertEquals(DB_SIZE + 1, list.size());
+                    assertEquals(list.size(), list.stream().map(EnrollmentResponseDTO::getEnrollmentId).distinct().count());
+                });
+    }
+
+    @Test
+    void searchEnrollments_noIds_throwsInvalidInputException() {
+        webTestClient.post()
+                .uri("/enrollments/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new EnrollmentSearchRequestDTO())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void getAllEnrollments_unknownParameter_throwsInvalidInputException() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments")
+                        .queryParam("courseID", courseResponseDTO.getCourseId())
+                        .build())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void getEnrollmentStats_departmentAndSemester_shouldCountEveryEnrollment() {
+        // the rows of dbSetUp were written straight to the repository, so the statistics are reloaded
+        StepVerifier.create(enrollmentStatistics.load()).verifyComplete();
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments/stats")
+                        .queryParam("groupBy", "department,semester")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(EnrollmentStatsResponseDTO.class)
+                .value(stats -> {
+                    assertEquals(DB_SIZE, stats.getEnrollments());
+                    assertEquals(List.of(EnrollmentStatsGroupResponseDTO.builder()
+                            .department("420")
+                            .semester(FALL)
+                            .enrollments(DB_SIZE)
+                            .build()), stats.getGroups());
+                });
+    }
+
+    @Test
+    void getEnrollmentStats_unknownDimension_throwsInvalidInputException() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments/stats")
+                        .queryParam("groupBy", "course,teacher")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
     @Test
     public void getEnrollmentByEnrollmentId_invalidId_throwsInvalidInputException(){
         String invalidIdTest = "12345";
@@ -268,6 +507,454 @@ class EnrollmentControllerIntegrationTest {
 
     }
 
+    @Test
+    void getCourseTermCount_afterAddAndDelete_shouldFollowTheWrites() {
+        //arrange
+        when(studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+        when(courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act
+        EnrollmentResponseDTO added = webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(enrollmentRequestDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(EnrollmentResponseDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        //assert
+        assertEquals(1, getCourseTermCount(enrollmentRequestDTO).getEnrollments());
+
+        webTestClient.delete()
+                .uri("/enrollments/{enrollmentId}", added.getEnrollmentId())
+                .exchange()
+                .expectStatus().isNoContent();
+        assertEquals(0, getCourseTermCount(enrollmentRequestDTO).getEnrollments());
+    }
+
+    @Test
+    void getCourseTermCount_missingSemester_throwsInvalidInputException() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments/counts")
+                        .queryParam("courseId", courseResponseDTO.getCourseId())
+                        .queryParam("enrollmentYear", 2023)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    private CourseTermCountResponseDTO getCourseTermCount(EnrollmentRequestDTO term) {
+        return webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/enrollments/counts")
+                        .queryParam("courseId", term.getCourseId())
+                        .queryParam("enrollmentYear", term.getEnrollmentYear())
+                        .queryParam("semester", term.getSemester())
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CourseTermCountResponseDTO.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    void addEnrollment_alreadyEnrolledForTerm_shouldReturnConflict() {
+        //arrange
+        EnrollmentRequestDTO duplicateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(enrollment2.getEnrollmentYear())
+                .semester(enrollment2.getSemester())
+                .studentId(enrollment2.getStudentId())
+                .courseId(enrollment2.getCourseId())
+                .build();
+
+        when(studentClient.getStudentByStudentId(duplicateRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+
+        when(courseClient.getCourseByCourseId(duplicateRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(duplicateRequestDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Student is already enrolled in this course for this term");
+
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(DB_SIZE)
+                .verifyComplete();
+        verify(courseClient, times(1)).releaseSeats(duplicateRequestDTO.getCourseId(), 1);
+    }
+
+    @Test
+    void addEnrollment_courseFull_shouldReturnConflict() {
+        //arrange
+        when(studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+
+        when(courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        when(courseClient.reserveSeats(enrollmentRequestDTO.getCourseId(), 1))
+                .thenReturn(Mono.error(new ConflictException("No seats left in course: " + enrollmentRequestDTO.getCourseId())));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(enrollmentRequestDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("No seats left in course: " + enrollmentRequestDTO.getCourseId());
+
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(DB_SIZE)
+                .verifyComplete();
+    }
+
+    @Test
+    void addEnrollment_overCreditLimit_shouldReturnConflictUntilCreditsAreFreed() {
+        //arrange
+        CourseResponseDTO firstCourse = CourseResponseDTO.builder()
+                .courseId("course456").courseName("Capstone").courseNumber("420-P55-LA").numCredits(20.0).build();
+        CourseResponseDTO secondCourse = CourseResponseDTO.builder()
+                .courseId("course789").courseName("Internship").courseNumber("420-P66-LA").numCredits(12.5).build();
+
+        when(studentClient.getStudentByStudentId(studentResponseDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+        when(courseClient.getCourseByCourseId(firstCourse.getCourseId()))
+                .thenReturn(Mono.just(firstCourse));
+        when(courseClient.getCourseByCourseId(secondCourse.getCourseId()))
+                .thenReturn(Mono.just(secondCourse));
+
+        EnrollmentRequestDTO firstRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023).semester(SUMMER).studentId(studentResponseDTO.getStudentId()).courseId(firstCourse.getCourseId()).build();
+        EnrollmentRequestDTO secondRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023).semester(SUMMER).studentId(studentResponseDTO.getStudentId()).courseId(secondCourse.getCourseId()).build();
+
+        EnrollmentResponseDTO firstEnrollment = webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(firstRequestDTO)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(EnrollmentResponseDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        //act and assert
+        webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(secondRequestDTO)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Enrollment would take student " + studentResponseDTO.getStudentId()
+                        + " over the maximum of 30 credits for SUMMER 2023");
+        verify(courseClient, times(1)).releaseSeats(secondCourse.getCourseId(), 1);
+
+        webTestClient.delete()
+                .uri("/enrollments/{enrollmentId}", firstEnrollment.getEnrollmentId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(secondRequestDTO)
+                .exchange()
+                .expectStatus().isCreated();
+
+        StepVerifier.create(studentTermLoadRepository.findStudentTermLoadByStudentIdAndEnrollmentYearAndSemester(
+                        studentResponseDTO.getStudentId(), 2023, SUMMER))
+                .consumeNextWith(load -> assertEquals(0, new BigDecimal("12.5").compareTo(load.getTotalCredits())))
+                .verifyComplete();
+    }
+
+    @Test
+    void addEnrollment_prerequisitesNotCompleted_shouldReturnConflict() {
+        //arrange
+        CourseResponseDTO advancedCourse = CourseResponseDTO.builder()
+                .courseId("course456").courseName("Web Services 2").courseNumber("420-N55-LA").numCredits(2.0)
+                .prerequisiteCourseIds(List.of(courseResponseDTO.getCourseId()))
+                .build();
+        EnrollmentRequestDTO advancedRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023).semester(WINTER).studentId(studentResponseDTO.getStudentId()).courseId(advancedCourse.getCourseId()).build();
+
+        when(studentClient.getStudentByStudentId(studentResponseDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+        when(courseClient.getCourseByCourseId(advancedCourse.getCourseId()))
+                .thenReturn(Mono.just(advancedCourse));
+        when(courseClient.checkPrerequisites(advancedCourse.getCourseId(), List.of(courseResponseDTO.getCourseId())))
+                .thenReturn(Mono.just(PrerequisiteCheckResponseDTO.builder()
+                        .courseId(advancedCourse.getCourseId())
+                        .satisfied(false)
+                        .missingCourseIds(List.of("course000"))
+                        .build()));
+
+        //act and assert
+        webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(advancedRequestDTO)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Student has not completed the prerequisites of course course456: [course000]");
+
+        verify(courseClient, never()).reserveSeats(advancedCourse.getCourseId(), 1);
+    }
+
+    @Test
+    void addEnrollment_overlappingMeetingSlot_shouldReturnConflict() {
+        //arrange
+        CourseResponseDTO morningCourse = CourseResponseDTO.builder()
+                .courseId("course456").courseName("Databases").courseNumber("420-N45-LA").numCredits(2.0)
+                .meetingSlots(List.of(new MeetingSlot(DayOfWeek.TUESDAY, LocalTime.of(8, 30), LocalTime.of(11, 30))))
+                .build();
+        CourseResponseDTO lateMorningCourse = CourseResponseDTO.builder()
+                .courseId("course789").courseName("Networks").courseNumber("420-N46-LA").numCredits(2.0)
+                .meetingSlots(List.of(new MeetingSlot(DayOfWeek.TUESDAY, LocalTime.of(10, 0), LocalTime.of(12, 0))))
+                .build();
+
+        when(studentClient.getStudentByStudentId(studentResponseDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+        when(courseClient.getCourseByCourseId(morningCourse.getCourseId()))
+                .thenReturn(Mono.just(morningCourse));
+        when(courseClient.getCourseByCourseId(lateMorningCourse.getCourseId()))
+                .thenReturn(Mono.just(lateMorningCourse));
+
+        webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(2025).semester(FALL).studentId(studentResponseDTO.getStudentId()).courseId(morningCourse.getCourseId()).build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        //act and assert
+        webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(2025).semester(FALL).studentId(studentResponseDTO.getStudentId()).courseId(lateMorningCourse.getCourseId()).build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Course course789 meets at the same time as course course456 on TUESDAY 08:30-11:30");
+
+        verify(courseClient, never()).reserveSeats(lateMorningCourse.getCourseId(), 1);
+    }
+
+    @Test
+    void updateEnrollment_toAlreadyEnrolledTerm_shouldReturnConflict() {
+        //arrange
+        EnrollmentRequestDTO duplicateRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(enrollment2.getEnrollmentYear())
+                .semester(enrollment2.getSemester())
+                .studentId(enrollment2.getStudentId())
+                .courseId(enrollment2.getCourseId())
+                .build();
+
+        when(studentClient.getStudentByStudentId(duplicateRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+
+        when(courseClient.getCourseByCourseId(duplicateRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act and assert
+        webTestClient.put()
+                .uri("/enrollments/{enrollmentId}", enrollment1.getEnrollmentId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(duplicateRequestDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void addEnrollment_retriedWithSameIdempotencyKey_shouldReturnOriginalEnrollment() {
+        //arrange
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        when(studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+
+        when(courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act
+        EnrollmentResponseDTO first = postEnrollmentWithIdempotencyKey(idempotencyKey);
+        EnrollmentResponseDTO retry = postEnrollmentWithIdempotencyKey(idempotencyKey);
+
+        //assert
+        assertNotNull(first);
+        assertNotNull(retry);
+        assertEquals(first.getEnrollmentId(), retry.getEnrollmentId());
+        verify(studentClient, times(1)).getStudentByStudentId(enrollmentRequestDTO.getStudentId());
+        verify(courseClient, times(1)).getCourseByCourseId(enrollmentRequestDTO.getCourseId());
+
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(DB_SIZE + 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void addEnrollment_idempotencyKeyClaimedByARequestInProgress_shouldReturnConflict() {
+        //arrange
+        String idempotencyKey = UUID.randomUUID().toString();
+        StepVerifier.create(idempotencyKeyRepository.claimIdempotencyKey(idempotencyKey, LocalDateTime.now()))
+                .expectNext(1)
+                .verifyComplete();
+
+        //act and assert
+        webTestClient.post()
+                .uri("/enrollments")
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(enrollmentRequestDTO)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("A request with this Idempotency-Key is already in progress: " + idempotencyKey);
+    }
+
+    @Test
+    void addEnrollment_idempotencyKeyOfAnAbandonedClaim_shouldCreateTheEnrollment() {
+        //arrange
+        String idempotencyKey = UUID.randomUUID().toString();
+        StepVerifier.create(idempotencyKeyRepository.claimIdempotencyKey(idempotencyKey, LocalDateTime.now().minusHours(1)))
+                .expectNext(1)
+                .verifyComplete();
+
+        when(studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+        when(courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act
+        EnrollmentResponseDTO created = postEnrollmentWithIdempotencyKey(idempotencyKey);
+
+        //assert
+        StepVerifier.create(idempotencyKeyRepository.findById(idempotencyKey))
+                .consumeNextWith(key -> assertEquals(created.getEnrollmentId(), key.getEnrollmentId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void addEnrollments_bulkRequest_shouldReportEachRow() {
+        //arrange
+        EnrollmentRequestDTO unknownStudentRequestDTO = EnrollmentRequestDTO.builder()
+                .enrollmentYear(2023)
+                .semester(FALL)
+                .studentId("unknownStudent")
+                .courseId(courseResponseDTO.getCourseId())
+                .build();
+
+        when(studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+
+        when(studentClient.getStudentByStudentId(unknownStudentRequestDTO.getStudentId()))
+                .thenReturn(Mono.error(new NotFoundException("StudentId not found: unknownStudent")));
+
+        when(courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/enrollments/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(Flux.just(enrollmentRequestDTO, unknownStudentRequestDTO), EnrollmentRequestDTO.class)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(EnrollmentBulkResponseDTO.class)
+                .value(results -> {
+                    assertEquals(2, results.size());
+                    assertEquals(0L, results.get(0).getRow());
+                    assertNotNull(results.get(0).getEnrollmentId());
+                    assertNull(results.get(0).getError());
+                    assertEquals(1L, results.get(1).getRow());
+                    assertNull(results.get(1).getEnrollmentId());
+                    assertEquals("StudentId not found: unknownStudent", results.get(1).getError());
+                });
+
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(DB_SIZE + 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void submitEnrollment_validRequest_shouldCompleteTicket() {
+        //arrange
+        when(studentClient.getStudentByStudentId(enrollmentRequestDTO.getStudentId()))
+                .thenReturn(Mono.just(studentResponseDTO));
+
+        when(courseClient.getCourseByCourseId(enrollmentRequestDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        //act
+        EnrollmentTicketResponseDTO ticket = webTestClient
+                .post()
+                .uri("/enrollments/intake")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(enrollmentRequestDTO)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody(EnrollmentTicketResponseDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        //assert
+        assertNotNull(ticket);
+        Mono<EnrollmentTicketResponseDTO> completedTicket = Mono.defer(() -> webTestClient
+                        .get()
+                        .uri("/enrollments/tickets/{ticketId}", ticket.getTicketId())
+                        .exchange()
+                        .expectStatus().isOk()
+                        .returnResult(EnrollmentTicketResponseDTO.class)
+                        .getResponseBody()
+                        .next())
+                .filter(t -> t.getStatus() == EnrollmentTicketStatus.COMPLETED)
+                .repeatWhenEmpty(10, repeat -> repeat.delayElements(Duration.ofMillis(100)));
+
+        StepVerifier.create(completedTicket)
+                .consumeNextWith(t -> assertNotNull(t.getEnrollmentId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void submitEnrollment_missingFields_shouldThrowInvalidInputException() {
+        webTestClient
+                .post()
+                .uri("/enrollments/intake")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder().enrollmentYear(2023).build())
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid enrollment, enrollmentYear, semester, studentId and courseId are required");
+    }
+
     @Test
     public void updateEnrollment_validId_shouldSucceed() {
 
@@ -348,6 +1035,202 @@ class EnrollmentControllerIntegrationTest {
                 .expectStatus().isNoContent();
     }
 
+    @Test
+    public void deleteEnrollmentById_courseWithWaitlist_shouldPromoteFirstWaitlistedStudentOfTheTerm(){
+        //arrange
+        StudentResponseDTO otherTermWaitlisted = StudentResponseDTO.builder()
+                .studentId("student321").firstName("other").lastName("term").build();
+        StudentResponseDTO firstWaitlisted = StudentResponseDTO.builder()
+                .studentId("student456").firstName("first").lastName("waitlisted").build();
+        StudentResponseDTO secondWaitlisted = StudentResponseDTO.builder()
+                .studentId("student789").firstName("second").lastName("waitlisted").build();
+
+        for (StudentResponseDTO waitlisted : List.of(otherTermWaitlisted, firstWaitlisted, secondWaitlisted)) {
+            when(studentClient.getStudentByStudentId(waitlisted.getStudentId()))
+                    .thenReturn(Mono.just(waitlisted));
+        }
+        when(courseClient.getCourseByCourseId(courseResponseDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+
+        joinWaitlist(otherTermWaitlisted, courseResponseDTO, 2023, WINTER);
+        joinWaitlist(firstWaitlisted, courseResponseDTO, enrollment3.getEnrollmentYear(), enrollment3.getSemester());
+        joinWaitlist(secondWaitlisted, courseResponseDTO, enrollment3.getEnrollmentYear(), enrollment3.getSemester());
+
+        //act
+        webTestClient.delete()
+                .uri("/enrollments/{enrollmentId}", enrollment3.getEnrollmentId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        //assert
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId(firstWaitlisted.getStudentId()))
+                .consumeNextWith(promoted -> {
+                    assertEquals(courseResponseDTO.getCourseId(), promoted.getCourseId());
+                    assertEquals(enrollment3.getEnrollmentYear(), promoted.getEnrollmentYear());
+                    assertEquals(enrollment3.getSemester(), promoted.getSemester());
+                })
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId(otherTermWaitlisted.getStudentId()))
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId(secondWaitlisted.getStudentId()))
+                .verifyComplete();
+        StepVerifier.create(waitlistEntryRepository.count())
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.count())
+                .expectNext(DB_SIZE)
+                .verifyComplete();
+        verify(courseClient, never()).releaseSeats(anyString(), anyInt());
+    }
+
+    @Test
+    public void deleteEnrollmentById_waitlistedStudentWithOverlappingCourse_shouldPromoteTheNextStudent(){
+        //arrange
+        CourseResponseDTO morningCourse = CourseResponseDTO.builder()
+                .courseId("course456").courseName("Databases").courseNumber("420-N45-LA").numCredits(2.0)
+                .meetingSlots(List.of(new MeetingSlot(DayOfWeek.TUESDAY, LocalTime.of(8, 30), LocalTime.of(11, 30))))
+                .build();
+        CourseResponseDTO lateMorningCourse = CourseResponseDTO.builder()
+                .courseId("course789").courseName("Networks").courseNumber("420-N46-LA").numCredits(2.0)
+                .meetingSlots(List.of(new MeetingSlot(DayOfWeek.TUESDAY, LocalTime.of(10, 0), LocalTime.of(12, 0))))
+                .build();
+        StudentResponseDTO busyWaitlisted = StudentResponseDTO.builder()
+                .studentId("student456").firstName("busy").lastName("waitlisted").build();
+        StudentResponseDTO freeWaitlisted = StudentResponseDTO.builder()
+                .studentId("student789").firstName("free").lastName("waitlisted").build();
+
+        for (StudentResponseDTO student : List.of(studentResponseDTO, busyWaitlisted, freeWaitlisted)) {
+            when(studentClient.getStudentByStudentId(student.getStudentId()))
+                    .thenReturn(Mono.just(student));
+        }
+        when(courseClient.getCourseByCourseId(morningCourse.getCourseId()))
+                .thenReturn(Mono.just(morningCourse));
+        when(courseClient.getCourseByCourseId(lateMorningCourse.getCourseId()))
+                .thenReturn(Mono.just(lateMorningCourse));
+
+        String droppedEnrollmentId = addEnrollment(studentResponseDTO, lateMorningCourse, 2025, FALL);
+        addEnrollment(busyWaitlisted, morningCourse, 2025, FALL);
+        joinWaitlist(busyWaitlisted, lateMorningCourse, 2025, FALL);
+        joinWaitlist(freeWaitlisted, lateMorningCourse, 2025, FALL);
+
+        //act
+        webTestClient.delete()
+                .uri("/enrollments/{enrollmentId}", droppedEnrollmentId)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        //assert
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId(busyWaitlisted.getStudentId()))
+                .consumeNextWith(kept -> assertEquals(morningCourse.getCourseId(), kept.getCourseId()))
+                .verifyComplete();
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId(freeWaitlisted.getStudentId()))
+                .consumeNextWith(promoted -> assertEquals(lateMorningCourse.getCourseId(), promoted.getCourseId()))
+                .verifyComplete();
+        StepVerifier.create(waitlistEntryRepository.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void updateEnrollment_moveToAnotherCourse_shouldPromoteTheWaitlistOfTheOldCourse(){
+        //arrange
+        CourseResponseDTO otherCourse = CourseResponseDTO.builder()
+                .courseId("course456").courseName("Databases").courseNumber("420-N45-LA").numCredits(2.0)
+                .build();
+        StudentResponseDTO waitlisted = StudentResponseDTO.builder()
+                .studentId("student456").firstName("first").lastName("waitlisted").build();
+
+        for (StudentResponseDTO student : List.of(studentResponseDTO, waitlisted)) {
+            when(studentClient.getStudentByStudentId(student.getStudentId()))
+                    .thenReturn(Mono.just(student));
+        }
+        when(courseClient.getCourseByCourseId(courseResponseDTO.getCourseId()))
+                .thenReturn(Mono.just(courseResponseDTO));
+        when(courseClient.getCourseByCourseId(otherCourse.getCourseId()))
+                .thenReturn(Mono.just(otherCourse));
+
+        joinWaitlist(waitlisted, courseResponseDTO, enrollment3.getEnrollmentYear(), enrollment3.getSemester());
+
+        //act
+        webTestClient.put()
+                .uri("/enrollments/{enrollmentId}", enrollment3.getEnrollmentId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(enrollment3.getEnrollmentYear())
+                        .semester(enrollment3.getSemester())
+                        .studentId(studentResponseDTO.getStudentId())
+                        .courseId(otherCourse.getCourseId())
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+
+        //assert
+        StepVerifier.create(enrollmentRepository.findAllEnrollmentsByStudentId(waitlisted.getStudentId()))
+                .consumeNextWith(promoted -> {
+                    assertEquals(courseResponseDTO.getCourseId(), promoted.getCourseId());
+                    assertEquals(enrollment3.getEnrollmentYear(), promoted.getEnrollmentYear());
+                })
+                .verifyComplete();
+        StepVerifier.create(waitlistEntryRepository.count())
+                .expectNext(0L)
+                .verifyComplete();
+        verify(courseClient).reserveSeats(otherCourse.getCourseId(), 1);
+        verify(courseClient, never()).releaseSeats(anyString(), anyInt());
+    }
+
+    private String addEnrollment(StudentResponseDTO student, CourseResponseDTO course, Integer enrollmentYear, Semester semester) {
+        return webTestClient.post()
+                .uri("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(enrollmentYear)
+                        .semester(semester)
+                        .studentId(student.getStudentId())
+                        .courseId(course.getCourseId())
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(EnrollmentResponseDTO.class)
+                .returnResult()
+                .getResponseBody()
+                .getEnrollmentId();
+    }
+
+    private void joinWaitlist(StudentResponseDTO student, CourseResponseDTO course, Integer enrollmentYear, Semester semester) {
+        webTestClient.post()
+                .uri("/enrollments/waitlist")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(enrollmentYear)
+                        .semester(semester)
+                        .studentId(student.getStudentId())
+                        .courseId(course.getCourseId())
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(WaitlistEntryResponseDTO.class)
+                .value(waitlistEntry -> assertEquals(student.getFirstName(), waitlistEntry.getStudentFirstName()));
+    }
+
+    @Test
+    public void joinWaitlist_alreadyEnrolled_shouldReturnConflict(){
+        //act and assert
+        webTestClient.post()
+                .uri("/enrollments/waitlist")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(enrollment2.getEnrollmentYear())
+                        .semester(enrollment2.getSemester())
+                        .studentId(enrollment2.getStudentId())
+                        .courseId(enrollment2.getCourseId())
+                        .build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Student is already enrolled in this course for this term");
+    }
+
     @Test
     public void deleteEnrollmentById_badRequest_throwsInvalidInputException(){
         String invalidIdTest = "12345";
@@ -362,13 +1245,32 @@ class EnrollmentControllerIntegrationTest {
     }
 
 
+    private EnrollmentResponseDTO postEnrollmentWithIdempotencyKey(String idempotencyKey){
+        return webTestClient
+                .post()
+                .uri("/enrollments")
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(enrollmentRequestDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(EnrollmentResponseDTO.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
     private Enrollment buildEnrollment(Integer enrollmentYear, String enrollmentId){
         return Enrollment.builder()
                 .enrollmentId(enrollmentId)
                 .enrollmentYear(enrollmentYear)
                 .semester(FALL)
                 .studentId(studentResponseDTO.getStudentId())
+                .studentFirstName(studentResponseDTO.getFirstName())
+                .studentLastName(studentResponseDTO.getLastName())
                 .courseId(courseResponseDTO.getCourseId())
+                .courseNumber(courseResponseDTO.getCourseNumber())
+                .courseName(courseResponseDTO.getCourseName())
                 .build();
     }
 
@@ -1,21 +1,27 @@
 package com.champlain.enrollmentsservice.presentationlayer;
 
+import com.champlain.enrollmentsservice.businesslayer.EnrollmentIntakeService;
 import com.champlain.enrollmentsservice.businesslayer.EnrollmentService;
 import com.champlain.enrollmentsservice.dataaccesslayer.Semester;
 import com.champlain.enrollmentsservice.domainclientlayer.CourseResponseDTO;
 import com.champlain.enrollmentsservice.domainclientlayer.StudentResponseDTO;
+import com.champlain.enrollmentsservice.utils.exceptions.ServiceUnavailableException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 
@@ -28,6 +34,9 @@ class EnrollmentControllerUnitTest {
     @MockBean
     EnrollmentService enrollmentService;
 
+    @MockBean
+    EnrollmentIntakeService enrollmentIntakeService;
+
     @MockBean
     ConnectionFactoryInitializer connectionFactoryInitializer;
 
@@ -131,4 +140,77 @@ class EnrollmentControllerUnitTest {
         verify(enrollmentService, times(1))
                 .getEnrollmentById(fakeId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void submitEnrollment_validRequest_shouldReturnAccepted() {
+        //arrange
+        EnrollmentTicketResponseDTO ticket = EnrollmentTicketResponseDTO.builder()
+                .ticketId(uuidEnrollment)
+                .status(EnrollmentTicketStatus.QUEUED)
+                .build();
+
+        when(enrollmentIntakeService.submitEnrollment(any()))
+                .thenReturn(Mono.just(ticket));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/enrollments/intake")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder()
+                        .enrollmentYear(2023)
+                        .semester(Semester.FALL)
+                        .studentId(uuidStudent)
+                        .courseId(uuidCourse)
+                        .build())
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody()
+                .jsonPath("$.ticketId").isEqualTo(uuidEnrollment)
+                .jsonPath("$.status").isEqualTo("QUEUED");
+    }
+
+    @Test
+    void submitEnrollment_queueFull_shouldReturnServiceUnavailableWithRetryAfter() {
+        //arrange
+        when(enrollmentIntakeService.submitEnrollment(any()))
+                .thenReturn(Mono.error(new ServiceUnavailableException("Enrollment intake queue is full, try again later", 5)));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/enrollments/intake")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(EnrollmentRequestDTO.builder().build())
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals("Retry-After", "5")
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Enrollment intake queue is full, try again later");
+    }
+
+    @Test
+    void tailEnrollments_courseFilter_shouldNameEachEventAfterItsType() {
+        //arrange
+        EnrollmentChangeResponseDTO change = EnrollmentChangeResponseDTO.builder()
+                .type(EnrollmentChangeType.DELETED)
+                .enrollment(EnrollmentResponseDTO.builder().enrollmentId(uuidEnrollment).courseId(uuidCourse).build())
+                .build();
+        when(enrollmentService.tailEnrollments(uuidCourse, null))
+                .thenReturn(Flux.just(change));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/enrollments/live?courseId={courseId}", uuidCourse)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(new ParameterizedTypeReference<ServerSentEvent<EnrollmentChangeResponseDTO>>() {})
+                .value(events -> {
+                    assertEquals(1, events.size());
+                    assertEquals("deleted", events.get(0).event());
+                    assertEquals(change, events.get(0).data());
+                });
+    }
+}
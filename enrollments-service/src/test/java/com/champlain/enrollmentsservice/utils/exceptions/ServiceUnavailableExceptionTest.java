@@ -0,0 +1,48 @@
+package com.champlain.enrollmentsservice.utils.exceptions;
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+class ServiceUnavailableExceptionTest {
+
+    @Test
+    public void testDefaultConstructor() {
+        ServiceUnavailableException exception = new ServiceUnavailableException();
+        assertNull(exception.getMessage());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    public void testMessageConstructor() {
+        String errorMessage = "Service unavailable!";
+        ServiceUnavailableException exception = new ServiceUnavailableException(errorMessage);
+        assertEquals(errorMessage, exception.getMessage());
+        assertNull(exception.getCause());
+    }
+    @Test
+    public void testCauseConstructor() {
+        Throwable cause = new Throwable("Test cause");
+        ServiceUnavailableException exception = new ServiceUnavailableException(cause);
+        Assertions.assertEquals("java.lang.Throwable: Test cause", exception.getMessage());
+        assertSame(cause, exception.getCause());
+    }
+    @Test
+    public void testMessageAndCauseConstructor() {
+        String errorMessage = "Service unavailable!";
+        Throwable cause = new IllegalArgumentException("Invalid ID");
+        ServiceUnavailableException exception = new ServiceUnavailableException(errorMessage, cause);
+        assertEquals(errorMessage, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+
+    @Test
+    public void testMessageAndRetryAfterConstructor() {
+        String errorMessage = "Service unavailable!";
+        ServiceUnavailableException exception = new ServiceUnavailableException(errorMessage, 5);
+        assertEquals(errorMessage, exception.getMessage());
+        assertEquals(5, exception.getRetryAfterSeconds());
+    }
+
+}
\ No newline at end of file
@@ -50,16 +50,10 @@ public class StudentServiceImpl implements StudentService{
         if(studentId.length() != 36){
             return Mono.error(new InvalidInputException("Invalid studentId, length must be 36 characters"));
         }
-        return studentRepository.findStudentByStudentId(studentId)
+        return studentRequestDTO
+                .map(EntityDTOUtils::toStudentEntity)
+                .flatMap(student -> studentRepository.updateStudentByStudentId(studentId, student))
                 .switchIfEmpty(Mono.error(new NotFoundException("No student with this studentId was found: " + studentId)))
-                .flatMap(student ->
-                        studentRequestDTO
-                                .map(EntityDTOUtils::toStudentEntity)
-                                .doOnNext(e -> {
-                                    e.setStudentId(student.getStudentId());
-                                    e.setId(student.getId());
-                                }))
-                .flatMap(studentRepository::save)
                 .map(EntityDTOUtils::toStudentResponseDTO);
     }
 
@@ -68,9 +62,10 @@ public class StudentServiceImpl implements StudentService{
         if(studentId.length() != 36){
             return Mono.error(new InvalidInputException("Invalid studentId, length must be 36 characters"));
         }
-        return studentRepository.findStudentByStudentId(studentId)
+        return studentRepository.deleteStudentByStudentId(studentId)
+                .filter(deletedCount -> deletedCount > 0)
                 .switchIfEmpty(Mono.error(new NotFoundException("No student with this studentId was found: " + studentId)))
-                .flatMap(studentRepository::delete);
+                .then();
     }
 
 }
@@ -4,8 +4,10 @@ package com.champlain.studentsservice.dataaccesslayer;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Mono;
 
-public interface StudentRepository extends ReactiveMongoRepository<Student, String> {
+public interface StudentRepository extends ReactiveMongoRepository<Student, String>, StudentUpdateRepository {
 
     Mono<Student> findStudentByStudentId(String studentId);
 
+    Mono<Long> deleteStudentByStudentId(String studentId);
+
 }
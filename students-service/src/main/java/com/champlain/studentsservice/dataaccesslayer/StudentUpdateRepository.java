@@ -0,0 +1,9 @@
+package com.champlain.studentsservice.dataaccesslayer;
+
+import reactor.core.publisher.Mono;
+
+public interface StudentUpdateRepository {
+
+    Mono<Student> updateStudentByStudentId(String studentId, Student student);
+
+}
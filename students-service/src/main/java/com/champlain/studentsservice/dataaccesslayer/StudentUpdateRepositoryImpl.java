@@ -0,0 +1,31 @@
+package com.champlain.studentsservice.dataaccesslayer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class StudentUpdateRepositoryImpl implements StudentUpdateRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // one findAndModify on the business id, returns the updated document or empty when no student matched
+    @Override
+    public Mono<Student> updateStudentByStudentId(String studentId, Student student) {
+        Update update = new Update()
+                .set("firstName", student.getFirstName())
+                .set("lastName", student.getLastName())
+                .set("program", student.getProgram());
+
+        return reactiveMongoTemplate.findAndModify(
+                Query.query(Criteria.where("studentId").is(studentId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Student.class);
+    }
+
+}
@@ -4,6 +4,7 @@ import com.champlain.studentsservice.dataaccesslayer.StudentRepository;
 import com.champlain.studentsservice.presentationlayer.StudentRequestDTO;
 import com.champlain.studentsservice.presentationlayer.StudentResponseDTO;
 import com.champlain.studentsservice.utils.exceptions.InvalidInputException;
+import com.champlain.studentsservice.utils.exceptions.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -16,6 +17,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -128,16 +130,10 @@ class StudentServiceUnitTest {
         StudentRequestDTO studentRequestDTO = StudentRequestDTO.builder()
                 .build();
 
-        Student existingStudent = Student.builder()
-                .studentId(uuid1)
-                .id("123")
-                .build();
-
         Student updatedStudentEntity = Student.builder()
                 .build();
 
-        when(studentRepository.findStudentByStudentId(validStudentId)).thenReturn(Mono.just(existingStudent));
-        when(studentRepository.save(any(Student.class))).thenReturn(Mono.just(updatedStudentEntity));
+        when(studentRepository.updateStudentByStudentId(eq(validStudentId), any(Student.class))).thenReturn(Mono.just(updatedStudentEntity));
 
         // Act and Assert
         StepVerifier
@@ -170,14 +166,8 @@ class StudentServiceUnitTest {
         // Arrange
         String studentIdToDelete = uuid1;
 
-        when(studentRepository.delete(any(Student.class)))
-                .thenReturn(Mono.empty());
-
-        when(studentRepository.findStudentByStudentId(studentIdToDelete))
-                .thenReturn(Mono.just(new Student()));
-
-        when(studentRepository.deleteById(anyString()))
-                .thenReturn(Mono.empty());
+        when(studentRepository.deleteStudentByStudentId(studentIdToDelete))
+                .thenReturn(Mono.just(1L));
 
         // Act
         Mono<Void> studentDelete = studentService.deleteStudentById(studentIdToDelete);
@@ -188,4 +178,20 @@ class StudentServiceUnitTest {
                 .verifyComplete();
     }
 
-}
\ No newline at end of file
+    @Test
+    void deleteStudent_unknownId_shouldThrowNotFoundException() {
+        // Arrange
+        String unknownStudentId = UUID.randomUUID().toString();
+
+        when(studentRepository.deleteStudentByStudentId(unknownStudentId))
+                .thenReturn(Mono.just(0L));
+
+        // Act and Assert
+        StepVerifier
+                .create(studentService.deleteStudentById(unknownStudentId))
+                .expectErrorMatches(exception -> exception instanceof NotFoundException &&
+                        exception.getMessage().equals("No student with this studentId was found: " + unknownStudentId))
+                .verify();
+    }
+
+}
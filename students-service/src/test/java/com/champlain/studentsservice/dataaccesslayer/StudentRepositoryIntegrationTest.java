@@ -83,6 +83,41 @@ class StudentRepositoryIntegrationTest {
         StepVerifier.create(studentRepository.findStudentByStudentId("studentId04")).expectNextCount(0).verifyComplete();
     }
 
+    @Test
+    public void updateStudentByStudentId_validId_shouldReturnUpdatedStudent(){
+        //arrange
+        Student update = buildStudent("updatedLastName", null);
+
+        //act and assert
+        StepVerifier.create(studentRepository.updateStudentByStudentId(student1.getStudentId(), update))
+                .assertNext(student -> {
+                    assertThat(student.getId()).isEqualTo(student1.getId());
+                    assertThat(student.getStudentId()).isEqualTo(student1.getStudentId());
+                    assertThat(student.getLastName()).isEqualTo("updatedLastName");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void updateStudentByStudentId_invalidId_shouldReturnNone(){
+        //act and assert
+        StepVerifier.create(studentRepository.updateStudentByStudentId("fakeId", buildStudent("updatedLastName", null)))
+                .expectNextCount(0)
+                .verifyComplete();
+    }
+
+    @Test
+    public void deleteStudentByStudentId_shouldReturnDeletedCount(){
+        //act and assert
+        StepVerifier.create(studentRepository.deleteStudentByStudentId(student1.getStudentId()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(studentRepository.deleteStudentByStudentId(student1.getStudentId()))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
     private Student buildStudent(String lastName, String studentId){
         return Student.builder()
                 .lastName(lastName)